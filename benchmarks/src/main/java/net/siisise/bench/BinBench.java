@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.bench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import net.siisise.lang.Bin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bin の xor, btol, ltob.
+ * 暗号の1ブロック相当(16バイト)と 4KiB.
+ * legacy はバイト毎にシフトして組み立てていた前の実装.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BinBench {
+
+    byte[] a16;
+    byte[] b16;
+    byte[] a4k;
+    byte[] b4k;
+    long[] l4k;
+    int[] i4k;
+    long[] dst;
+    ByteBuffer direct;
+
+    @Setup
+    public void setup() {
+        a16 = new byte[16];
+        b16 = new byte[16];
+        a4k = new byte[4096];
+        b4k = new byte[4096];
+        for (int i = 0; i < a4k.length; i++) {
+            a4k[i] = (byte) i;
+            b4k[i] = (byte) (i * 3);
+        }
+        System.arraycopy(a4k, 0, a16, 0, 16);
+        System.arraycopy(b4k, 0, b16, 0, 16);
+        l4k = Bin.btol(a4k);
+        i4k = Bin.btoi(a4k);
+        dst = new long[l4k.length];
+        direct = ByteBuffer.allocateDirect(a4k.length);
+        direct.put(a4k).flip();
+    }
+
+    @Benchmark
+    public byte[] xor16() {
+        return Bin.xor(a16, b16);
+    }
+
+    @Benchmark
+    public byte[] xor4k() {
+        return Bin.xor(a4k, b4k);
+    }
+
+    @Benchmark
+    public long[] btol16() {
+        return Bin.btol(a16);
+    }
+
+    @Benchmark
+    public long[] btol4k() {
+        return Bin.btol(a4k);
+    }
+
+    @Benchmark
+    public byte[] ltob4k() {
+        return Bin.ltob(l4k);
+    }
+
+    @Benchmark
+    public long[] btol4kLegacy() {
+        return legacyBtol(a4k);
+    }
+
+    @Benchmark
+    public byte[] ltob4kLegacy() {
+        return legacyLtob(l4k);
+    }
+
+    @Benchmark
+    public int[] btoi4k() {
+        return Bin.btoi(a4k);
+    }
+
+    @Benchmark
+    public int[] btoi4kLegacy() {
+        return legacyBtoi(a4k);
+    }
+
+    @Benchmark
+    public byte[] itob4k() {
+        return Bin.itob(i4k);
+    }
+
+    /**
+     * 呼び出し側の配列に書く.
+     */
+    @Benchmark
+    public long[] btol4kInto() {
+        Bin.btol(a4k, 0, dst, 0, dst.length);
+        return dst;
+    }
+
+    @Benchmark
+    public long[] btol4kDirect() {
+        Bin.btol(direct.duplicate(), dst, 0, dst.length);
+        return dst;
+    }
+
+    static long[] legacyBtol(final byte[] src) {
+        int t = 0;
+        long[] dst = new long[src.length / 8];
+        for (int i = 0; i < dst.length; i++, t += 8) {
+            dst[i]
+                    = ( ((long) src[t    ])         << 56)
+                    | ((((long) src[t + 1]) & 0xff) << 48)
+                    | ((((long) src[t + 2]) & 0xff) << 40)
+                    | ((((long) src[t + 3]) & 0xff) << 32)
+                    | ((((long) src[t + 4]) & 0xff) << 24)
+                    | ((((long) src[t + 5]) & 0xff) << 16)
+                    | ((((long) src[t + 6]) & 0xff) << 8)
+                    |  (((long) src[t + 7]) & 0xff);
+        }
+        return dst;
+    }
+
+    static byte[] legacyLtob(final long... src) {
+        byte[] ds = new byte[src.length * 8];
+        for (int i = 0; i < src.length; i++) {
+            long s = src[i];
+            int l = i * 8;
+            ds[l    ] = (byte) (s >> 56);
+            ds[l + 1] = (byte) (s >> 48);
+            ds[l + 2] = (byte) (s >> 40);
+            ds[l + 3] = (byte) (s >> 32);
+            ds[l + 4] = (byte) (s >> 24);
+            ds[l + 5] = (byte) (s >> 16);
+            ds[l + 6] = (byte) (s >>  8);
+            ds[l + 7] = (byte) (s      );
+        }
+        return ds;
+    }
+
+    static int[] legacyBtoi(final byte[] src) {
+        int t = 0;
+        int[] dst = new int[src.length / 4];
+        for (int i = 0; i < dst.length; i++, t += 4) {
+            dst[i]
+                    =  (src[t    ]         << 24)
+                    | ((src[t + 1] & 0xff) << 16)
+                    | ((src[t + 2] & 0xff) <<  8)
+                    |  (src[t + 3] & 0xff);
+        }
+        return dst;
+    }
+}
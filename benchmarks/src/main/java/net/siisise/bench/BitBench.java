@@ -0,0 +1,112 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.bench;
+
+import java.util.concurrent.TimeUnit;
+import net.siisise.io.BaseBitPac;
+import net.siisise.io.BigBitPacket;
+import net.siisise.io.BitReader;
+import net.siisise.io.LittleBitPacket;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BigBitPacket, LittleBitPacket のビット読み.
+ * 4KiB を bits 毎に読む.
+ * readInts は同じ量をまとめ読みする.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BitBench {
+
+    @Param({"1", "5", "13", "32"})
+    int bits;
+
+    byte[] src;
+
+    @Setup
+    public void setup() {
+        src = new byte[4096];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (byte) (i * 13);
+        }
+    }
+
+    int readAll(BaseBitPac pac) {
+        pac.write(src);
+        int s = 0;
+        while (pac.bitLength() >= bits) {
+            s += pac.readInt(bits);
+        }
+        return s;
+    }
+
+    @Benchmark
+    public int bigRead() {
+        return readAll(new BigBitPacket());
+    }
+
+    @Benchmark
+    public int littleRead() {
+        return readAll(new LittleBitPacket());
+    }
+
+    int readInts(BaseBitPac pac) {
+        pac.write(src);
+        int[] d = new int[(int) (pac.bitLength() / bits)];
+        pac.readInts(bits, d, 0, d.length);
+        int s = 0;
+        for (int v : d) {
+            s += v;
+        }
+        return s;
+    }
+
+    @Benchmark
+    public int bigReadInts() {
+        return readInts(new BigBitPacket());
+    }
+
+    @Benchmark
+    public int littleReadInts() {
+        return readInts(new LittleBitPacket());
+    }
+
+    @Benchmark
+    public int readerReadInts() {
+        BitReader r = BitReader.big(src);
+        int[] d = new int[src.length * 8 / bits];
+        r.readInts(bits, d, 0, d.length);
+        int s = 0;
+        for (int v : d) {
+            s += v;
+        }
+        return s;
+    }
+}
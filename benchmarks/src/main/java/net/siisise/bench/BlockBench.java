@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.siisise.block.ByteBlock;
+import net.siisise.block.ByteBufferBlock;
+import net.siisise.block.ChannelBlock;
+import net.siisise.block.MultiBlock;
+import net.siisise.block.OverBlock;
+import net.siisise.block.PageCacheBlock;
+import net.siisise.block.ReadableBlock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ByteBlock, ByteBufferBlock, ChannelBlock, MappedBlock, PageCacheBlock, MultiBlock の順次読みとランダム get.
+ * multi は 1KiB の断片 4096個.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BlockBench {
+
+    static final int SIZE = 0x400000;
+
+    @Param({"byte", "heap", "direct", "channel", "mapped", "cached", "multi"})
+    String type;
+
+    @Param({"64", "4096"})
+    int unit;
+
+    File file;
+    ReadableBlock block;
+    byte[] dst;
+    int[] index;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        byte[] src = new byte[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            src[i] = (byte) (i * 31);
+        }
+        switch (type) {
+            case "byte":
+                block = new ByteBlock(src);
+                break;
+            case "heap":
+                block = new ByteBufferBlock(ByteBuffer.wrap(src));
+                break;
+            case "direct":
+                ByteBuffer bb = ByteBuffer.allocateDirect(SIZE);
+                bb.put(src);
+                bb.flip();
+                block = new ByteBufferBlock(bb);
+                break;
+            case "multi":
+                List<OverBlock> list = new ArrayList<>();
+                for (int i = 0; i < SIZE; i += 0x400) {
+                    list.add(new ByteBlock(Arrays.copyOfRange(src, i, i + 0x400)));
+                }
+                block = new MultiBlock(list);
+                break;
+            default:
+                file = File.createTempFile("softlib", ".bench");
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.write(src);
+                }
+                block = type.equals("cached") ? PageCacheBlock.wrap(file) : ReadableBlock.wrap(file, type.equals("mapped"));
+        }
+        dst = new byte[unit];
+        index = new int[1024];
+        java.util.Random rnd = new java.util.Random(1);
+        for (int i = 0; i < index.length; i++) {
+            index[i] = rnd.nextInt(SIZE - unit);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (block instanceof ChannelBlock) {
+            ((ChannelBlock) block).close();
+        } else if (block instanceof PageCacheBlock) {
+            ((PageCacheBlock) block).close();
+        }
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    @Benchmark
+    public int sequential() {
+        block.seek(0);
+        int s = 0;
+        while (block.length() >= unit) {
+            s += block.read(dst);
+        }
+        return s;
+    }
+
+    @Benchmark
+    public int random() {
+        int s = 0;
+        for (int i : index) {
+            block.get(i, dst, 0, unit);
+            s += dst[0];
+        }
+        return s;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import net.siisise.io.BASE32;
+import net.siisise.io.BASE58;
+import net.siisise.io.BASE64;
+import net.siisise.io.BigBitPacket;
+import net.siisise.io.BitReader;
+import net.siisise.io.BitWriter;
+import net.siisise.io.IntCode;
+import net.siisise.io.PacketA;
+import net.siisise.io.PrefixCode;
+import net.siisise.lang.LEB128;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * BASE64, BASE32, BASE58 の符号化、復号.
+ * BASE58 は桁数で重くなるので短め.
+ * PrefixCode は DEFLATE の固定符号で 64K 記号.
+ * IntCode は 64K 個の昇順の値の差分を Rice(4) と LEB128 で比べる.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBench {
+
+    byte[] src;
+    byte[] src58;
+    BASE64 b64;
+    BASE32 b32;
+    BASE58 b58;
+    String e64;
+    String e32;
+    String e58;
+    PrefixCode huff;
+    int[] syms;
+    byte[] eHuff;
+    IntCode rice;
+    int[] ids;
+    byte[] eRice;
+    byte[] eLeb;
+
+    @Setup
+    public void setup() {
+        src = new byte[0x10000];
+        src58 = new byte[64];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (byte) (i * 7);
+        }
+        System.arraycopy(src, 1, src58, 0, src58.length);
+        b64 = new BASE64(BASE64.BASE64, 0);
+        b32 = new BASE32();
+        b58 = BASE58.BTC;
+        e64 = b64.encode(src);
+        e32 = b32.encode(src);
+        e58 = b58.encode(src58);
+
+        int[] l = new int[288];
+        Arrays.fill(l, 0, 144, 8);
+        Arrays.fill(l, 144, 256, 9);
+        Arrays.fill(l, 256, 280, 7);
+        Arrays.fill(l, 280, 288, 8);
+        huff = PrefixCode.big(l);
+        syms = new int[src.length];
+        for (int i = 0; i < src.length; i++) {
+            syms[i] = src[i] & 0xff;
+        }
+        eHuff = huffmanEncode();
+
+        rice = IntCode.rice(4);
+        ids = new int[src.length];
+        for (int i = 1; i < ids.length; i++) {
+            ids[i] = ids[i - 1] + (src[i] & 0x1f);
+        }
+        eRice = riceEncode();
+        eLeb = lebEncode();
+    }
+
+    @Benchmark
+    public String base64Encode() {
+        return b64.encode(src);
+    }
+
+    @Benchmark
+    public byte[] base64Decode() {
+        return b64.decode(e64);
+    }
+
+    @Benchmark
+    public String base32Encode() {
+        return b32.encode(src);
+    }
+
+    @Benchmark
+    public byte[] base32Decode() {
+        return b32.decode(e32);
+    }
+
+    @Benchmark
+    public String base58Encode() {
+        return b58.encode(src58);
+    }
+
+    @Benchmark
+    public byte[] base58Decode() {
+        return b58.decode(e58);
+    }
+
+    @Benchmark
+    public byte[] huffmanEncode() {
+        PacketA pac = new PacketA();
+        BitWriter w = BitWriter.big(pac);
+        huff.encode(w, syms, 0, syms.length);
+        w.close();
+        return pac.toByteArray();
+    }
+
+    @Benchmark
+    public int[] huffmanDecode() {
+        int[] d = new int[syms.length];
+        huff.decode(BitReader.big(eHuff), d, 0, d.length);
+        return d;
+    }
+
+    /**
+     * 1ビットずつの復号.
+     */
+    @Benchmark
+    public int huffmanDecodeSerial() {
+        BigBitPacket bp = new BigBitPacket();
+        bp.write(eHuff);
+        int s = 0;
+        for (int i = 0; i < syms.length; i++) {
+            s += huff.decode(bp);
+        }
+        return s;
+    }
+
+    @Benchmark
+    public byte[] riceEncode() {
+        PacketA pac = new PacketA();
+        BitWriter w = BitWriter.big(pac);
+        rice.encodeSorted(w, ids, 0, ids.length);
+        w.close();
+        return pac.toByteArray();
+    }
+
+    @Benchmark
+    public int[] riceDecode() {
+        int[] d = new int[ids.length];
+        rice.decodeSorted(BitReader.big(eRice), d, 0, d.length);
+        return d;
+    }
+
+    @Benchmark
+    public byte[] lebEncode() {
+        PacketA pac = new PacketA();
+        int prev = 0;
+        for (int v : ids) {
+            pac.write(LEB128.toLEB128(v - prev));
+            prev = v;
+        }
+        return pac.toByteArray();
+    }
+
+    @Benchmark
+    public int[] lebDecode() {
+        PacketA pac = new PacketA(eLeb);
+        int[] d = new int[ids.length];
+        int v = 0;
+        for (int i = 0; i < d.length; i++) {
+            v += (int) LEB128.toLong(pac);
+            d[i] = v;
+        }
+        return d;
+    }
+}
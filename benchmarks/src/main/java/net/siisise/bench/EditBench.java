@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.siisise.block.EditBlock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * SinglePacketBlock, PieceBlock のランダムな追加と削除.
+ * 16MiB に 1000回ずつ.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EditBench {
+
+    static final int SIZE = 0x1000000;
+
+    @Param({"packet", "piece"})
+    String type;
+
+    byte[] org;
+    EditBlock block;
+    long[] index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        org = new byte[SIZE];
+        index = new long[1000];
+        Random rnd = new Random(1);
+        for (int i = 0; i < index.length; i++) {
+            index[i] = rnd.nextInt(SIZE - 0x100);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        block = type.equals("piece") ? EditBlock.piece(org) : EditBlock.wrap(org);
+    }
+
+    @Benchmark
+    public EditBlock edit() {
+        byte[] d = new byte[16];
+        for (long i : index) {
+            block.add(i, d);
+            block.del(i + 100, 16);
+        }
+        return block;
+    }
+}
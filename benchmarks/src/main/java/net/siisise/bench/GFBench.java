@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.bench;
+
+import java.util.concurrent.TimeUnit;
+import net.siisise.math.GF;
+import net.siisise.math.GFL;
+import net.siisise.math.GFRev;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * GF(2^128) の積.
+ * GF, GFL は CMAC 系、GFRev は GCM 系.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GFBench {
+
+    long[] a;
+    long[] b;
+    GF gf;
+    GFL gfl;
+    GFRev gfrev;
+    GFRev gfrev8;
+    long[] v;
+
+    @Setup
+    public void setup() {
+        a = new long[] {0x66e94bd4ef8a2c3bL, 0x884cfa59ca342b2eL};
+        b = new long[] {0x0388dace60b6a392L, 0xf328c2b971b2fe78L};
+        gf = new GF(128, GF.FF128);
+        gfl = new GFL(a, GFL.GF128);
+        gfrev = new GFRev(a);
+        gfrev8 = new GFRev(a, 8);
+        v = b.clone();
+    }
+
+    @Benchmark
+    public long[] gfMul() {
+        return gf.mul(a, b);
+    }
+
+    @Benchmark
+    public long[] gfInv() {
+        return gf.inv(a);
+    }
+
+    @Benchmark
+    public long[] gfMulTo() {
+        return gf.mulTo(a, b, v);
+    }
+
+    @Benchmark
+    public long[] gflMul() {
+        return gfl.mul(a, b);
+    }
+
+    @Benchmark
+    public long[] gflMulH() {
+        return gfl.mul(b);
+    }
+
+    @Benchmark
+    public long[] gfrevMulH() {
+        return gfrev.mul(b);
+    }
+
+    @Benchmark
+    public long[] gfrevMulTo() {
+        return gfrev.mulTo(v);
+    }
+
+    @Benchmark
+    public long[] gfrev8MulTo() {
+        return gfrev8.mulTo(v);
+    }
+
+    @Benchmark
+    public long[] gfrevMul() {
+        return gfrev.mul(a, b);
+    }
+}
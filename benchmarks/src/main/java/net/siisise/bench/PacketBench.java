@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.bench;
+
+import java.util.concurrent.TimeUnit;
+import net.siisise.io.FIFOPacket;
+import net.siisise.io.PacketA;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PacketA, FIFOPacket の書き読み.
+ * 1MiB を chunk サイズ毎に書いて読む.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PacketBench {
+
+    static final int TOTAL = 0x100000;
+
+    @Param({"16", "1024", "65536"})
+    int chunk;
+
+    byte[] src;
+    byte[] dst;
+
+    @Setup
+    public void setup() {
+        src = new byte[chunk];
+        dst = new byte[chunk];
+        for (int i = 0; i < chunk; i++) {
+            src[i] = (byte) i;
+        }
+    }
+
+    @Benchmark
+    public int packetWriteRead() {
+        PacketA pac = new PacketA();
+        for (int i = 0; i < TOTAL; i += chunk) {
+            pac.write(src);
+        }
+        int s = 0;
+        while (pac.length() > 0) {
+            s += pac.read(dst);
+        }
+        return s;
+    }
+
+    @Benchmark
+    public long packetReadPacket() {
+        PacketA pac = new PacketA();
+        for (int i = 0; i < TOTAL; i += chunk) {
+            pac.write(src);
+        }
+        long s = 0;
+        while (pac.length() > 0) {
+            s += pac.readPacket(chunk).length();
+        }
+        return s;
+    }
+
+    @Benchmark
+    public int packetInterleaved() {
+        PacketA pac = new PacketA();
+        int s = 0;
+        for (int i = 0; i < TOTAL; i += chunk) {
+            pac.write(src);
+            s += pac.read(dst);
+        }
+        return s;
+    }
+
+    @Benchmark
+    public int fifoWriteRead() {
+        FIFOPacket pac = new FIFOPacket();
+        for (int i = 0; i < TOTAL; i += chunk) {
+            pac.write(src);
+        }
+        int s = 0;
+        while (pac.length() > 0) {
+            s += pac.read(dst);
+        }
+        return s;
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.siisise.math.Matics;
+
+/**
+ * AsynchronousFileChannel のBlock.
+ * readAsync / writeAsync は位置を指定して CompletableFuture で結果を返す.
+ * 複数範囲をまとめて投げて待たずに重ねられる.
+ * 普通の OverBlock として使うときは完了を待つ.
+ * 長さは開いたときのサイズで固定.
+ */
+public class AsyncChannelBlock extends OverBlock.AbstractSubOverBlock implements Closeable {
+
+    private final AsynchronousFileChannel ch;
+
+    /**
+     * 読み専用で開く.
+     *
+     * @param path ファイル
+     * @return Block
+     * @throws IOException
+     */
+    public static AsyncChannelBlock open(Path path) throws IOException {
+        return new AsyncChannelBlock(AsynchronousFileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * 読み書きできる形で開く.
+     *
+     * @param path ファイル
+     * @return Block
+     * @throws IOException
+     */
+    public static AsyncChannelBlock over(Path path) throws IOException {
+        return new AsyncChannelBlock(AsynchronousFileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+    }
+
+    public AsyncChannelBlock(AsynchronousFileChannel ch) throws IOException {
+        super(0, ch.size());
+        this.ch = ch;
+    }
+
+    /**
+     * 埋まるまで続ける読み書き.
+     */
+    private class Transfer implements CompletionHandler<Integer, Void> {
+
+        private final ByteBuffer bb;
+        private final boolean write;
+        private long index;
+        private int total;
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        Transfer(ByteBuffer bb, long index, boolean write) {
+            this.bb = bb;
+            this.index = index;
+            this.write = write;
+        }
+
+        void start() {
+            if (!bb.hasRemaining()) {
+                future.complete(total);
+            } else if (write) {
+                ch.write(bb, index, null, this);
+            } else {
+                ch.read(bb, index, null, this);
+            }
+        }
+
+        @Override
+        public void completed(Integer n, Void a) {
+            if (n < 0) {
+                future.complete(total);
+                return;
+            }
+            index += n;
+            total += n;
+            start();
+        }
+
+        @Override
+        public void failed(Throwable ex, Void a) {
+            future.completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * 位置を指定して読む.
+     * 終端で止まる.
+     *
+     * @param index 位置
+     * @param bb 読み先 remaining 分読む
+     * @return 読んだ長さ
+     */
+    public CompletableFuture<Integer> readAsync(long index, ByteBuffer bb) {
+        Transfer t = new Transfer(bb, index, false);
+        t.start();
+        return t.future;
+    }
+
+    /**
+     * 位置を指定して dst の残りに読む.
+     * 読めた分 dst が進む.
+     * 配列か ByteBuffer を持つ dst へは直接読む.
+     *
+     * @param index 位置
+     * @param dst 読み先
+     * @return 読んだ長さ
+     */
+    public CompletableFuture<Integer> readAsync(long index, OverBlock dst) {
+        int len = (int) Math.min(dst.length(), Integer.MAX_VALUE);
+        ByteBuffer bb = BlockChannel.view(dst, len);
+        if (bb != null) {
+            return readAsync(index, bb).thenApply(n -> {
+                dst.skip(n);
+                return n;
+            });
+        }
+        ByteBuffer tmp = ByteBuffer.allocate(len);
+        return readAsync(index, tmp).thenApply(n -> {
+            dst.write(tmp.array(), 0, n);
+            return n;
+        });
+    }
+
+    /**
+     * 位置を指定して書く.
+     *
+     * @param index 位置
+     * @param bb データ remaining 分書く
+     * @return 書いた長さ
+     */
+    public CompletableFuture<Integer> writeAsync(long index, ByteBuffer bb) {
+        Transfer t = new Transfer(bb, index, true);
+        t.start();
+        return t.future;
+    }
+
+    /**
+     * 位置を指定して src の残りを書く.
+     * 書いた分 src が進む.
+     *
+     * @param index 位置
+     * @param src データ
+     * @return 書いた長さ
+     */
+    public CompletableFuture<Integer> writeAsync(long index, ReadableBlock src) {
+        int len = (int) Math.min(src.length(), Integer.MAX_VALUE);
+        ByteBuffer bb = BlockChannel.view(src, len);
+        if (bb == null) {
+            byte[] d = new byte[len];
+            src.get(src.backLength(), d, 0, len);
+            bb = ByteBuffer.wrap(d);
+        }
+        return writeAsync(index, bb).thenApply(n -> {
+            src.skip(n);
+            return n;
+        });
+    }
+
+    /**
+     * 複数の範囲を読む.
+     * 同時に depth 個まで投げて、終わったものから次を投げる.
+     * 途中で投げられなかったときも例外で終わる.
+     *
+     * @param index 位置
+     * @param dst 読み先 index と同じ数
+     * @param depth 同時に投げる数
+     * @return それぞれの読んだ長さ
+     */
+    public CompletableFuture<int[]> readAsync(long[] index, OverBlock[] dst, int depth) {
+        if (index.length != dst.length || depth < 1) {
+            throw new IllegalArgumentException();
+        }
+        int[] lens = new int[index.length];
+        CompletableFuture<int[]> all = new CompletableFuture<>();
+        if (index.length == 0) {
+            all.complete(lens);
+            return all;
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        Runnable[] issue = new Runnable[1];
+        issue[0] = () -> {
+            int i = next.getAndIncrement();
+            if (i >= index.length || all.isDone()) {
+                return;
+            }
+            CompletableFuture<Integer> f;
+            try {
+                f = readAsync(index[i], dst[i]);
+            } catch (RuntimeException ex) { // whenComplete の中で投げると消えるので
+                all.completeExceptionally(ex);
+                return;
+            }
+            f.whenComplete((n, ex) -> {
+                if (ex != null) {
+                    all.completeExceptionally(ex);
+                    return;
+                }
+                lens[i] = n;
+                if (done.incrementAndGet() == index.length) {
+                    all.complete(lens);
+                } else {
+                    issue[0].run();
+                }
+            });
+        };
+        for (int i = 0; i < Math.min(depth, index.length); i++) {
+            issue[0].run();
+        }
+        return all;
+    }
+
+    private static int join(CompletableFuture<Integer> f) {
+        try {
+            return f.join();
+        } catch (CompletionException ex) {
+            throw new java.nio.BufferOverflowException();
+        }
+    }
+
+    @Override
+    public AsyncChannelBlock get(long index, byte[] b, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, b.length) || !Matics.sorted(0, index, index + length, max)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        if (join(readAsync(index, ByteBuffer.wrap(b, offset, length))) < length) {
+            throw new java.nio.BufferOverflowException();
+        }
+        return this;
+    }
+
+    @Override
+    public void put(long index, byte[] d, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, d.length) || !Matics.sorted(0, index, index + length, max)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        join(writeAsync(index, ByteBuffer.wrap(d, offset, length)));
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) {
+        length = (int) Math.min(length, length());
+        get(pos, b, offset, length);
+        pos += length;
+        return length;
+    }
+
+    @Override
+    public int backRead(byte[] b, int offset, int length) {
+        int n = (int) Math.min(length, backLength());
+        get(pos - n, b, offset + length - n, n);
+        pos -= n;
+        return n;
+    }
+
+    @Override
+    public void write(byte[] d, int offset, int length) {
+        if (!Matics.sorted(0, length, length())) {
+            throw new java.nio.BufferOverflowException();
+        }
+        put(pos, d, offset, length);
+        pos += length;
+    }
+
+    @Override
+    public void backWrite(byte[] d, int offset, int length) {
+        if (!Matics.sorted(0, length, backLength())) {
+            throw new java.nio.BufferOverflowException();
+        }
+        put(pos - length, d, offset, length);
+        pos -= length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        ch.close();
+    }
+}
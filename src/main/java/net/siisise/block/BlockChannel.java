@@ -17,8 +17,12 @@ package net.siisise.block;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Channelに擬態するBlock.
@@ -92,6 +96,132 @@ public class BlockChannel implements SeekableByteChannel {
         return this;
     }
 
+    /**
+     * 今の位置から target に送る.
+     * ChannelBlock なら FileChannel.transferTo に任せる.
+     * 配列を持つBlock、direct を含む ByteBufferBlock は中身をそのまま渡す.
+     *
+     * @param target 送り先
+     * @param length 最大長
+     * @return 送った長さ
+     * @throws IOException
+     */
+    public long transferTo(WritableByteChannel target, long length) throws IOException {
+        if (block instanceof ChannelBlock) {
+            return ((ChannelBlock) block).transferTo(target, length);
+        }
+        length = Math.min(length, block.length());
+        ByteBuffer bb = view(block, length);
+        if (bb != null) {
+            long n = 0;
+            while (bb.hasRemaining()) {
+                int l = target.write(bb);
+                if (l <= 0) {
+                    break;
+                }
+                n += l;
+            }
+            block.skip(n);
+            return n;
+        }
+        return copy(this, target, length);
+    }
+
+    /**
+     * src から今の位置に書く.
+     *
+     * @param src 読み元
+     * @param length 最大長
+     * @return 書いた長さ
+     * @throws IOException
+     */
+    public long transferFrom(ReadableByteChannel src, long length) throws IOException {
+        if (block instanceof ChannelBlock) {
+            return ((ChannelBlock) block).transferFrom(src, length);
+        }
+        length = Math.min(length, block.length());
+        ByteBuffer bb = view(block, length);
+        if (bb != null) {
+            long n = 0;
+            while (bb.hasRemaining()) {
+                int l = src.read(bb);
+                if (l <= 0) {
+                    break;
+                }
+                n += l;
+            }
+            block.skip(n);
+            return n;
+        }
+        return copy(src, this, length);
+    }
+
+    /**
+     * 今の位置からの範囲を共有する ByteBuffer.
+     *
+     * @param block 元
+     * @param length 長さ
+     * @return 配列かByteBufferを持たないときは null
+     */
+    static ByteBuffer view(ReadableBlock block, long length) {
+        int len = (int) Math.min(length, Integer.MAX_VALUE);
+        if (block.hasArray()) {
+            return ByteBuffer.wrap(block.array(), block.arrayOffset() + block.backSize(), len);
+        } else if (block instanceof ByteBufferBlock) {
+            return ((ByteBufferBlock) block).buffer(block.backLength(), len);
+        }
+        return null;
+    }
+
+    /**
+     * バッファ1つで中継する.
+     * target が書けなくなったとき、src が SeekableByteChannel なら書けなかった分だけ
+     * src の位置を戻して終わる. そうでなければ読んだ分を捨てられないので、
+     * 書けるまで間隔を延ばしながら待つ. その場合 target はいずれ書けるもの(blocking など)にすること.
+     *
+     * @param src 読み元
+     * @param target 送り先
+     * @param length 最大長
+     * @return 送った長さ
+     * @throws IOException
+     * @throws InterruptedIOException 待っている間に割り込まれたとき. 割り込み状態は残す
+     */
+    static long copy(ReadableByteChannel src, WritableByteChannel target, long length) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate((int) Math.min(length, 0x10000));
+        long n = 0;
+        int wait = 0;
+        while (n < length) {
+            bb.clear();
+            bb.limit((int) Math.min(bb.capacity(), length - n));
+            int l = src.read(bb);
+            if (l <= 0) {
+                break;
+            }
+            bb.flip();
+            while (bb.hasRemaining()) {
+                if (target.write(bb) > 0) {
+                    wait = 0;
+                } else if (src instanceof SeekableByteChannel) { // 読まなかったことにする
+                    SeekableByteChannel s = (SeekableByteChannel) src;
+                    s.position(s.position() - bb.remaining());
+                    return n + bb.position();
+                } else {
+                    if (Thread.currentThread().isInterrupted()) {
+                        InterruptedIOException ex = new InterruptedIOException();
+                        ex.bytesTransferred = (int) Math.min(n + bb.position(), Integer.MAX_VALUE);
+                        throw ex;
+                    }
+                    LockSupport.parkNanos(1000L << wait); // 1μs から 1ms くらいまで
+                    if (wait < 10) {
+                        wait++;
+                    }
+                }
+            }
+            n += l;
+        }
+        return n;
+    }
+
     /**
      * このチャンネルがOpenされているかどうか.
      * @return openならtrue
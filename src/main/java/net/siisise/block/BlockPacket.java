@@ -16,6 +16,7 @@
 package net.siisise.block;
 
 import net.siisise.io.BasePacket;
+import net.siisise.io.ChunkPool;
 
 /**
  * ByteBlock の集合.
@@ -29,6 +30,15 @@ public class BlockPacket extends BasePacket {
         private BlockIn next = this;
         // data, offset, length の代わり
         private OverBlock block;
+        /**
+         * pool から借りた配列. 借りていないときは null
+         */
+        private byte[] pooled;
+        /**
+         * pooled に書いた範囲.
+         */
+        private int start;
+        private int end;
 
         private BlockIn() {
         }
@@ -41,6 +51,56 @@ public class BlockPacket extends BasePacket {
             excPrev(new BlockIn(b));
         }
 
+        void addPrev(byte[] d, int start, int length) {
+            BlockIn n = new BlockIn(OverBlock.wrap(d, start, length));
+            n.pooled = d;
+            n.start = start;
+            n.end = start + length;
+            excPrev(n);
+        }
+
+        /**
+         * 借りた配列の後ろの空きに足す.
+         * block が書いた範囲全体を指しているときだけ.
+         *
+         * @return 足せた長さ
+         */
+        int append(byte[] src, int offset, int length) {
+            if (pooled == null || block.backLength() + block.length() != end - start) {
+                return 0;
+            }
+            int s = Math.min(length, pooled.length - end);
+            if (s <= 0) {
+                return 0;
+            }
+            System.arraycopy(src, offset, pooled, end, s);
+            long p = block.backLength();
+            end += s;
+            block = OverBlock.wrap(pooled, start, end - start);
+            block.seek(p);
+            return s;
+        }
+
+        /**
+         * 借りた配列の前の空きに足す.
+         * まだ読んでいないときだけ.
+         *
+         * @return 足せた長さ
+         */
+        int prepend(byte[] src, int offset, int length) {
+            if (pooled == null || block.backLength() != 0 || block.length() != end - start) {
+                return 0;
+            }
+            int s = Math.min(length, start);
+            if (s <= 0) {
+                return 0;
+            }
+            start -= s;
+            System.arraycopy(src, offset + length - s, pooled, start, s);
+            block = OverBlock.wrap(pooled, start, end - start);
+            return s;
+        }
+
         /**
          * PacketA PacketIn と同じ原理
          *
@@ -63,6 +123,36 @@ public class BlockPacket extends BasePacket {
 
     private BlockIn nullBlock = new BlockIn();
 
+    /**
+     * 配列の再利用先. null のときは使わない.
+     */
+    private final ChunkPool pool;
+
+    public BlockPacket() {
+        pool = null;
+    }
+
+    /**
+     * write で複製する配列を pool から借りて、読み終わったら返す.
+     * add などで外から渡された配列は返さない.
+     * @param pool 再利用先 null のときは使わない
+     */
+    public BlockPacket(ChunkPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * 外して pool に返す.
+     * @param n 読み終わったもの
+     */
+    private void delete(BlockIn n) {
+        n.delete();
+        if (n.pooled != null) {
+            pool.release(n.pooled);
+            n.pooled = null;
+        }
+    }
+
     /**
      * ないときは サイズ0
      *
@@ -80,7 +170,7 @@ public class BlockPacket extends BasePacket {
             offset += s;
             length -= s;
             if (n.block.length() == 0) {
-                n.delete();
+                delete(n);
             }
         }
         return b - length;
@@ -123,7 +213,7 @@ public class BlockPacket extends BasePacket {
             n.block.backRead(buf, offset + x - min, min);
             x -= min;
             if (n.block.length() == 0) {
-                n.delete();
+                delete(n);
             }
         }
         return length - x;
@@ -131,16 +221,36 @@ public class BlockPacket extends BasePacket {
 
     @Override
     public void backWrite(byte[] src, int offset, int length) {
-        byte[] cp = new byte[length];
-        System.arraycopy(src, offset, cp, 0, length);
-        nullBlock.next.addPrev(OverBlock.wrap(cp));
+        if (pool == null) {
+            byte[] cp = new byte[length];
+            System.arraycopy(src, offset, cp, 0, length);
+            nullBlock.next.addPrev(OverBlock.wrap(cp));
+        } else {
+            length -= nullBlock.next.prepend(src, offset, length);
+            if (length > 0) { // 前に足せるよう後ろに置く
+                byte[] cp = pool.alloc(length);
+                System.arraycopy(src, offset, cp, cp.length - length, length);
+                nullBlock.next.addPrev(cp, cp.length - length, length);
+            }
+        }
     }
 
     @Override
     public void write(byte[] src, int offset, int length) {
-        byte[] cp = new byte[length];
-        System.arraycopy(src, offset, cp, 0, length);
-        nullBlock.addPrev(OverBlock.wrap(cp));
+        if (pool == null) {
+            byte[] cp = new byte[length];
+            System.arraycopy(src, offset, cp, 0, length);
+            nullBlock.addPrev(OverBlock.wrap(cp));
+        } else { // 小さい書き込みは末尾の配列の空きに詰める
+            int s = nullBlock.prev.append(src, offset, length);
+            offset += s;
+            length -= s;
+            if (length > 0) {
+                byte[] cp = pool.alloc(length);
+                System.arraycopy(src, offset, cp, 0, length);
+                nullBlock.addPrev(cp, 0, length);
+            }
+        }
     }
 
     @Override
@@ -163,7 +273,7 @@ public class BlockPacket extends BasePacket {
             offset += s;
             length -= s;
             if (n.block.length() == 0) {
-                n.delete();
+                delete(n);
             }
             n = n.next;
         }
@@ -223,8 +333,8 @@ public class BlockPacket extends BasePacket {
             n.addPrev(OverBlock.wrap(nb)); // 部分的には残せないので分ける
         }
         while (n != nullBlock && n.block.length() <= size) { // ざっくり消す
-            n.delete();
             size -= n.block.length();
+            delete(n);
             n = n.next;
         }
         if (n != nullBlock && size > 0) {
@@ -17,12 +17,41 @@ package net.siisise.block;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
 
 /**
- * Stream っぽいものをまとめ Arraysっぽいもの
+ * Stream っぽいものをまとめ Arraysっぽいもの.
+ * forEach, reduce は sub で切った範囲を ForkJoinPool で並列に処理する.
+ * 元のBlockは get / put で読み書きされるので、ByteBlock, MappedBlock, FileChannel の ChannelBlock など
+ * 位置を指定して読み書きできるものが向いている.
  */
 public class Blocks {
-    
+
+    /**
+     * 1タスクの最小サイズ.
+     */
+    static final long MIN_CHUNK = 0x10000;
+
+    /**
+     * 位置付きで処理する.
+     */
+    @FunctionalInterface
+    public interface Kernel {
+
+        /**
+         * 範囲を処理する.
+         * @param offset 処理全体の先頭からの位置 CTRのカウンタなどに
+         * @param in 入力範囲
+         * @param out 出力範囲 in と同じ長さ
+         */
+        void apply(long offset, ReadableBlock in, OverBlock out);
+    }
+
     /**
      * ReadableBlock, OverBlock をStream用に分割する風味.
      * 暗号用などにコピーを防ぎながらどうにかする
@@ -34,7 +63,7 @@ public class Blocks {
     public static <B extends ReadableBlock> List<B> subBlocks(B src, int blockSize) {
         List<B> blocks = new ArrayList<>();
         long count = src.length() / blockSize;
-        for ( int i = 0; i < count; i++ ) {
+        for ( long i = 0; i < count; i++ ) {
             blocks.add((B)src.sub(i * blockSize, blockSize));
         }
         return blocks;
@@ -44,4 +73,171 @@ public class Blocks {
         return subBlocks(OverBlock.wrap(src), blockSize);
     }
 
+    /**
+     * 分割サイズの目安.
+     * スレッド数の4倍程度に分けて align の倍数にする.
+     *
+     * @param pool 実行するプール
+     * @param length 全体の長さ
+     * @param align 境界
+     * @return 1タスクの長さ
+     */
+    static long chunk(ForkJoinPool pool, long length, int align) {
+        long c = Math.max(length / (pool.getParallelism() * 4L), MIN_CHUNK);
+        return Math.max(c / align * align, align);
+    }
+
+    /**
+     * src の残りを並列に処理して dst に書く.
+     * 分割位置は align の倍数で、端数は最後の範囲に付く.
+     * 終わったら src, dst とも処理した分進む.
+     *
+     * @param src 入力
+     * @param dst 出力 src 以上の長さ
+     * @param align 分割境界 暗号のブロック長など
+     * @param kernel 処理
+     */
+    public static void forEach(ReadableBlock src, OverBlock dst, int align, BiConsumer<ReadableBlock, OverBlock> kernel) {
+        forEach(ForkJoinPool.commonPool(), src, dst, align, 0, (o, in, out) -> kernel.accept(in, out));
+    }
+
+    /**
+     * src の残りを並列に処理して dst に書く.
+     *
+     * @param pool 実行するプール
+     * @param src 入力
+     * @param dst 出力 src 以上の長さ
+     * @param align 分割境界
+     * @param chunk 1タスクの長さの目安 0 のとき自動
+     * @param kernel 処理
+     */
+    public static void forEach(ForkJoinPool pool, ReadableBlock src, OverBlock dst, int align, long chunk, Kernel kernel) {
+        long length = src.length();
+        if (dst.length() < length) {
+            throw new java.nio.BufferOverflowException();
+        }
+        if (chunk <= 0) {
+            chunk = chunk(pool, length, align);
+        }
+        pool.invoke(new Each(src.sub(src.backLength(), length), dst.sub(dst.backLength(), length), 0, length, align, chunk, kernel));
+        src.skip(length);
+        dst.skip(length);
+    }
+
+    /**
+     * src の残りを並列に集計する.
+     * 範囲ごとに map して、前後の順を保って op でまとめる.
+     * src の位置は動かさない.
+     *
+     * @param <R> 結果型
+     * @param src 入力
+     * @param align 分割境界
+     * @param map 範囲ごとの処理
+     * @param op まとめ 結合則を満たすこと
+     * @return 結果
+     */
+    public static <R> R reduce(ReadableBlock src, int align, Function<ReadableBlock, R> map, BinaryOperator<R> op) {
+        return reduce(ForkJoinPool.commonPool(), src, align, 0, map, op);
+    }
+
+    /**
+     * src の残りを並列に集計する.
+     *
+     * @param <R> 結果型
+     * @param pool 実行するプール
+     * @param src 入力
+     * @param align 分割境界
+     * @param chunk 1タスクの長さの目安 0 のとき自動
+     * @param map 範囲ごとの処理
+     * @param op まとめ
+     * @return 結果
+     */
+    public static <R> R reduce(ForkJoinPool pool, ReadableBlock src, int align, long chunk, Function<ReadableBlock, R> map, BinaryOperator<R> op) {
+        long length = src.length();
+        if (chunk <= 0) {
+            chunk = chunk(pool, length, align);
+        }
+        return pool.invoke(new Reduce<>(src.sub(src.backLength(), length), length, align, chunk, map, op));
+    }
+
+    /**
+     * 分割位置.
+     * 半分あたりの align 境界.
+     */
+    private static long half(long length, int align) {
+        return length / align / 2 * align;
+    }
+
+    /**
+     * 範囲は分ける前に sub で切り出しておく.
+     * 同じ Block の sub を複数のスレッドから呼ばないように.
+     */
+    private static class Each extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ReadableBlock src;
+        private final OverBlock dst;
+        private final long offset;
+        private final long length;
+        private final int align;
+        private final long chunk;
+        private final Kernel kernel;
+
+        Each(ReadableBlock src, OverBlock dst, long offset, long length, int align, long chunk, Kernel kernel) {
+            this.src = src;
+            this.dst = dst;
+            this.offset = offset;
+            this.length = length;
+            this.align = align;
+            this.chunk = chunk;
+            this.kernel = kernel;
+        }
+
+        @Override
+        protected void compute() {
+            long h = half(length, align);
+            if (length <= chunk || h == 0) {
+                kernel.apply(offset, src, dst);
+                return;
+            }
+            Each l = new Each(src.sub(0, h), dst.sub(0, h), offset, h, align, chunk, kernel);
+            Each r = new Each(src.sub(h, length - h), dst.sub(h, length - h), offset + h, length - h, align, chunk, kernel);
+            invokeAll(l, r);
+        }
+    }
+
+    private static class Reduce<R> extends RecursiveTask<R> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ReadableBlock src;
+        private final long length;
+        private final int align;
+        private final long chunk;
+        private final Function<ReadableBlock, R> map;
+        private final BinaryOperator<R> op;
+
+        Reduce(ReadableBlock src, long length, int align, long chunk, Function<ReadableBlock, R> map, BinaryOperator<R> op) {
+            this.src = src;
+            this.length = length;
+            this.align = align;
+            this.chunk = chunk;
+            this.map = map;
+            this.op = op;
+        }
+
+        @Override
+        protected R compute() {
+            long h = half(length, align);
+            if (length <= chunk || h == 0) {
+                return map.apply(src);
+            }
+            Reduce<R> right = new Reduce<>(src.sub(h, length - h), length - h, align, chunk, map, op);
+            Reduce<R> left = new Reduce<>(src.sub(0, h), h, align, chunk, map, op);
+            right.fork();
+            R l = left.compute();
+            return op.apply(l, right.join());
+        }
+    }
 }
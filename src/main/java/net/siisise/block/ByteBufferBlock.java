@@ -15,7 +15,10 @@
  */
 package net.siisise.block;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import net.siisise.math.Matics;
 
 /**
@@ -68,6 +71,45 @@ public class ByteBufferBlock extends OverBlock.AbstractSubOverBlock {
         return buff.arrayOffset();
     }
 
+    /**
+     * Channel から今の位置に直接読む.
+     * 読んだ分進む.
+     *
+     * @param ch 読み元
+     * @return 読んだ長さ または -1
+     * @throws IOException
+     */
+    public int transferFrom(ReadableByteChannel ch) throws IOException {
+        return ch.read(buff);
+    }
+
+    /**
+     * 今の位置から Channel に直接書く.
+     * 書いた分進む.
+     *
+     * @param ch 書き先
+     * @return 書いた長さ
+     * @throws IOException
+     */
+    public int transferTo(WritableByteChannel ch) throws IOException {
+        return ch.write(buff);
+    }
+
+    /**
+     * 範囲を共有する ByteBuffer.
+     * 位置は動かさない.
+     *
+     * @param index 位置
+     * @param length 長さ
+     * @return 範囲のBuffer
+     */
+    ByteBuffer buffer(long index, int length) {
+        ByteBuffer bb = buff.duplicate();
+        bb.limit((int) (min + index + length));
+        bb.position((int) (min + index));
+        return bb;
+    }
+
     /**
      * 読む
      *
@@ -93,12 +135,7 @@ public class ByteBufferBlock extends OverBlock.AbstractSubOverBlock {
         if (buff.hasArray()) {
             return new ByteBlock(buff.array(), buff.arrayOffset() + min + index, length);
         }
-        int p = buff.position();
-        buff.position((int) index);
-        ByteBuffer bb = buff.slice();
-        bb.limit((int) length);
-        buff.position(p);
-        return new ByteBufferBlock(bb);
+        return new ByteBufferBlock(buffer(index, (int) length).slice());
     }
 
     /**
@@ -198,10 +235,7 @@ public class ByteBufferBlock extends OverBlock.AbstractSubOverBlock {
 
     @Override
     public OverBlock get(long index, byte[] b, int offset, int length) {
-        int p = buff.position();
-        buff.position((int) index);
-        buff.get(b, offset, length);
-        buff.position(p);
+        buffer(index, length).get(b, offset, length);
         return this;
     }
 
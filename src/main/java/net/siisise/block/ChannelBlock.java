@@ -22,12 +22,17 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import net.siisise.math.Matics;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 
 /**
  * ランダム読み書きができる SeekableByteBlock に対応しておく.
+ * position を動かす操作はこれで同期する.
+ * FileChannel の get/put は position を使わないので同期しない.
  */
 public class ChannelBlock extends OverBlock.AbstractOverBlock implements Closeable {
 
@@ -90,7 +95,7 @@ public class ChannelBlock extends OverBlock.AbstractOverBlock implements Closeab
      * @return サイズ/位置
      */
     @Override
-    public long backLength() {
+    public synchronized long backLength() {
         try {
             return ch.position();
         } catch (IOException ex) {
@@ -104,7 +109,7 @@ public class ChannelBlock extends OverBlock.AbstractOverBlock implements Closeab
      * @return 長さ
      */
     @Override
-    public long length() {
+    public synchronized long length() {
         try {
             return ch.size() - ch.position();
         } catch (IOException ex) {
@@ -119,7 +124,7 @@ public class ChannelBlock extends OverBlock.AbstractOverBlock implements Closeab
      * @return 移動した位置
      */
     @Override
-    public long seek(long offset) {
+    public synchronized long seek(long offset) {
         try {
             ch.position(offset);
             return ch.position();
@@ -129,7 +134,7 @@ public class ChannelBlock extends OverBlock.AbstractOverBlock implements Closeab
     }
 
     @Override
-    public int read(byte[] d, int offset, int length) {
+    public synchronized int read(byte[] d, int offset, int length) {
         try {
             return ch.read(ByteBuffer.wrap(d, offset, length));
         } catch (IOException ex) {
@@ -137,22 +142,67 @@ public class ChannelBlock extends OverBlock.AbstractOverBlock implements Closeab
         }
     }
 
+    /**
+     * 位置指定で読む.
+     * FileChannel のときは position を動かさずに読むので複数スレッドから同時に呼べる.
+     *
+     * @param index 位置
+     * @param b 読み先
+     * @param offset 読み先位置
+     * @param length 長さ
+     * @return これ
+     */
     @Override
     public ChannelBlock get(long index, byte[] b, int offset, int length) {
         try {
-            if (ch.size() - index < length) {
-                throw new java.nio.BufferOverflowException();
+            if (ch instanceof FileChannel) {
+                pread((FileChannel) ch, index, ByteBuffer.wrap(b, offset, length));
+                return this;
+            }
+            synchronized (this) {
+                if (ch.size() - index < length) {
+                    throw new java.nio.BufferOverflowException();
+                }
+                long p = ch.position();
+                try {
+                    ch.position(index);
+                    ByteBuffer bb = ByteBuffer.wrap(b, offset, length);
+                    while (bb.hasRemaining()) {
+                        if (ch.read(bb) < 0) {
+                            throw new java.nio.BufferOverflowException();
+                        }
+                    }
+                } finally {
+                    ch.position(p);
+                }
             }
-            long p = ch.position();
-            ch.position(index);
-            read(b, offset, length);
-            ch.position(p);
             return this;
         } catch (IOException ex) {
             throw new java.nio.BufferOverflowException();
         }
     }
 
+    /**
+     * position を使わずに全部読む.
+     *
+     * @param fc ファイル
+     * @param index 位置
+     * @param bb 読み先 残り全部読む
+     * @throws IOException
+     */
+    private static void pread(FileChannel fc, long index, ByteBuffer bb) throws IOException {
+        if (index < 0) {
+            throw new java.nio.BufferOverflowException();
+        }
+        while (bb.hasRemaining()) {
+            int l = fc.read(bb, index);
+            if (l < 0) {
+                throw new java.nio.BufferOverflowException();
+            }
+            index += l;
+        }
+    }
+
     /**
      * 逆から読む.
      * ToDo: 後ろから読むよう要修正?
@@ -163,25 +213,29 @@ public class ChannelBlock extends OverBlock.AbstractOverBlock implements Closeab
      * @return
      */
     @Override
-    public int backRead(byte[] buf, int offset, int length) {
+    public synchronized int backRead(byte[] buf, int offset, int length) {
         try {
             long p = backLength();
             int nlength = (int) Math.min(p, length);
             int noff = offset + length - nlength;
 
-            seek(p - nlength);
             ByteBuffer bb = ByteBuffer.wrap(buf, noff, nlength);
-            int l = ch.read(bb);
-            assert l == nlength;
+            if (ch instanceof FileChannel) {
+                pread((FileChannel) ch, p - nlength, bb);
+            } else {
+                seek(p - nlength);
+                while (bb.hasRemaining() && ch.read(bb) >= 0) {
+                }
+            }
             seek(p - nlength);
-            return l;
+            return nlength;
         } catch (IOException ex) {
             throw new java.nio.BufferUnderflowException();
         }
     }
 
     @Override
-    public void write(byte[] data, int offset, int length) {
+    public synchronized void write(byte[] data, int offset, int length) {
         try {
             ch.write(ByteBuffer.wrap(data, offset, length));
         } catch (IOException ex) {
@@ -189,6 +243,107 @@ public class ChannelBlock extends OverBlock.AbstractOverBlock implements Closeab
         }
     }
 
+    /**
+     * 位置を指定して書く.
+     * FileChannel のときは position を使わないので複数スレッドから書ける.
+     * 長さは伸ばさない.
+     *
+     * @param index 位置
+     * @param d データ
+     * @param offset データ位置
+     * @param length データ長
+     */
+    @Override
+    public void put(long index, byte[] d, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, d.length)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        try {
+            if (!Matics.sorted(0, index, index + length, ch.size())) {
+                throw new java.nio.BufferOverflowException();
+            }
+            ByteBuffer bb = ByteBuffer.wrap(d, offset, length);
+            if (ch instanceof FileChannel) {
+                FileChannel fc = (FileChannel) ch;
+                while (bb.hasRemaining()) {
+                    index += fc.write(bb, index);
+                }
+                return;
+            }
+            synchronized (this) {
+                long p = ch.position();
+                try {
+                    ch.position(index);
+                    while (bb.hasRemaining()) {
+                        ch.write(bb);
+                    }
+                } finally {
+                    ch.position(p);
+                }
+            }
+        } catch (IOException ex) {
+            throw new java.nio.BufferOverflowException();
+        }
+    }
+
+    /**
+     * 今の位置から target に送る.
+     * FileChannel のときは FileChannel.transferTo を使うので、相手がソケットなどなら
+     * ユーザ空間で複製しない.
+     * 送った分進む.
+     *
+     * @param target 送り先
+     * @param length 最大長
+     * @return 送った長さ
+     * @throws IOException
+     */
+    public synchronized long transferTo(WritableByteChannel target, long length) throws IOException {
+        if (ch instanceof FileChannel) {
+            FileChannel fc = (FileChannel) ch;
+            long p = fc.position();
+            long len = Math.min(length, fc.size() - p);
+            long n = 0;
+            while (n < len) {
+                long l = fc.transferTo(p + n, len - n, target);
+                if (l <= 0) {
+                    break;
+                }
+                n += l;
+            }
+            fc.position(p + n);
+            return n;
+        }
+        return BlockChannel.copy(ch, target, length);
+    }
+
+    /**
+     * src から今の位置に書く.
+     * FileChannel のときは FileChannel.transferFrom を使う.
+     * 書いた分進む.
+     *
+     * @param src 読み元
+     * @param length 最大長
+     * @return 書いた長さ
+     * @throws IOException
+     */
+    public synchronized long transferFrom(ReadableByteChannel src, long length) throws IOException {
+        if (ch instanceof FileChannel) {
+            FileChannel fc = (FileChannel) ch;
+            long p = fc.position();
+            long n = 0;
+            while (n < length) {
+                long l = fc.transferFrom(src, p + n, length - n);
+                if (l <= 0) {
+                    break;
+                }
+                n += l;
+            }
+            fc.position(p + n);
+            return n;
+        }
+        return BlockChannel.copy(src, ch, length);
+    }
+
     @Override
     public boolean isOpen() {
         return ch != null && ch.isOpen();
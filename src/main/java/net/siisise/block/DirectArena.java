@@ -0,0 +1,268 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import net.siisise.math.Matics;
+
+/**
+ * ヒープ外 (direct) のBlockを配る.
+ * allocateDirect した slab を区分サイズに切って使い回す.
+ * 区分より大きいものは個別に確保し、返しても残さない.
+ * ChannelやSocketに直接読み書きできるのでJDK内の一時バッファへの複製がない.
+ * 中身は初期化されていない.
+ */
+public class DirectArena {
+
+    /**
+     * サイズ区分.
+     */
+    static final int[] SIZES = {0x1000, 0x4000, 0x10000, 0x40000};
+
+    /**
+     * 返却できるBlock.
+     * close() で返す. 返した後は sub の view も含めて読み書きできない.
+     */
+    public static class DirectBlock extends ByteBufferBlock implements AutoCloseable {
+
+        private final DirectArena arena;
+        private final ByteBuffer chunk;
+        private final int sizeClass;
+        /**
+         * sub の view と共有する.
+         */
+        private final AtomicBoolean released;
+
+        DirectBlock(DirectArena arena, ByteBuffer chunk, int sizeClass, int length) {
+            this(arena, chunk, sizeClass, chunk.duplicate().clear().limit(length).slice(), new AtomicBoolean());
+        }
+
+        private DirectBlock(DirectArena arena, ByteBuffer chunk, int sizeClass, ByteBuffer bb, AtomicBoolean released) {
+            super(bb);
+            this.arena = arena;
+            this.chunk = chunk;
+            this.sizeClass = sizeClass;
+            this.released = released;
+        }
+
+        /**
+         * 返した後は別の借り手のものなので使えない.
+         */
+        private void check() {
+            if (released.get()) {
+                throw new IllegalStateException();
+            }
+        }
+
+        @Override
+        public int transferFrom(ReadableByteChannel ch) throws IOException {
+            check();
+            return super.transferFrom(ch);
+        }
+
+        @Override
+        public int transferTo(WritableByteChannel ch) throws IOException {
+            check();
+            return super.transferTo(ch);
+        }
+
+        @Override
+        ByteBuffer buffer(long index, int length) {
+            check();
+            return super.buffer(index, length);
+        }
+
+        @Override
+        public int read(byte[] dst, int offset, int length) {
+            check();
+            return super.read(dst, offset, length);
+        }
+
+        /**
+         * 同じ slab の view.
+         * view の close では返さない.
+         *
+         * @param index 位置
+         * @param length 長さ
+         * @return view
+         */
+        @Override
+        public DirectBlock sub(long index, long length) {
+            if (!Matics.sorted(0, index, index + length, max - min)) {
+                throw new java.nio.BufferOverflowException();
+            }
+            return new DirectBlock(null, chunk, sizeClass, buffer(index, (int) length).slice(), released);
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            check();
+            return super.toByteArray();
+        }
+
+        @Override
+        public int backRead() {
+            check();
+            return super.backRead();
+        }
+
+        @Override
+        public int backRead(byte[] dst, int offset, int length) {
+            check();
+            return super.backRead(dst, offset, length);
+        }
+
+        @Override
+        public void write(byte[] d, int offset, int length) {
+            check();
+            super.write(d, offset, length);
+        }
+
+        /**
+         * Arenaに返す.
+         * 2回目以降と sub の view では何もしない.
+         */
+        @Override
+        public void close() {
+            if (arena != null && released.compareAndSet(false, true)) {
+                arena.release(chunk, sizeClass);
+            }
+        }
+    }
+
+    private final int slabSize;
+    private final List<ConcurrentLinkedQueue<ByteBuffer>> free;
+
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong used = new AtomicLong();
+
+    /**
+     * 1MiB 単位で確保する.
+     */
+    public DirectArena() {
+        this(0x100000);
+    }
+
+    /**
+     * slab のサイズを指定する.
+     * @param slabSize 一度に確保するサイズ 最大区分以上
+     */
+    public DirectArena(int slabSize) {
+        if (slabSize < SIZES[SIZES.length - 1]) {
+            throw new IllegalArgumentException();
+        }
+        this.slabSize = slabSize;
+        free = new ArrayList<>(SIZES.length);
+        for (int i = 0; i < SIZES.length; i++) {
+            free.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    private static int sizeClass(int length) {
+        for (int i = 0; i < SIZES.length; i++) {
+            if (length <= SIZES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Blockを借りる.
+     * 長さは length ちょうど.
+     *
+     * @param length サイズ
+     * @return direct な Block
+     */
+    public DirectBlock alloc(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException();
+        }
+        int c = sizeClass(length);
+        ByteBuffer chunk;
+        if (c < 0) {
+            chunk = ByteBuffer.allocateDirect(length);
+            reserved.addAndGet(length);
+        } else {
+            chunk = free.get(c).poll();
+            if (chunk == null) {
+                chunk = slab(c);
+            }
+        }
+        used.addAndGet(chunk.capacity());
+        return new DirectBlock(this, chunk, c, length);
+    }
+
+    /**
+     * slab を切って区分の置き場に入れ、1つ返す.
+     */
+    private ByteBuffer slab(int c) {
+        int size = SIZES[c];
+        ByteBuffer slab = ByteBuffer.allocateDirect(slabSize / size * size);
+        reserved.addAndGet(slab.capacity());
+        ByteBuffer first = null;
+        for (int p = 0; p < slab.capacity(); p += size) {
+            slab.limit(p + size).position(p);
+            ByteBuffer chunk = slab.slice();
+            if (first == null) {
+                first = chunk;
+            } else {
+                free.get(c).offer(chunk);
+            }
+        }
+        return first;
+    }
+
+    private void release(ByteBuffer chunk, int c) {
+        used.addAndGet(-chunk.capacity());
+        if (c < 0) {
+            reserved.addAndGet(-chunk.capacity());
+        } else {
+            free.get(c).offer(chunk);
+        }
+    }
+
+    /**
+     * 確保したヒープ外のサイズ.
+     * 置き場にあるものも含む.
+     * @return バイト数
+     */
+    public long reservedBytes() {
+        return reserved.get();
+    }
+
+    /**
+     * 貸し出し中のサイズ.
+     * 区分のサイズで数える.
+     * @return バイト数
+     */
+    public long usedBytes() {
+        return used.get();
+    }
+
+    @Override
+    public String toString() {
+        return "DirectArena reserved:" + reservedBytes() + " used:" + usedBytes();
+    }
+}
@@ -63,6 +63,18 @@ public interface EditBlock extends OverBlock, IndexEdit {
         return b;
     }
 
+    /**
+     * piece table で編集する.
+     * 大きいデータの途中を何度も編集するとき向け.
+     * 複製なし.
+     *
+     * @param data 元データ 変更しないこと
+     * @return 編集可能ブロック
+     */
+    public static EditBlock piece(byte[] data) {
+        return new PieceBlock(data);
+    }
+
     public static EditBlock wrap(FrontPacket p) {
         return new PacketBlock(p);
     }
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import net.siisise.math.Matics;
+
+/**
+ * FileChannel.map したBlock.
+ * 2GBを超えるファイルは 1GB 単位の MappedByteBuffer をつないで扱う.
+ * 読み書きでシステムコールは呼ばない.
+ * ひとつの区間に収まる sub は ByteBufferBlock になる.
+ */
+public class MappedBlock extends OverBlock.AbstractSubOverBlock {
+
+    /**
+     * 区間の大きさ 1GB.
+     */
+    static final int SHIFT = 30;
+
+    /**
+     * 共有する map 済みの区間.
+     */
+    private final MappedByteBuffer[] segs;
+    /**
+     * このBlock用の複製. position をほかと共有しない.
+     */
+    private final ByteBuffer[] views;
+    private final int shift;
+    private final long mask;
+
+    MappedBlock(MappedByteBuffer[] segs, int shift, long min, long max) {
+        super(min, max);
+        this.segs = segs;
+        views = new ByteBuffer[segs.length];
+        this.shift = shift;
+        mask = (1l << shift) - 1;
+    }
+
+    /**
+     * ファイル全体を map する.
+     *
+     * @param ch ファイル
+     * @param mode READ_ONLY, READ_WRITE, PRIVATE
+     * @return Block
+     * @throws IOException
+     */
+    public static MappedBlock map(FileChannel ch, FileChannel.MapMode mode) throws IOException {
+        return map(ch, mode, 0, ch.size());
+    }
+
+    /**
+     * ファイルの一部を map する.
+     *
+     * @param ch ファイル
+     * @param mode READ_ONLY, READ_WRITE, PRIVATE
+     * @param position ファイル位置
+     * @param size 長さ
+     * @return Block
+     * @throws IOException
+     */
+    public static MappedBlock map(FileChannel ch, FileChannel.MapMode mode, long position, long size) throws IOException {
+        return map(ch, mode, position, size, SHIFT);
+    }
+
+    static MappedBlock map(FileChannel ch, FileChannel.MapMode mode, long position, long size, int shift) throws IOException {
+        long seg = 1l << shift;
+        MappedByteBuffer[] segs = new MappedByteBuffer[(int) ((size + seg - 1) >>> shift)];
+        for (int i = 0; i < segs.length; i++) {
+            long o = (long) i << shift;
+            segs[i] = ch.map(mode, position + o, Math.min(seg, size - o));
+        }
+        return new MappedBlock(segs, shift, 0, size);
+    }
+
+    /**
+     * 読み専用で map する.
+     * map したあとファイルは閉じる.
+     *
+     * @param file ファイル
+     * @return Block
+     * @throws IOException
+     */
+    public static MappedBlock map(File file) throws IOException {
+        try (RandomAccessFile io = new RandomAccessFile(file, "r")) {
+            return map(io.getChannel(), FileChannel.MapMode.READ_ONLY);
+        }
+    }
+
+    /**
+     * 読み書き用に map する.
+     *
+     * @param file ファイル
+     * @return Block
+     * @throws IOException
+     */
+    public static MappedBlock over(File file) throws IOException {
+        try (RandomAccessFile io = new RandomAccessFile(file, "rw")) {
+            return map(io.getChannel(), FileChannel.MapMode.READ_WRITE);
+        }
+    }
+
+    /**
+     * 区間の複製.
+     *
+     * @param i 区間
+     * @param o 区間内の位置
+     * @return position を o にした複製
+     */
+    private ByteBuffer view(int i, int o) {
+        ByteBuffer v = views[i];
+        if (v == null) {
+            v = views[i] = segs[i].duplicate();
+        }
+        v.position(o);
+        return v;
+    }
+
+    /**
+     * 絶対位置から読む.
+     */
+    private void copy(long p, byte[] dst, int offset, int length) {
+        while (length > 0) {
+            int o = (int) (p & mask);
+            ByteBuffer v = view((int) (p >>> shift), o);
+            int n = Math.min(length, v.limit() - o);
+            v.get(dst, offset, n);
+            p += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * 絶対位置に書く.
+     */
+    private void paste(long p, byte[] src, int offset, int length) {
+        while (length > 0) {
+            int o = (int) (p & mask);
+            ByteBuffer v = view((int) (p >>> shift), o);
+            int n = Math.min(length, v.limit() - o);
+            v.put(src, offset, n);
+            p += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    public int read() {
+        if (pos >= max) {
+            return -1;
+        }
+        int i = (int) (pos >>> shift);
+        int o = (int) (pos & mask);
+        pos++;
+        return segs[i].get(o) & 0xff;
+    }
+
+    @Override
+    public int read(byte[] dst, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, dst.length)) {
+            throw new java.lang.IndexOutOfBoundsException();
+        }
+        long p = pos;
+        int size = (int) skip(length);
+        copy(p, dst, offset, size);
+        return size;
+    }
+
+    @Override
+    public int backRead() {
+        if (pos > min) {
+            pos--;
+            return segs[(int) (pos >>> shift)].get((int) (pos & mask)) & 0xff;
+        }
+        return -1;
+    }
+
+    @Override
+    public int backRead(byte[] dst, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, dst.length)) {
+            throw new java.lang.IndexOutOfBoundsException();
+        }
+        int size = (int) back(length);
+        copy(pos, dst, offset + length - size, size);
+        return size;
+    }
+
+    @Override
+    public MappedBlock get(long index, byte[] b, int offset, int length) {
+        if (!Matics.sorted(0, index, index + length, max - min) || !Matics.sorted(0, offset, offset + length, b.length)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        copy(min + index, b, offset, length);
+        return this;
+    }
+
+    @Override
+    public void put(long index, byte[] d, int offset, int length) {
+        if (!Matics.sorted(0, index, index + length, max - min) || !Matics.sorted(0, offset, offset + length, d.length)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        paste(min + index, d, offset, length);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) {
+        if (length > length()) {
+            throw new java.nio.BufferOverflowException();
+        }
+        paste(pos, data, offset, length);
+        pos += length;
+    }
+
+    /**
+     * 部分集合.
+     * ひとつの区間に収まるときは slice した ByteBufferBlock.
+     * 複製はしない.
+     *
+     * @param index 位置
+     * @param length 長さ
+     * @return 部分集合
+     */
+    @Override
+    public OverBlock sub(long index, long length) {
+        if (!Matics.sorted(0, index, index + length, max - min)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        long s = min + index;
+        long e = s + length;
+        if (length > 0 && (s >>> shift) == ((e - 1) >>> shift)) {
+            ByteBuffer bb = segs[(int) (s >>> shift)].duplicate();
+            int o = (int) (s & mask);
+            bb.position(o);
+            bb.limit(o + (int) length);
+            return new ByteBufferBlock(bb.slice());
+        }
+        return new MappedBlock(segs, shift, s, e);
+    }
+
+    /**
+     * 書いた内容をファイルに反映する.
+     * READ_WRITE のときのみ.
+     */
+    public void force() {
+        for (MappedByteBuffer seg : segs) {
+            seg.force();
+        }
+    }
+
+    /**
+     * ページに読み込んでおく.
+     */
+    public void load() {
+        for (MappedByteBuffer seg : segs) {
+            seg.load();
+        }
+    }
+}
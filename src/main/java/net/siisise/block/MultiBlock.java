@@ -15,21 +15,32 @@
  */
 package net.siisise.block;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 import net.siisise.math.Matics;
 
 /**
  * 複数Blockをまとめて1ブロックっぽくする.
- * 中のblock のseek 位置は初期化されるので利用できない。
+ * 中のblock のseek 位置は使わないので別の用途には使えない。
  * 別々のポインタを扱いたいときはsubBlockにしてから格納する.
+ * 各Blockの開始位置を累積で持ち、位置からBlockを二分探索で引く.
  * EditBlockにするかどうか未定.
  */
 public class MultiBlock extends OverBlock.AbstractSubOverBlock {
 
     List<OverBlock> blocks;
+    /**
+     * 各Blockの開始位置. 最後は全体の長さ.
+     * 追加したときは null にして、次に探すときに作る.
+     */
+    private long[] offsets;
+    /**
+     * 最後に使ったBlock.
+     */
     int number;
-//    long subOffset;
 
     /**
      * 複数ブロックをまとめて1つのBlockにする.
@@ -38,19 +49,46 @@ public class MultiBlock extends OverBlock.AbstractSubOverBlock {
     public MultiBlock(List<OverBlock> blocks) {
         super(blocks);
         this.blocks = new ArrayList<>(blocks);
+        offsets();
         number = 0;
     }
 
+    /**
+     * 累積位置.
+     * 追加の後は作り直す.
+     *
+     * @return 各Blockの開始位置
+     */
+    private long[] offsets() {
+        if (offsets != null) {
+            return offsets;
+        }
+        int size = blocks.size();
+        long[] o = new long[size + 1];
+        long p = 0;
+        for (int i = 0; i < size; i++) {
+            o[i] = p;
+            OverBlock b = blocks.get(i);
+            p += b.backLength() + b.length();
+        }
+        o[size] = p;
+        offsets = o;
+        max = p;
+        return o;
+    }
+
     /**
      * 前にBlockを追加する.
      * 中のBlockの個別利用はできない.
      * @param block 追加するブロック
      */
-    
     public void addDirectPrev(OverBlock block) {
-        block.seek(block.length());
         blocks.add(0, block);
-        number++;
+        long len = block.backLength() + block.length();
+        offsets = null;
+        max += len;
+        pos += len;
+        number = 0;
     } 
     
     /**
@@ -59,8 +97,9 @@ public class MultiBlock extends OverBlock.AbstractSubOverBlock {
      * @param block 追加するブロック
      */
     public void addDirectNext(OverBlock block) {
-        block.seek(-block.backLength());
         blocks.add(block);
+        offsets = null;
+        max += block.backLength() + block.length();
     }
 
     /**
@@ -81,6 +120,75 @@ public class MultiBlock extends OverBlock.AbstractSubOverBlock {
         addDirectNext(new SubOverBlock(block));
     }
 
+    /**
+     * 位置を含むBlockの番号.
+     * offsets[n] &lt;= index &lt; offsets[n + 1] になる最後の n.
+     * 末尾のときは最後のBlock.
+     *
+     * @param index 位置
+     * @return Block番号
+     */
+    int block(long index) {
+        long[] o = offsets();
+        int n = number;
+        if (n + 1 < o.length && o[n] <= index && index < o[n + 1]) {
+            return n;
+        }
+        int lo = 0;
+        int hi = o.length - 2;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (o[mid] <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        number = lo;
+        return lo;
+    }
+
+    @Override
+    public OverBlock get(long index, byte[] buf, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, buf.length) || !Matics.sorted(0, index, index + length, max)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        int n = block(index);
+        long[] o = offsets();
+        while (length > 0) {
+            long st = index - o[n];
+            int s = (int) Math.min(length, o[n + 1] - index);
+            if (s > 0) {
+                blocks.get(n).get(st, buf, offset, s);
+                index += s;
+                offset += s;
+                length -= s;
+            }
+            n++;
+        }
+        return this;
+    }
+
+    @Override
+    public void put(long index, byte[] data, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, data.length) || !Matics.sorted(0, index, index + length, max)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        int n = block(index);
+        long[] o = offsets();
+        while (length > 0) {
+            long st = index - o[n];
+            int s = (int) Math.min(length, o[n + 1] - index);
+            if (s > 0) {
+                blocks.get(n).put(st, data, offset, s);
+                index += s;
+                offset += s;
+                length -= s;
+            }
+            n++;
+        }
+    }
+
     /**
      * 読み.
      *
@@ -91,19 +199,10 @@ public class MultiBlock extends OverBlock.AbstractSubOverBlock {
      */
     @Override
     public int read(byte[] buf, int offset, int length) {
-        int st = offset;
-        int last = offset + length;
-        int size = blocks.size();
-
-        do {
-            OverBlock sub = blocks.get(number);
-//            long p = sub.backLength();
-            int ss = sub.read(buf, offset, last - offset);
-            offset += ss;
-            number++;
-        } while (number < size && offset < last);
-        number--;
-        return offset - st;
+        length = (int) Math.min(length, length());
+        get(pos, buf, offset, length);
+        pos += length;
+        return length;
     }
 
     /**
@@ -116,20 +215,10 @@ public class MultiBlock extends OverBlock.AbstractSubOverBlock {
      */
     @Override
     public int backRead(byte[] buf, int offset, int length) {
-        int st = offset + length;
-        int en = st;
-
-        do {
-            OverBlock sub = blocks.get(number);
-
-            int ss = Math.min(sub.backSize(), length);
-            st -= ss;
-            int s = sub.backRead(buf, st, ss);
-            length -= s;
-            number--;
-        } while (number >= 0 && length > 0);
-        number++;
-        return en - st;
+        length = (int) Math.min(length, backLength());
+        get(pos - length, buf, offset, length);
+        pos -= length;
+        return length;
     }
 
     @Override
@@ -138,19 +227,8 @@ public class MultiBlock extends OverBlock.AbstractSubOverBlock {
             throw new java.nio.BufferOverflowException();
         }
         length = Math.min(length, size());
-
-        int last = offset + length;
-        int size = blocks.size();
-
-        do {
-            OverBlock sub = blocks.get(number);
-//            long p = sub.backLength();
-            int ss = Math.min(last - offset, sub.size());
-            sub.write(data, offset, ss);
-            offset += ss;
-            number++;
-        } while (number < size && offset < last);
-        number--;
+        put(pos, data, offset, length);
+        pos += length;
     }
 
     /**
@@ -164,20 +242,74 @@ public class MultiBlock extends OverBlock.AbstractSubOverBlock {
         if ( !Matics.sorted(0,length, backSize())) {
             throw new java.nio.BufferOverflowException();
         }
-//        put(backSize() - length, data, offset, length);
-//        back(length);
-
-        int st = offset + length;
+        put(pos - length, data, offset, length);
+        pos -= length;
+    }
 
-        do {
-            OverBlock sub = blocks.get(number);
+    /**
+     * 今の位置から各Blockの範囲を ByteBuffer にする.
+     * 配列やByteBufferを持つBlockは共有、それ以外は複製.
+     *
+     * @param length 長さ
+     * @return Blockごとの ByteBuffer
+     */
+    ByteBuffer[] buffers(long length) {
+        length = Math.min(length, length());
+        long index = pos;
+        int n = block(index);
+        long[] o = offsets();
+        List<ByteBuffer> list = new ArrayList<>();
+        while (length > 0) {
+            OverBlock b = blocks.get(n);
+            long st = index - o[n];
+            int s = (int) Math.min(Math.min(length, o[n + 1] - index), Integer.MAX_VALUE);
+            if (s > 0) {
+                ByteBuffer bb;
+                if (b.hasArray()) {
+                    bb = ByteBuffer.wrap(b.array(), (int) (b.arrayOffset() + st), s);
+                } else if (b instanceof ByteBufferBlock) {
+                    bb = ((ByteBufferBlock) b).buffer(st, s);
+                } else {
+                    byte[] d = new byte[s];
+                    b.get(st, d, 0, s);
+                    bb = ByteBuffer.wrap(d);
+                }
+                list.add(bb);
+                index += s;
+                length -= s;
+            }
+            if (index >= o[n + 1]) {
+                n++;
+            }
+        }
+        return list.toArray(new ByteBuffer[list.size()]);
+    }
 
-            int ss = Math.min(sub.backSize(), length);
-            st -= ss;
-            int s = sub.backRead(data, st, ss);
-            length -= s;
-            number--;
-        } while (number >= 0 && length > 0);
-        number++;
+    /**
+     * 残りをまとめて書き出す.
+     * GatheringByteChannel.write(ByteBuffer[]) で Block の数だけ複製せずに渡す.
+     * 書けた分進む.
+     *
+     * @param target 出力先
+     * @param length 最大長
+     * @return 書いた長さ
+     * @throws IOException
+     */
+    public long transferTo(GatheringByteChannel target, long length) throws IOException {
+        ByteBuffer[] bbs = buffers(length);
+        long n = 0;
+        int i = 0;
+        while (i < bbs.length) {
+            long l = target.write(bbs, i, bbs.length - i);
+            if (l <= 0) {
+                break;
+            }
+            n += l;
+            while (i < bbs.length && !bbs[i].hasRemaining()) {
+                i++;
+            }
+        }
+        pos += n;
+        return n;
     }
 }
@@ -85,14 +85,26 @@ public interface OverBlock extends ReadableBlock, FrontPacket, BackPacket, Index
 
     /**
      * FileChannel を OverBlock で操作できるようにする.
+     * 読み書きで map する. 2GB を超えても使える.
      *
      * @param ch
      * @return
      * @throws IOException
      */
     public static OverBlock wrap(FileChannel ch) throws IOException {
-        ByteBuffer bb = ch.map(FileChannel.MapMode.READ_WRITE, 0, ch.size());
-        return wrap(bb);
+        return MappedBlock.map(ch, FileChannel.MapMode.READ_WRITE);
+    }
+
+    /**
+     * FileChannel を map して OverBlock にする.
+     *
+     * @param ch ファイル
+     * @param mode READ_ONLY, READ_WRITE, PRIVATE
+     * @return map したBlock
+     * @throws IOException
+     */
+    public static OverBlock wrap(FileChannel ch, FileChannel.MapMode mode) throws IOException {
+        return MappedBlock.map(ch, mode);
     }
 
     public static SeekableByteChannel channel(OverBlock b) {
@@ -281,7 +293,10 @@ public interface OverBlock extends ReadableBlock, FrontPacket, BackPacket, Index
     public static abstract class AbstractSubOverBlock extends AbstractOverBlock {
 
         final long min;
-        final long max;
+        /**
+         * MultiBlock では追加で伸びる.
+         */
+        long max;
         long pos;
 
         AbstractSubOverBlock(long min, long max) {
@@ -391,16 +406,13 @@ public interface OverBlock extends ReadableBlock, FrontPacket, BackPacket, Index
             if (!Matics.sorted(0, offset, offset + length, buf.length)) {
                 throw new java.nio.BufferOverflowException();
             }
-            long p = block.backLength();
-            block.seek(pos);
 //            if ( !Matics.sorted(0, length, size()) ) {
 //                throw new java.nio.BufferOverflowException();
 //            }
             length = Math.min(length, size());
-            int s = block.read(buf, offset, length);
-            pos += s;
-            block.seek(p);
-            return s;
+            block.get(pos, buf, offset, length); // 元の位置は動かさない
+            pos += length;
+            return length;
         }
 
         @Override
@@ -447,11 +459,8 @@ public interface OverBlock extends ReadableBlock, FrontPacket, BackPacket, Index
                 throw new java.nio.BufferOverflowException();
             }
             length = Math.min(length, size());
-            long p = block.backLength();
-            block.seek(pos);
-            block.write(data, offset, length);
+            block.put(pos, data, offset, length);
             pos += length;
-            block.seek(p);
         }
 
         @Override
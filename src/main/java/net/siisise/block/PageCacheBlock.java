@@ -0,0 +1,367 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import net.siisise.math.Matics;
+
+/**
+ * 固定長のページで Channel を読み書きするBlock.
+ * ページは LRU で保持し、順に読まれているときは先読みする.
+ * 書いたページは追い出すときか flush / close で書き戻す.
+ * 長さは開いたときの Channel のサイズで固定.
+ * 中の Channel の position はこのBlockが使うので他で使わないこと.
+ */
+public class PageCacheBlock extends OverBlock.AbstractSubOverBlock implements Closeable {
+
+    /**
+     * ページ.
+     */
+    private static class Page {
+
+        final byte[] data;
+        boolean dirty;
+
+        Page(int size) {
+            data = new byte[size];
+        }
+    }
+
+    private final SeekableByteChannel ch;
+    private final int shift;
+    private final int pageSize;
+    private final int maxAhead;
+    private final LinkedHashMap<Long, Page> pages;
+    /**
+     * 追い出したページの使い回し.
+     */
+    private Page spare;
+
+    /**
+     * 先読みの次のページ.
+     */
+    private long nextPage = -1;
+    private int ahead;
+
+    private long hits;
+    private long misses;
+    private long readPages;
+    private long writePages;
+
+    /**
+     * 読み専用で開く.
+     * 4KiB 256ページ.
+     *
+     * @param file ファイル
+     * @return 読み close できるBlock
+     * @throws IOException
+     */
+    public static PageCacheBlock wrap(File file) throws IOException {
+        return new PageCacheBlock(new RandomAccessFile(file, "r").getChannel(), 12, 256);
+    }
+
+    /**
+     * 読み書きできる形で開く.
+     * 4KiB 256ページ.
+     *
+     * @param path ファイル
+     * @return 読み書き close できるBlock
+     * @throws IOException
+     */
+    public static PageCacheBlock over(Path path) throws IOException {
+        return new PageCacheBlock(FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE), 12, 256);
+    }
+
+    /**
+     * 
+     * @param ch 元
+     * @param shift ページサイズ 2^shift
+     * @param capacity 保持するページ数
+     * @throws IOException
+     */
+    public PageCacheBlock(SeekableByteChannel ch, int shift, int capacity) throws IOException {
+        super(0, ch.size());
+        if (shift < 6 || shift > 24 || capacity < 2) {
+            throw new IllegalArgumentException();
+        }
+        this.ch = ch;
+        this.shift = shift;
+        pageSize = 1 << shift;
+        maxAhead = Math.min(capacity / 2, Math.max(1, 0x100000 >> shift));
+        pages = new LinkedHashMap<Long, Page>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Page> e) {
+                if (size() > capacity) {
+                    if (e.getValue().dirty) {
+                        writeBack(e.getKey(), e.getValue());
+                    }
+                    spare = e.getValue();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private Page newPage() {
+        Page p = spare;
+        if (p == null) {
+            return new Page(pageSize);
+        }
+        spare = null;
+        return p;
+    }
+
+    /**
+     * ページの長さ.
+     * 最後のページは短い.
+     */
+    private int pageLength(long no) {
+        return (int) Math.min(pageSize, max - (no << shift));
+    }
+
+    /**
+     * ページを引く.
+     * ないときは読む.
+     *
+     * @param no ページ番号
+     * @param load 読み込むかどうか 全部上書きするときは読まない
+     * @return ページ
+     */
+    private Page page(long no, boolean load) {
+        Page p = pages.get(no);
+        if (p != null) {
+            hits++;
+            return p;
+        }
+        misses++;
+        if (!load) {
+            p = newPage();
+            pages.put(no, p);
+            return p;
+        }
+        if (no == nextPage) {
+            ahead = Math.min(Math.max(ahead * 2, 1), maxAhead);
+        } else {
+            ahead = 0;
+        }
+        long last = (max - 1) >> shift;
+        int n = 1;
+        while (n <= ahead && no + n <= last && !pages.containsKey(no + n)) {
+            n++;
+        }
+        Page[] ps = new Page[n];
+        ByteBuffer[] bbs = new ByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+            ps[i] = newPage();
+            bbs[i] = ByteBuffer.wrap(ps[i].data, 0, pageLength(no + i));
+        }
+        read(no << shift, bbs);
+        readPages += n;
+        for (int i = 0; i < n; i++) {
+            pages.put(no + i, ps[i]);
+        }
+        nextPage = no + n;
+        return pages.get(no);
+    }
+
+    /**
+     * まとめて読む.
+     * ScatteringByteChannel なら1回で.
+     */
+    private void read(long index, ByteBuffer[] bbs) {
+        try {
+            ch.position(index);
+            ByteBuffer end = bbs[bbs.length - 1];
+            while (end.hasRemaining()) {
+                long l;
+                if (ch instanceof ScatteringByteChannel) {
+                    l = ((ScatteringByteChannel) ch).read(bbs);
+                } else {
+                    l = 0;
+                    for (ByteBuffer bb : bbs) {
+                        if (bb.hasRemaining()) {
+                            l = ch.read(bb);
+                            break;
+                        }
+                    }
+                }
+                if (l < 0) {
+                    throw new java.nio.BufferOverflowException();
+                }
+            }
+        } catch (IOException ex) {
+            throw new java.nio.BufferOverflowException();
+        }
+    }
+
+    private void writeBack(long no, Page p) {
+        try {
+            ByteBuffer bb = ByteBuffer.wrap(p.data, 0, pageLength(no));
+            ch.position(no << shift);
+            while (bb.hasRemaining()) {
+                ch.write(bb);
+            }
+            p.dirty = false;
+            writePages++;
+        } catch (IOException ex) {
+            throw new java.nio.BufferOverflowException();
+        }
+    }
+
+    @Override
+    public synchronized PageCacheBlock get(long index, byte[] b, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, b.length) || !Matics.sorted(0, index, index + length, max)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        while (length > 0) {
+            int o = (int) (index & (pageSize - 1));
+            int s = Math.min(length, pageSize - o);
+            System.arraycopy(page(index >> shift, true).data, o, b, offset, s);
+            index += s;
+            offset += s;
+            length -= s;
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized void put(long index, byte[] d, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, d.length) || !Matics.sorted(0, index, index + length, max)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        while (length > 0) {
+            long no = index >> shift;
+            int o = (int) (index & (pageSize - 1));
+            int s = Math.min(length, pageSize - o);
+            Page p = page(no, o > 0 || s < pageLength(no));
+            System.arraycopy(d, offset, p.data, o, s);
+            p.dirty = true;
+            index += s;
+            offset += s;
+            length -= s;
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) {
+        length = (int) Math.min(length, length());
+        get(pos, b, offset, length);
+        pos += length;
+        return length;
+    }
+
+    @Override
+    public int backRead(byte[] b, int offset, int length) {
+        int n = (int) Math.min(length, backLength());
+        get(pos - n, b, offset + length - n, n);
+        pos -= n;
+        return n;
+    }
+
+    @Override
+    public void write(byte[] d, int offset, int length) {
+        if (!Matics.sorted(0, length, length())) {
+            throw new java.nio.BufferOverflowException();
+        }
+        put(pos, d, offset, length);
+        pos += length;
+    }
+
+    @Override
+    public void backWrite(byte[] d, int offset, int length) {
+        if (!Matics.sorted(0, length, backLength())) {
+            throw new java.nio.BufferOverflowException();
+        }
+        put(pos - length, d, offset, length);
+        pos -= length;
+    }
+
+    /**
+     * 書いたページを書き戻す.
+     */
+    public synchronized void flush() {
+        Iterator<Map.Entry<Long, Page>> it = pages.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Page> e = it.next();
+            if (e.getValue().dirty) {
+                writeBack(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    /**
+     * 書き戻して閉じる.
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        pages.clear();
+        ch.close();
+    }
+
+    /**
+     * キャッシュにあった回数.
+     * @return ページ単位
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * キャッシュになかった回数.
+     * @return ページ単位
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Channelから読んだページ数.
+     * 先読みの分を含む.
+     * @return ページ数
+     */
+    public synchronized long readPages() {
+        return readPages;
+    }
+
+    /**
+     * Channelに書いたページ数.
+     * @return ページ数
+     */
+    public synchronized long writePages() {
+        return writePages;
+    }
+
+    @Override
+    public String toString() {
+        return "PageCacheBlock hits:" + hits() + " misses:" + misses() + " read:" + readPages() + " write:" + writePages();
+    }
+}
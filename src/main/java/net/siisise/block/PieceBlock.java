@@ -0,0 +1,440 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.util.concurrent.ThreadLocalRandom;
+import net.siisise.io.Edit;
+import net.siisise.math.Matics;
+
+/**
+ * piece table の EditBlock.
+ * 元データは書き換えず、追加したデータは追記専用の領域に置く.
+ * 断片(piece)を長さをキーにした treap で並べるので、どの位置の追加、削除も O(log n) 程度.
+ * 上書きは削除と追加になる.
+ * 編集が終わったら flatten で ByteBlock にする.
+ */
+public class PieceBlock extends Edit implements EditBlock {
+
+    /**
+     * 追記領域の単位.
+     */
+    static final int ADD_CHUNK = 0x10000;
+
+    /**
+     * 断片.
+     * 部分木の長さを持つ.
+     */
+    private static class Node {
+
+        final byte[] data;
+        final int offset;
+        int length;
+        final int prio;
+        long size;
+        Node left;
+        Node right;
+
+        Node(byte[] data, int offset, int length) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+            prio = ThreadLocalRandom.current().nextInt();
+            size = length;
+        }
+
+        void update() {
+            size = size(left) + length + size(right);
+        }
+    }
+
+    private Node root;
+    private long pos;
+
+    /**
+     * 追記領域.
+     */
+    private byte[] addBuf = new byte[0];
+    private int addPos;
+
+    /**
+     * 空から.
+     */
+    public PieceBlock() {
+    }
+
+    /**
+     * data を元データにする.
+     * 複製しないので data は変更しないこと.
+     *
+     * @param data 元データ
+     */
+    public PieceBlock(byte[] data) {
+        if (data.length > 0) {
+            root = new Node(data, 0, data.length);
+        }
+    }
+
+    private static long size(Node t) {
+        return t == null ? 0 : t.size;
+    }
+
+    private static Node merge(Node l, Node r) {
+        if (l == null) {
+            return r;
+        } else if (r == null) {
+            return l;
+        }
+        if (l.prio > r.prio) {
+            l.right = merge(l.right, r);
+            l.update();
+            return l;
+        }
+        r.left = merge(l, r.left);
+        r.update();
+        return r;
+    }
+
+    /**
+     * index の前後で分ける.
+     * 断片の途中なら断片を2つにする.
+     *
+     * @param t 木
+     * @param index 位置
+     * @return 前, 後
+     */
+    private static Node[] split(Node t, long index) {
+        if (t == null) {
+            return new Node[2];
+        }
+        long ls = size(t.left);
+        if (index <= ls) {
+            Node[] s = split(t.left, index);
+            t.left = s[1];
+            t.update();
+            s[1] = t;
+            return s;
+        }
+        long i = index - ls;
+        if (i < t.length) {
+            Node r = new Node(t.data, t.offset + (int) i, t.length - (int) i);
+            r.right = t.right;
+            r.update();
+            t.length = (int) i;
+            t.right = null;
+            t.update();
+            return new Node[] {t, r};
+        }
+        Node[] s = split(t.right, index - ls - t.length);
+        t.right = s[0];
+        t.update();
+        s[0] = t;
+        return s;
+    }
+
+    /**
+     * 木から読む.
+     */
+    private static void copy(Node t, long index, byte[] b, int offset, int length) {
+        while (t != null && length > 0) {
+            long ls = size(t.left);
+            if (index < ls) {
+                int n = (int) Math.min(length, ls - index);
+                copy(t.left, index, b, offset, n);
+                index += n;
+                offset += n;
+                length -= n;
+            }
+            long i = index - ls;
+            if (length > 0 && i < t.length) {
+                int n = (int) Math.min(length, t.length - i);
+                System.arraycopy(t.data, t.offset + (int) i, b, offset, n);
+                index += n;
+                offset += n;
+                length -= n;
+            }
+            index -= ls + t.length;
+            t = t.right;
+        }
+    }
+
+    /**
+     * 右端の断片が追記領域の末尾ならそのまま伸ばす.
+     *
+     * @param t 木
+     * @param length 伸ばす長さ
+     * @return 伸ばせた
+     */
+    private boolean extend(Node t, int length) {
+        if (t == null) {
+            return false;
+        }
+        if (t.right == null ? t.data == addBuf && t.offset + t.length == addPos : extend(t.right, length)) {
+            if (t.right == null) {
+                t.length += length;
+            }
+            t.size += length;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 全体の長さ.
+     *
+     * @return 長さ
+     */
+    public long totalLength() {
+        return size(root);
+    }
+
+    @Override
+    public long seek(long offset) {
+        return pos = Matics.range(offset, 0, size(root));
+    }
+
+    @Override
+    public long skip(long length) {
+        long op = pos;
+        pos = Matics.range(pos + length, 0, size(root));
+        return pos - op;
+    }
+
+    @Override
+    public long back(long length) {
+        long op = pos;
+        pos = Matics.range(pos - length, 0, size(root));
+        return op - pos;
+    }
+
+    @Override
+    public long length() {
+        return size(root) - pos;
+    }
+
+    @Override
+    public long backLength() {
+        return pos;
+    }
+
+    @Override
+    public boolean readable(long length) {
+        return length() >= length;
+    }
+
+    @Override
+    public PieceBlock get(long index, byte[] buf, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, buf.length) || !Matics.sorted(0, index, index + length, size(root))) {
+            throw new java.nio.BufferOverflowException();
+        }
+        copy(root, index, buf, offset, length);
+        return this;
+    }
+
+    /**
+     * 追加する.
+     * データは追記領域に複製する.
+     *
+     * @param index 位置
+     * @param d データ
+     * @param offset データ位置
+     * @param length データ長さ
+     */
+    @Override
+    public void add(long index, byte[] d, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, d.length) || !Matics.sorted(0, index, size(root))) {
+            throw new java.nio.BufferOverflowException();
+        }
+        if (length == 0) {
+            return;
+        }
+        if (addBuf.length - addPos < length) {
+            addBuf = new byte[Math.max(ADD_CHUNK, length)];
+            addPos = 0;
+        }
+        System.arraycopy(d, offset, addBuf, addPos, length);
+        Node[] s = split(root, index);
+        if (!extend(s[0], length)) {
+            s[0] = merge(s[0], new Node(addBuf, addPos, length));
+        }
+        addPos += length;
+        root = merge(s[0], s[1]);
+        if (pos > index) {
+            pos += length;
+        }
+    }
+
+    @Override
+    public void del(long index, long size) {
+        if (!Matics.sorted(0, index, index + size, size(root))) {
+            throw new java.nio.BufferOverflowException();
+        }
+        Node[] s = split(root, index);
+        Node[] e = split(s[1], size);
+        root = merge(s[0], e[1]);
+        if (pos > index) {
+            pos = Math.max(index, pos - size);
+        }
+    }
+
+    @Override
+    public PieceBlock del(long index, byte[] buf, int offset, int length) {
+        get(index, buf, offset, length);
+        del(index, length);
+        return this;
+    }
+
+    /**
+     * 上書き.
+     * 削除と追加なので長さは変わらない.
+     *
+     * @param index 位置
+     * @param d データ
+     * @param offset データ位置
+     * @param length 長さ
+     */
+    @Override
+    public void put(long index, byte[] d, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, d.length) || !Matics.sorted(0, index, index + length, size(root))) {
+            throw new java.nio.BufferOverflowException();
+        }
+        long p = pos;
+        del(index, length);
+        add(index, d, offset, length);
+        pos = p;
+    }
+
+    /**
+     * 上書き.
+     * 末尾を超える分は追加になる.
+     *
+     * @param data データ
+     * @param offset データ位置
+     * @param length 長さ
+     * @return これ
+     */
+    @Override
+    public PieceBlock put(byte[] data, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, data.length)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        long p = pos;
+        del(p, Math.min(length, length()));
+        add(p, data, offset, length);
+        pos = p + length;
+        return this;
+    }
+
+    @Override
+    public byte[] drop(int length) {
+        byte[] d = new byte[Math.min(length, size())];
+        del(pos, d);
+        return d;
+    }
+
+    @Override
+    public byte[] backDrop(int length) {
+        byte[] d = new byte[Math.min(backSize(), length)];
+        del(pos - d.length, d);
+        return d;
+    }
+
+    @Override
+    public int read(byte[] buf, int offset, int length) {
+        length = (int) Math.min(length, length());
+        get(pos, buf, offset, length);
+        pos += length;
+        return length;
+    }
+
+    @Override
+    public int backRead(byte[] buf, int offset, int length) {
+        int size = Matics.range(length, 0, backSize());
+        pos -= size;
+        get(pos, buf, offset + length - size, size);
+        return size;
+    }
+
+    /**
+     * 上書き.
+     * 末尾まで.
+     *
+     * @param d データ
+     * @param offset データ位置
+     * @param length 長さ
+     */
+    @Override
+    public void write(byte[] d, int offset, int length) {
+        length = Matics.range(length, 0, size());
+        put(pos, d, offset, length);
+        pos += length;
+    }
+
+    @Override
+    public void backWrite(byte[] d, int offset, int length) {
+        int size = Matics.range(length, 0, backSize());
+        pos -= size;
+        put(pos, d, offset + length - size, size);
+    }
+
+    /**
+     * 上書き可能だが追加/削除された場合は保証されない
+     *
+     * @param length 長さ
+     * @return 上書き可能な切り取り
+     */
+    @Override
+    public OverBlock readBlock(long length) {
+        length = Matics.range(length, 0, length());
+        pos += length;
+        return sub(pos - length, length);
+    }
+
+    @Override
+    public OverBlock flip() {
+        return sub(0, pos);
+    }
+
+    /**
+     * 断片の数.
+     *
+     * @return 断片数
+     */
+    public int pieces() {
+        return count(root);
+    }
+
+    private static int count(Node t) {
+        return t == null ? 0 : count(t.left) + 1 + count(t.right);
+    }
+
+    /**
+     * 1つの配列にまとめる.
+     * この後は1断片になる.
+     * 配列は共有するので、返した ByteBlock への上書きはこちらにも見える.
+     *
+     * @return 全体の ByteBlock
+     */
+    public ByteBlock flatten() {
+        long len = size(root);
+        if (len > Integer.MAX_VALUE) {
+            throw new java.nio.BufferOverflowException();
+        }
+        byte[] d = new byte[(int) len];
+        copy(root, 0, d, 0, d.length);
+        root = d.length > 0 ? new Node(d, 0, d.length) : null;
+        return new ByteBlock(d);
+    }
+}
@@ -17,6 +17,7 @@ package net.siisise.block;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.nio.ByteBuffer;
@@ -146,6 +147,18 @@ public interface ReadableBlock extends Block, Input, RevInput, IndexInput, BinIn
         return ChannelBlock.wrap(file);
     }
 
+    /**
+     * ファイルを読む.
+     *
+     * @param file ファイル
+     * @param map true のとき map する. false は ChannelBlock
+     * @return 読めるBlock
+     * @throws IOException
+     */
+    public static ReadableBlock wrap(File file, boolean map) throws IOException {
+        return map ? MappedBlock.map(file) : ChannelBlock.wrap(file);
+    }
+
     /**
      * 使いやすそうなのでラップする.
      *
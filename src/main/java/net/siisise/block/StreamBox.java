@@ -15,57 +15,251 @@
  */
 package net.siisise.block;
 
-
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import net.siisise.io.Input;
 import net.siisise.lang.Bin;
 
 /**
- * Stream に変換する何か
+ * Stream に変換する何か.
+ * 読みながら len 単位で切り出すので先に全部読むことはしない.
+ * 配列、ByteBuffer を持つ ReadableBlock は parallel() にすると分けて処理できる.
+ * 分けた先はそれぞれ複製した view から get(index, ...) で読む.
+ * ChannelBlock, MappedBlock, PageCacheBlock, AsyncChannelBlock は位置を使わない
+ * get(index, ...) を同時に呼べるので同じ Block のまま範囲で分ける.
+ * それ以外の ReadableBlock は分けずに順に読む.
+ * ReadableBlock も Input と同じく読む範囲の分だけ位置を進める.
  */
 public class StreamBox {
-    
-    public static Stream stream(Input in, int len) {
-        byte[] d;
-        List<byte[]> list = new ArrayList<>();
-        
-        while ( in.size() >= len ) {
-            d = new byte[len];
+
+    /**
+     * Input から順に len バイトずつ切り出す.
+     * 長さが分からない前提なので分割は Spliterators.AbstractSpliterator に任せる.
+     *
+     * @param <T> 要素型
+     */
+    public static class InputSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+        private final Input in;
+        private final int len;
+        private final Function<byte[], T> conv;
+
+        /**
+         * 
+         * @param in 入力
+         * @param len 単位バイト長
+         * @param conv 変換
+         */
+        public InputSpliterator(Input in, int len, Function<byte[], T> conv) {
+            super(in.length() / len, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.in = in;
+            this.len = len;
+            this.conv = conv;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (in.length() < len) {
+                return false;
+            }
+            byte[] d = new byte[len];
             in.read(d);
-            list.add(d);
+            action.accept(conv.apply(d));
+            return true;
         }
-        return list.stream();
     }
 
     /**
-     * int列のブロックのストリームを作るかもしれない.
-     * @param in
-     * @param len intのサイズ
-     * @return 
+     * ReadableBlock の index から end まで len バイトずつ切り出す.
+     * 分割は前半の範囲の view を作って渡す. データの複製はしない.
+     * view が作れなくても同時に get できる Block は範囲だけ分ける.
+     * それ以外は同時に get できるとは限らないので分割しない.
+     * Block の位置は動かさない.
+     * 端数は含まない.
+     *
+     * @param <T> 要素型
      */
-    public static Stream intStream(Input in, int len) {
-        List<int[]> list = new ArrayList<>();
-        int x4 = len*4;
-        
-        while ( in.size() >= x4 ) {
-            byte[] t = new byte[x4];
-            in.read(t);
-            list.add(Bin.btoi(t));
+    public static class BlockSpliterator<T> implements Spliterator<T> {
+
+        private final ReadableBlock block;
+        private long index;
+        private final long end;
+        private final int len;
+        private final Function<byte[], T> conv;
+
+        /**
+         * 今の位置から読める範囲を対象にする.
+         *
+         * @param block 元
+         * @param len 単位バイト長
+         * @param conv 変換
+         */
+        public BlockSpliterator(ReadableBlock block, int len, Function<byte[], T> conv) {
+            this(block, block.backLength(), block.backLength() + block.length() / len * len, len, conv);
+        }
+
+        private BlockSpliterator(ReadableBlock block, long index, long end, int len, Function<byte[], T> conv) {
+            this.block = block;
+            this.index = index;
+            this.end = end;
+            this.len = len;
+            this.conv = conv;
         }
-        return list.stream();
-    }
 
-    public static Stream longStream(Input in, int len) {
-        List<long[]> list = new ArrayList<>();
-        int x8 = len*8;
-        
-        while ( in.size() >= x8 ) {
-            byte[] t = new byte[x8];
-            in.read(t);
-            list.add(Bin.btol(t));
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (index >= end) {
+                return false;
+            }
+            byte[] d = new byte[len];
+            block.get(index, d, 0, len);
+            index += len;
+            action.accept(conv.apply(d));
+            return true;
         }
-        return list.stream();
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            while (index < end) {
+                byte[] d = new byte[len];
+                block.get(index, d, 0, len);
+                index += len;
+                action.accept(conv.apply(d));
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            long n = (end - index) / len;
+            if (n < 2) {
+                return null;
+            }
+            long half = n / 2 * len;
+            ReadableBlock prefix = view(block, index, half);
+            if (prefix != null) {
+                index += half;
+                return new BlockSpliterator<>(prefix, 0, half, len, conv);
+            } else if (positional(block)) {
+                long s = index;
+                index += half;
+                return new BlockSpliterator<>(block, s, index, len, conv);
+            }
+            return null;
+        }
+
+        /**
+         * get(index, ...) が位置を使わず同時に呼べる Block.
+         *
+         * @param block 元
+         * @return 範囲で分けられるとき true
+         */
+        static boolean positional(ReadableBlock block) {
+            return block instanceof ChannelBlock || block instanceof MappedBlock
+                    || block instanceof PageCacheBlock || block instanceof AsyncChannelBlock;
+        }
+
+        /**
+         * 位置などを共有しない範囲の view.
+         *
+         * @param block 元
+         * @param index 位置
+         * @param length 長さ
+         * @return view または null
+         */
+        static ReadableBlock view(ReadableBlock block, long index, long length) {
+            if (block.hasArray()) {
+                return new ByteBlock(block.array(), block.arrayOffset() + index, length);
+            } else if (block instanceof ByteBufferBlock) {
+                return new ByteBufferBlock(((ByteBufferBlock) block).buffer(index, (int) length).slice());
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (end - index) / len;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    /**
+     * byte[] 単位のストリーム.
+     * @param in 入力
+     * @param len byte[]のサイズ
+     * @return byte[] の Stream
+     */
+    public static Stream<byte[]> stream(Input in, int len) {
+        return StreamSupport.stream(new InputSpliterator<>(in, len, Function.identity()), false);
+    }
+
+    /**
+     * byte[] 単位のストリーム.
+     * Input と同じく読む範囲の分だけ Block の位置を先に進める.
+     * 中身は Stream で使うときに読む.
+     * @param block 入力
+     * @param len byte[]のサイズ
+     * @return byte[] の Stream
+     */
+    public static Stream<byte[]> stream(ReadableBlock block, int len) {
+        return stream(block, len, Function.identity());
+    }
+
+    /**
+     * 位置を進めて Stream にする.
+     */
+    private static <T> Stream<T> stream(ReadableBlock block, int len, Function<byte[], T> conv) {
+        BlockSpliterator<T> sp = new BlockSpliterator<>(block, len, conv);
+        block.skip(sp.estimateSize() * len);
+        return StreamSupport.stream(sp, false);
+    }
+
+    /**
+     * int列のブロックのストリーム.
+     * @param in 入力
+     * @param len intのサイズ
+     * @return int[] の Stream
+     */
+    public static Stream<int[]> intStream(Input in, int len) {
+        return StreamSupport.stream(new InputSpliterator<>(in, len * 4, Bin::btoi), false);
+    }
+
+    /**
+     * int列のブロックのストリーム.
+     * 読む範囲の分だけ Block の位置を先に進める.
+     * @param block 入力
+     * @param len intのサイズ
+     * @return int[] の Stream
+     */
+    public static Stream<int[]> intStream(ReadableBlock block, int len) {
+        return stream(block, len * 4, Bin::btoi);
+    }
+
+    /**
+     * long列のブロックのストリーム.
+     * @param in 入力
+     * @param len longのサイズ
+     * @return long[] の Stream
+     */
+    public static Stream<long[]> longStream(Input in, int len) {
+        return StreamSupport.stream(new InputSpliterator<>(in, len * 8, Bin::btol), false);
+    }
+
+    /**
+     * long列のブロックのストリーム.
+     * 読む範囲の分だけ Block の位置を先に進める.
+     * @param block 入力
+     * @param len longのサイズ
+     * @return long[] の Stream
+     */
+    public static Stream<long[]> longStream(ReadableBlock block, int len) {
+        return stream(block, len * 8, Bin::btol);
     }
 }
@@ -17,6 +17,7 @@ package net.siisise.io;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 
 /**
  * BASE64エンコーダ/デコーダ。
@@ -57,6 +58,22 @@ public class BASE64 implements TextEncode {
         final char[] encsrc = new char[64];
         final byte[] bytesrc = new byte[64];
         final int[] decsrc = new int[128];
+        /**
+         * 12bit を 2文字に. 上位16bitが上の6bit、下位16bitが下の6bit の文字.
+         */
+        final int[] enc12 = new int[4096];
+        /**
+         * 1バイト文字から 6bit. 対象外は -1.
+         */
+        final int[] dec256 = new int[256];
+
+        private void init() {
+            for (int i = 0; i < 4096; i++) {
+                enc12[i] = (encsrc[i >>> 6] << 16) | encsrc[i & 0x3f];
+            }
+            Arrays.fill(dec256, -1);
+            System.arraycopy(decsrc, 0, dec256, 0, decsrc.length);
+        }
     }
 
     Type type;
@@ -104,6 +121,9 @@ public class BASE64 implements TextEncode {
             Type.BCRYPT.decsrc[Type.BCRYPT.encsrc[i]] = i;
             Type.HEX64.decsrc[Type.HEX64.encsrc[i]] = i;
         }
+        for (Type t : Type.values()) {
+            t.init();
+        }
     }
 
     // intだったころと互換?
@@ -248,13 +268,16 @@ public class BASE64 implements TextEncode {
         int last = offset + length;
 
         if (cols <= 0) { // 速い
-            int l2 = last - 2;
-            while (offset < l2) {
-                int tmp = ((data[offset++] & 0xff) << 16) | ((data[offset++] & 0xff) << 8) | (data[offset++] & 0xff);
-                b64[b64offset++] = type.encsrc[tmp >>> 18];
-                b64[b64offset++] = type.encsrc[(tmp >>> 12) & 0x3f];
-                b64[b64offset++] = type.encsrc[(tmp >>> 6) & 0x3f];
-                b64[b64offset++] = type.encsrc[tmp & 0x3f];
+            int l = length / 3 * 3;
+            b64offset = encodeBlock(data, offset, l, b64, b64offset);
+            offset += l;
+        } else if (cols % 4 == 0) { // 行単位
+            int l = cols / 4 * 3;
+            while (last - offset >= l) {
+                b64offset = encodeBlock(data, offset, l, b64, b64offset);
+                offset += l;
+                b64[b64offset++] = '\r';
+                b64[b64offset++] = '\n';
             }
         }
 
@@ -305,6 +328,98 @@ public class BASE64 implements TextEncode {
         return b64;
     }
 
+    /**
+     * 3バイト単位の符号化.
+     * 6バイトを long にまとめて12bit毎に2文字ずつ表から引く.
+     *
+     * @param data 元
+     * @param offset 元位置
+     * @param length 3の倍数
+     * @param b64 出力先
+     * @param b64offset 出力位置
+     * @return 出力後の位置
+     */
+    int encodeBlock(byte[] data, int offset, int length, char[] b64, int b64offset) {
+        int[] t = type.enc12;
+        int last = offset + length;
+        while (last - offset >= 6) {
+            long v = ((data[offset] & 0xffl) << 40) | ((data[offset + 1] & 0xffl) << 32)
+                    | ((data[offset + 2] & 0xffl) << 24) | ((data[offset + 3] & 0xffl) << 16)
+                    | ((data[offset + 4] & 0xffl) << 8) | (data[offset + 5] & 0xffl);
+            int c0 = t[(int) (v >>> 36) & 0xfff];
+            int c1 = t[(int) (v >>> 24) & 0xfff];
+            int c2 = t[(int) (v >>> 12) & 0xfff];
+            int c3 = t[(int) v & 0xfff];
+            b64[b64offset] = (char) (c0 >>> 16);
+            b64[b64offset + 1] = (char) c0;
+            b64[b64offset + 2] = (char) (c1 >>> 16);
+            b64[b64offset + 3] = (char) c1;
+            b64[b64offset + 4] = (char) (c2 >>> 16);
+            b64[b64offset + 5] = (char) c2;
+            b64[b64offset + 6] = (char) (c3 >>> 16);
+            b64[b64offset + 7] = (char) c3;
+            offset += 6;
+            b64offset += 8;
+        }
+        if (offset < last) {
+            int tmp = ((data[offset] & 0xff) << 16) | ((data[offset + 1] & 0xff) << 8) | (data[offset + 2] & 0xff);
+            int c0 = t[tmp >>> 12];
+            int c1 = t[tmp & 0xfff];
+            b64[b64offset++] = (char) (c0 >>> 16);
+            b64[b64offset++] = (char) c0;
+            b64[b64offset++] = (char) (c1 >>> 16);
+            b64[b64offset++] = (char) c1;
+        }
+        return b64offset;
+    }
+
+    /**
+     * 3バイト単位の符号化 ASCII出力.
+     *
+     * @param data 元
+     * @param offset 元位置
+     * @param length 3の倍数
+     * @param b64 出力先
+     * @param b64offset 出力位置
+     * @return 出力後の位置
+     */
+    int encodeBlock(byte[] data, int offset, int length, byte[] b64, int b64offset) {
+        int[] t = type.enc12;
+        int last = offset + length;
+        while (offset < last) {
+            int tmp = ((data[offset] & 0xff) << 16) | ((data[offset + 1] & 0xff) << 8) | (data[offset + 2] & 0xff);
+            int c0 = t[tmp >>> 12];
+            int c1 = t[tmp & 0xfff];
+            b64[b64offset] = (byte) (c0 >>> 16);
+            b64[b64offset + 1] = (byte) c0;
+            b64[b64offset + 2] = (byte) (c1 >>> 16);
+            b64[b64offset + 3] = (byte) c1;
+            offset += 3;
+            b64offset += 4;
+        }
+        return b64offset;
+    }
+
+    /**
+     * 符号化器.
+     * 続けて update で渡し、最後に doFinal を呼ぶ.
+     * 改行、パディングの設定はこの時点のものを使う.
+     *
+     * @return 符号化器
+     */
+    public BASE64Encoder encoder() {
+        return new BASE64Encoder(this);
+    }
+
+    /**
+     * 復号器.
+     *
+     * @return 復号器
+     */
+    public BASE64Decoder decoder() {
+        return new BASE64Decoder(this);
+    }
+
     /**
      * ASCII文字のバイト型に変換する。
      * ISO-8859-1なのでデータ節約用
@@ -489,10 +604,12 @@ public class BASE64 implements TextEncode {
      */
     @Override
     public byte[] decode(String data) {
-        PacketA pac = new PacketA();
-        byte[] tmp = new byte[3];
+        byte[] out = new byte[(data.length() + 3) / 4 * 3];
         int ch;
-        int len = 0;
+        long r = decodeBlocks(data, out);
+        int i = (int) r;
+        int p = (int) (r >>> 32);
+        int len = p;
         int tmpbits = 0;
 
         // 余計な文字(改行、スペース等)を取り除く
@@ -500,7 +617,7 @@ public class BASE64 implements TextEncode {
         boolean skip;
         // 抽出
         int o = 0;
-        for (int i = 0; i < data.length(); i++, o++) {
+        for (; i < data.length(); i++, o++) {
             ch = data.charAt(i);
             tmpbits <<= 6;
             skip = false;
@@ -518,10 +635,9 @@ public class BASE64 implements TextEncode {
                 skip = true;
             }
             if (o % 4 == 3 && !skip) { // パディング込みで4文字必要
-                tmp[0] = (byte) ((tmpbits >> 16) & 0xff);
-                tmp[1] = (byte) ((tmpbits >> 8) & 0xff);
-                tmp[2] = (byte) (tmpbits & 0xff);
-                pac.write(tmp);
+                out[p++] = (byte) (tmpbits >> 16);
+                out[p++] = (byte) (tmpbits >> 8);
+                out[p++] = (byte) tmpbits;
                 len += 3;
                 tmpbits = 0;
             }
@@ -530,16 +646,163 @@ public class BASE64 implements TextEncode {
             o = o % 4; // 0123
             if (o >= 2) {
                 tmpbits <<= 6 * (4 - o);
-                tmp[0] = (byte) ((tmpbits >> 16) & 0xff);
-                tmp[1] = (byte) ((tmpbits >> 8) & 0xff);
-                pac.write(tmp);
+                out[p++] = (byte) (tmpbits >> 16);
+                out[p] = (byte) (tmpbits >> 8);
                 len += o - 1;
             }
         }
 
-        tmp = new byte[len];
-        pac.read(tmp);
-        return tmp;
+        return len == out.length ? out : Arrays.copyOf(out, len);
+    }
+
+    /**
+     * 先頭から 8文字単位で復号する.
+     * 4文字の区切りにある改行、空白は読み飛ばして続ける.
+     * 対象外の文字、パディングなどは呼び出し元で処理する.
+     *
+     * @param data BASE64文字列
+     * @param out 出力先 先頭から書く
+     * @return 上位32bit 出力したバイト数, 下位32bit 処理した文字数
+     */
+    long decodeBlocks(String data, byte[] out) {
+        int len = data.length();
+        int i = 0;
+        int p = 0;
+        while (true) {
+            int c = decodeBlock(data, i, out, p);
+            i += c;
+            p += c / 8 * 6;
+            if (len - i >= 4) { // 行末などの 4文字
+                char c0 = data.charAt(i);
+                char c1 = data.charAt(i + 1);
+                char c2 = data.charAt(i + 2);
+                char c3 = data.charAt(i + 3);
+                if ((c0 | c1 | c2 | c3) <= 0xff) {
+                    int[] d = type.dec256;
+                    int a0 = d[c0];
+                    int a1 = d[c1];
+                    int a2 = d[c2];
+                    int a3 = d[c3];
+                    if ((a0 | a1 | a2 | a3) >= 0) {
+                        put(a0, a1, a2, a3, out, p);
+                        i += 4;
+                        p += 3;
+                        continue;
+                    }
+                }
+            }
+            int s = i;
+            while (i < len && isSpace(data.charAt(i))) {
+                i++;
+            }
+            if (i == s) {
+                return ((long) p << 32) | i;
+            }
+        }
+    }
+
+    private static boolean isSpace(char ch) {
+        return ch == '\r' || ch == '\n' || ch == ' ' || ch == '\t';
+    }
+
+    /**
+     * 文字列を 8文字単位で対象外の文字が出るまで復号する.
+     *
+     * @param src BASE64文字列
+     * @param offset 開始位置
+     * @param out 出力先
+     * @param p 出力位置
+     * @return 処理した文字数 8の倍数
+     */
+    int decodeBlock(String src, int offset, byte[] out, int p) {
+        int[] d = type.dec256;
+        int i = offset;
+        int len = src.length();
+        while (len - i >= 8) {
+            char c0 = src.charAt(i);
+            char c1 = src.charAt(i + 1);
+            char c2 = src.charAt(i + 2);
+            char c3 = src.charAt(i + 3);
+            char c4 = src.charAt(i + 4);
+            char c5 = src.charAt(i + 5);
+            char c6 = src.charAt(i + 6);
+            char c7 = src.charAt(i + 7);
+            if ((c0 | c1 | c2 | c3 | c4 | c5 | c6 | c7) > 0xff) {
+                break;
+            }
+            int a0 = d[c0];
+            int a1 = d[c1];
+            int a2 = d[c2];
+            int a3 = d[c3];
+            int a4 = d[c4];
+            int a5 = d[c5];
+            int a6 = d[c6];
+            int a7 = d[c7];
+            if ((a0 | a1 | a2 | a3 | a4 | a5 | a6 | a7) < 0) {
+                break;
+            }
+            put(a0, a1, a2, a3, a4, a5, a6, a7, out, p);
+            i += 8;
+            p += 6;
+        }
+        return i - offset;
+    }
+
+    /**
+     * 4文字分を 3バイトにする.
+     */
+    void put(int a0, int a1, int a2, int a3, byte[] out, int p) {
+        int v = (a0 << 18) | (a1 << 12) | (a2 << 6) | a3;
+        out[p] = (byte) (v >>> 16);
+        out[p + 1] = (byte) (v >>> 8);
+        out[p + 2] = (byte) v;
+    }
+
+    /**
+     * 8文字分を 6バイトにする.
+     */
+    void put(int a0, int a1, int a2, int a3, int a4, int a5, int a6, int a7, byte[] out, int p) {
+        long v = ((long) a0 << 42) | ((long) a1 << 36) | ((long) a2 << 30) | ((long) a3 << 24)
+                | (a4 << 18) | (a5 << 12) | (a6 << 6) | a7;
+        out[p] = (byte) (v >>> 40);
+        out[p + 1] = (byte) (v >>> 32);
+        out[p + 2] = (byte) (v >>> 24);
+        out[p + 3] = (byte) (v >>> 16);
+        out[p + 4] = (byte) (v >>> 8);
+        out[p + 5] = (byte) v;
+    }
+
+    /**
+     * ASCII列を 8文字単位で対象外の文字が出るまで復号する.
+     *
+     * @param src BASE64文字列
+     * @param offset 開始位置
+     * @param length 長さ
+     * @param out 出力先
+     * @param p 出力位置
+     * @return 処理した文字数 8の倍数
+     */
+    int decodeBlock(byte[] src, int offset, int length, byte[] out, int p) {
+        int[] d = type.dec256;
+        int i = offset;
+        int len = offset + length;
+        while (len - i >= 8) {
+            int a0 = d[src[i] & 0xff];
+            int a1 = d[src[i + 1] & 0xff];
+            int a2 = d[src[i + 2] & 0xff];
+            int a3 = d[src[i + 3] & 0xff];
+            int a4 = d[src[i + 4] & 0xff];
+            int a5 = d[src[i + 5] & 0xff];
+            int a6 = d[src[i + 6] & 0xff];
+            int a7 = d[src[i + 7] & 0xff];
+            if ((a0 | a1 | a2 | a3 | a4 | a5 | a6 | a7) < 0) {
+                break;
+            }
+            put(a0, a1, a2, a3, a4, a5, a6, a7, out, p);
+            i += 8;
+            p += 6;
+        }
+        return i - offset;
     }
 
     /**
@@ -578,13 +841,16 @@ public class BASE64 implements TextEncode {
             int last = offset + length;
 
             if (cols <= 0) { // 速い
-                int l2 = last - 2;
-                while (offset < l2) {
-                    int tmp = (data[offset++] & 0xff) | ((data[offset++] & 0xff) << 8) | ((data[offset++] & 0xff) << 16);
-                    b64[b64offset++] = this.type.encsrc[tmp & 0x3f];
-                    b64[b64offset++] = this.type.encsrc[(tmp >>> 6) & 0x3f];
-                    b64[b64offset++] = this.type.encsrc[(tmp >>> 12) & 0x3f];
-                    b64[b64offset++] = this.type.encsrc[tmp >>> 18];
+                int l = length / 3 * 3;
+                b64offset = encodeBlock(data, offset, l, b64, b64offset);
+                offset += l;
+            } else if (cols % 4 == 0) { // 行単位
+                int l = cols / 4 * 3;
+                while (last - offset >= l) {
+                    b64offset = encodeBlock(data, offset, l, b64, b64offset);
+                    offset += l;
+                    b64[b64offset++] = '\r';
+                    b64[b64offset++] = '\n';
                 }
             }
 
@@ -636,6 +902,63 @@ public class BASE64 implements TextEncode {
             return b64;
         }
 
+        /**
+         * 3バイト単位の符号化.
+         * 下位ビットから6bit毎.
+         */
+        @Override
+        int encodeBlock(byte[] data, int offset, int length, char[] b64, int b64offset) {
+            int[] t = type.enc12;
+            int last = offset + length;
+            while (last - offset >= 6) {
+                long v = (data[offset] & 0xffl) | ((data[offset + 1] & 0xffl) << 8)
+                        | ((data[offset + 2] & 0xffl) << 16) | ((data[offset + 3] & 0xffl) << 24)
+                        | ((data[offset + 4] & 0xffl) << 32) | ((data[offset + 5] & 0xffl) << 40);
+                int c0 = t[(int) v & 0xfff];
+                int c1 = t[(int) (v >>> 12) & 0xfff];
+                int c2 = t[(int) (v >>> 24) & 0xfff];
+                int c3 = t[(int) (v >>> 36) & 0xfff];
+                b64[b64offset] = (char) c0;
+                b64[b64offset + 1] = (char) (c0 >>> 16);
+                b64[b64offset + 2] = (char) c1;
+                b64[b64offset + 3] = (char) (c1 >>> 16);
+                b64[b64offset + 4] = (char) c2;
+                b64[b64offset + 5] = (char) (c2 >>> 16);
+                b64[b64offset + 6] = (char) c3;
+                b64[b64offset + 7] = (char) (c3 >>> 16);
+                offset += 6;
+                b64offset += 8;
+            }
+            if (offset < last) {
+                int tmp = (data[offset] & 0xff) | ((data[offset + 1] & 0xff) << 8) | ((data[offset + 2] & 0xff) << 16);
+                int c0 = t[tmp & 0xfff];
+                int c1 = t[tmp >>> 12];
+                b64[b64offset++] = (char) c0;
+                b64[b64offset++] = (char) (c0 >>> 16);
+                b64[b64offset++] = (char) c1;
+                b64[b64offset++] = (char) (c1 >>> 16);
+            }
+            return b64offset;
+        }
+
+        @Override
+        int encodeBlock(byte[] data, int offset, int length, byte[] b64, int b64offset) {
+            int[] t = type.enc12;
+            int last = offset + length;
+            while (offset < last) {
+                int tmp = (data[offset] & 0xff) | ((data[offset + 1] & 0xff) << 8) | ((data[offset + 2] & 0xff) << 16);
+                int c0 = t[tmp & 0xfff];
+                int c1 = t[tmp >>> 12];
+                b64[b64offset] = (byte) c0;
+                b64[b64offset + 1] = (byte) (c0 >>> 16);
+                b64[b64offset + 2] = (byte) c1;
+                b64[b64offset + 3] = (byte) (c1 >>> 16);
+                offset += 3;
+                b64offset += 4;
+            }
+            return b64offset;
+        }
+
         @Override
         public int encodeToStream(byte[] data, OutputStream out, int offset, int length) throws IOException {
             int tmpData = 0, bit = 0;
@@ -662,6 +985,7 @@ public class BASE64 implements TextEncode {
                 do {
                     bit -= 6;
                     out.write(type.bytesrc[tmpData & 0x3f]);
+                    tmpData >>>= 6;
                     col++;
                     if (col >= cols && cols > 0) { // 4文字単位で改行するのなら while の外でもいいかも
                         out.write(CRLF);
@@ -702,10 +1026,12 @@ public class BASE64 implements TextEncode {
 
         @Override
         public byte[] decode(String data) {
-            PacketA pac = new PacketA();
-            byte[] tmp = new byte[3];
+            byte[] out = new byte[(data.length() + 3) / 4 * 3];
             int ch;
-            int len = 0;
+            long r = decodeBlocks(data, out);
+            int i = (int) r;
+            int p = (int) (r >>> 32);
+            int len = p;
             int tmpbits = 0;
             int bit = 0;
 
@@ -714,7 +1040,7 @@ public class BASE64 implements TextEncode {
             boolean skip;
             // 抽出
             int o = 0;
-            for (int i = 0; i < data.length(); i++, o++) {
+            for (; i < data.length(); i++, o++) {
                 ch = data.charAt(i);
                 skip = false;
                 if (ch < 128 && type.decsrc[ch] >= 0) {
@@ -731,27 +1057,50 @@ public class BASE64 implements TextEncode {
                     skip = true;
                 }
                 if (o % 4 == 3 && !skip) { // パディング込みで4文字必要
-                    tmp[0] = (byte) (tmpbits & 0xff);
-                    tmp[1] = (byte) ((tmpbits >> 8) & 0xff);
-                    tmp[2] = (byte) ((tmpbits >> 16) & 0xff);
-                    pac.write(tmp);
+                    out[p++] = (byte) tmpbits;
+                    out[p++] = (byte) (tmpbits >> 8);
+                    out[p++] = (byte) (tmpbits >> 16);
                     len += 3;
                     tmpbits = 0;
+                    bit = 0;
                 }
             }
             if (!padding) {
                 o = o % 4; // 0123
                 if (o >= 2) {
-                    tmp[0] = (byte) (tmpbits & 0xff);
-                    tmp[1] = (byte) ((tmpbits >> 8) & 0xff);
-                    pac.write(tmp);
+                    out[p++] = (byte) tmpbits;
+                    out[p] = (byte) (tmpbits >> 8);
                     len += o - 1;
                 }
             }
 
-            tmp = new byte[len];
-            pac.read(tmp);
-            return tmp;
+            return len == out.length ? out : Arrays.copyOf(out, len);
+        }
+
+        /**
+         * 下位ビットから 4文字分を 3バイトにする.
+         */
+        @Override
+        void put(int a0, int a1, int a2, int a3, byte[] out, int p) {
+            int v = a0 | (a1 << 6) | (a2 << 12) | (a3 << 18);
+            out[p] = (byte) v;
+            out[p + 1] = (byte) (v >>> 8);
+            out[p + 2] = (byte) (v >>> 16);
+        }
+
+        /**
+         * 下位ビットから 8文字分を 6バイトにする.
+         */
+        @Override
+        void put(int a0, int a1, int a2, int a3, int a4, int a5, int a6, int a7, byte[] out, int p) {
+            long v = a0 | (a1 << 6) | (a2 << 12) | (a3 << 18)
+                    | ((long) a4 << 24) | ((long) a5 << 30) | ((long) a6 << 36) | ((long) a7 << 42);
+            out[p] = (byte) v;
+            out[p + 1] = (byte) (v >>> 8);
+            out[p + 2] = (byte) (v >>> 16);
+            out[p + 3] = (byte) (v >>> 24);
+            out[p + 4] = (byte) (v >>> 32);
+            out[p + 5] = (byte) (v >>> 40);
         }
 
     }
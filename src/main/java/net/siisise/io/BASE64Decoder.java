@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+/**
+ * BASE64 の逐次復号.
+ * BASE64.decoder() で作る.
+ * 入力は ASCII のバイト列. 改行など対象外の文字は読み飛ばす.
+ * '=' のある組はその分短くする.
+ */
+public class BASE64Decoder extends BASE64Stream {
+
+    private final BASE64 b64;
+    private final int[] dec;
+    private final boolean padding;
+    private final boolean le;
+
+    private final byte[] buf = new byte[BUFSIZE];
+    /**
+     * 4文字に満たない持ち越し分.
+     */
+    private int bits;
+    private int n;
+    private int pad;
+
+    BASE64Decoder(BASE64 b64) {
+        this.b64 = b64;
+        dec = b64.type.dec256;
+        padding = b64.padding;
+        le = b64 instanceof BASE64.LE;
+    }
+
+    @Override
+    public void update(byte[] src, int offset, int length, Output out) {
+        int end = offset + length;
+        int p = 0;
+        while (offset < end) {
+            if (n == 0 && end - offset >= 8) {
+                if (BUFSIZE - p < 6) {
+                    out.write(buf, 0, p);
+                    p = 0;
+                }
+                int l = Math.min(end - offset, (BUFSIZE - p) / 6 * 8);
+                int c = b64.decodeBlock(src, offset, l, buf, p);
+                offset += c;
+                p += c / 8 * 6;
+                if (c == l) {
+                    continue;
+                }
+            }
+            if (BUFSIZE - p < 3) {
+                out.write(buf, 0, p);
+                p = 0;
+            }
+            int ch = src[offset++] & 0xff;
+            int v = dec[ch];
+            if (v < 0) {
+                if (ch != '=') { // その他は無視する
+                    continue;
+                }
+                v = 0;
+                pad++;
+            }
+            if (le) {
+                bits |= v << (6 * n);
+            } else {
+                bits = (bits << 6) | v;
+            }
+            if (++n == 4) {
+                p = put(p, 3 - pad);
+                bits = 0;
+                n = 0;
+                pad = 0;
+            }
+        }
+        out.write(buf, 0, p);
+    }
+
+    /**
+     * 組を buf に書く.
+     *
+     * @param p 位置
+     * @param len 書くバイト数
+     * @return 書いた後の位置
+     */
+    private int put(int p, int len) {
+        for (int i = 0; i < len; i++) {
+            buf[p++] = (byte) (le ? bits >>> (8 * i) : bits >>> (16 - 8 * i));
+        }
+        return p;
+    }
+
+    @Override
+    public void doFinal(Output out) {
+        if (!padding && n >= 2) {
+            if (!le) {
+                bits <<= 6 * (4 - n);
+            }
+            out.write(buf, 0, put(0, n - 1 - pad));
+        }
+        bits = 0;
+        n = 0;
+        pad = 0;
+    }
+}
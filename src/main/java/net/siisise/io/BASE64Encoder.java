@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+/**
+ * BASE64 の逐次符号化.
+ * BASE64.encoder() で作る.
+ * 出力は ASCII のバイト列. 改行、パディングは BASE64#encode と同じになる.
+ */
+public class BASE64Encoder extends BASE64Stream {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final BASE64 b64;
+    private final byte[] enc;
+    private final int cols;
+    private final boolean padding;
+    private final boolean le;
+
+    /**
+     * 3バイトに満たない持ち越し分.
+     */
+    private final byte[] rest = new byte[3];
+    private int restLength;
+    private final byte[] buf = new byte[BUFSIZE];
+    /**
+     * 行の文字数.
+     */
+    private int col;
+
+    BASE64Encoder(BASE64 b64) {
+        this.b64 = b64;
+        enc = b64.type.bytesrc;
+        cols = b64.cols;
+        padding = b64.padding;
+        le = b64 instanceof BASE64.LE;
+    }
+
+    @Override
+    public void update(byte[] src, int offset, int length, Output out) {
+        if (restLength > 0) {
+            int n = Math.min(3 - restLength, length);
+            System.arraycopy(src, offset, rest, restLength, n);
+            restLength += n;
+            offset += n;
+            length -= n;
+            if (restLength < 3) {
+                return;
+            }
+            emit(b64.encodeBlock(rest, 0, 3, buf, 0), out);
+            restLength = 0;
+        }
+        while (length >= 3) {
+            int l = Math.min(length / 3 * 3, BUFSIZE / 4 * 3);
+            emit(b64.encodeBlock(src, offset, l, buf, 0), out);
+            offset += l;
+            length -= l;
+        }
+        System.arraycopy(src, offset, rest, 0, length);
+        restLength = length;
+    }
+
+    /**
+     * 改行を入れながら書く.
+     *
+     * @param n buf の文字数
+     * @param out 出力先
+     */
+    private void emit(int n, Output out) {
+        if (cols <= 0) {
+            out.write(buf, 0, n);
+            return;
+        }
+        int o = 0;
+        while (o < n) {
+            int m = Math.min(n - o, cols - col);
+            out.write(buf, o, m);
+            o += m;
+            col += m;
+            if (col >= cols) {
+                out.write(CRLF);
+                col = 0;
+            }
+        }
+    }
+
+    @Override
+    public void doFinal(Output out) {
+        if (restLength > 0) {
+            int b0 = rest[0] & 0xff;
+            int b1 = restLength > 1 ? rest[1] & 0xff : 0;
+            if (le) {
+                int v = b0 | (b1 << 8);
+                buf[0] = enc[v & 0x3f];
+                buf[1] = enc[(v >>> 6) & 0x3f];
+                buf[2] = enc[(v >>> 12) & 0x3f];
+            } else {
+                int v = (b0 << 16) | (b1 << 8);
+                buf[0] = enc[v >>> 18];
+                buf[1] = enc[(v >>> 12) & 0x3f];
+                buf[2] = enc[(v >>> 6) & 0x3f];
+            }
+            emit(restLength + 1, out);
+            if (padding) { // パディングは行の字数に数えない
+                for (int i = restLength; i < 3; i++) {
+                    out.write('=');
+                }
+            }
+            restLength = 0;
+        }
+        if (cols > 0 && col > 0) {
+            out.write(CRLF);
+        }
+        col = 0;
+    }
+}
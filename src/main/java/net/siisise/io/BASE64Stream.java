@@ -0,0 +1,376 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * BASE64 の逐次処理.
+ * update で少しずつ渡して doFinal で終わる.
+ * 途中の3バイト、4文字に満たない分は持ち越す.
+ * 内部の作業領域は固定なので入力の大きさによらない.
+ *
+ * Output, Input, Channel の中継にもなる.
+ */
+public abstract class BASE64Stream {
+
+    /**
+     * 作業領域の大きさ. 3と4と6と8の倍数
+     */
+    static final int BUFSIZE = 0x1800;
+
+    /**
+     * 継承用.
+     */
+    protected BASE64Stream() {
+    }
+
+    /**
+     * 途中まで処理する.
+     *
+     * @param src 元
+     * @param offset 位置
+     * @param length 長さ
+     * @param out 出力先
+     */
+    public abstract void update(byte[] src, int offset, int length, Output out);
+
+    /**
+     * 持ち越した分を処理して終わる.
+     * 続けて使うと最初からになる.
+     *
+     * @param out 出力先
+     */
+    public abstract void doFinal(Output out);
+
+    /**
+     * 途中まで処理する.
+     *
+     * @param src 元
+     * @return 処理できた分
+     */
+    public byte[] update(byte[] src) {
+        return update(src, 0, src.length);
+    }
+
+    /**
+     * 途中まで処理する.
+     *
+     * @param src 元
+     * @param offset 位置
+     * @param length 長さ
+     * @return 処理できた分
+     */
+    public byte[] update(byte[] src, int offset, int length) {
+        PacketA pac = new PacketA();
+        update(src, offset, length, pac);
+        return pac.toByteArray();
+    }
+
+    /**
+     * 終わる.
+     *
+     * @return 残り
+     */
+    public byte[] doFinal() {
+        PacketA pac = new PacketA();
+        doFinal(pac);
+        return pac.toByteArray();
+    }
+
+    /**
+     * 最後の分も渡して終わる.
+     *
+     * @param src 元
+     * @param offset 位置
+     * @param length 長さ
+     * @return 残り全部
+     */
+    public byte[] doFinal(byte[] src, int offset, int length) {
+        PacketA pac = new PacketA();
+        update(src, offset, length, pac);
+        doFinal(pac);
+        return pac.toByteArray();
+    }
+
+    /**
+     * 書いたものを処理して out に書く.
+     * close で doFinal する. out は閉じない.
+     *
+     * @param out 出力先
+     * @return 書き込み口
+     */
+    public StreamOutput output(Output out) {
+        return new StreamOutput(this, out);
+    }
+
+    /**
+     * in から読んで処理したものを読む.
+     * in が読めなくなったら doFinal する.
+     *
+     * @param in 元
+     * @return 読み口
+     */
+    public Input input(Input in) {
+        return new StreamInput(this, in, false);
+    }
+
+    /**
+     * in から読んで処理したものを読む.
+     * nonBlocking では in の 0 はまだ届いていないだけとして 0 を返し、
+     * -1 を返したら doFinal する.
+     *
+     * @param in 元
+     * @param nonBlocking 0 で終わりにしない
+     * @return 読み口
+     */
+    public Input input(Input in, boolean nonBlocking) {
+        return new StreamInput(this, in, nonBlocking);
+    }
+
+    /**
+     * 書いたものを処理して ch に書く.
+     * close で doFinal して ch も閉じる.
+     *
+     * @param ch 出力先
+     * @return 書き込み口
+     */
+    public WritableByteChannel channel(WritableByteChannel ch) {
+        return new WritableChannel(this, ch);
+    }
+
+    /**
+     * ch から読んで処理したものを読む.
+     * ch が終わったら doFinal する.
+     *
+     * @param ch 元
+     * @return 読み口
+     */
+    public ReadableByteChannel channel(ReadableByteChannel ch) {
+        return new ReadableChannel(this, ch);
+    }
+
+    /**
+     * 書き込み口.
+     * close で doFinal する.
+     */
+    public static class StreamOutput extends Output.AbstractOutput {
+
+        private final BASE64Stream codec;
+        private final Output out;
+        private boolean closed;
+
+        StreamOutput(BASE64Stream codec, Output out) {
+            this.codec = codec;
+            this.out = out;
+        }
+
+        @Override
+        public Output put(byte[] data, int offset, int length) {
+            if (closed) {
+                throw new IllegalStateException();
+            }
+            codec.update(data, offset, length, out);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                codec.doFinal(out);
+            }
+        }
+    }
+
+    static class StreamInput extends Input.AbstractInput {
+
+        private final BASE64Stream codec;
+        private final Input in;
+        private final PacketA buf = new PacketA();
+        private final byte[] tmp = new byte[BUFSIZE];
+        private final boolean nonBlocking;
+        private boolean eof;
+
+        StreamInput(BASE64Stream codec, Input in, boolean nonBlocking) {
+            this.codec = codec;
+            this.in = in;
+            this.nonBlocking = nonBlocking;
+        }
+
+        /**
+         * size バイト以上あるか終わるまで読む.
+         * nonBlocking では 0 はまだ届いていないだけ. 終わりは -1 のみ.
+         */
+        private void fill(long size) {
+            while (buf.length() < size && !eof) {
+                int n = in.read(tmp, 0, tmp.length);
+                if (n < 0 || (n == 0 && !nonBlocking)) {
+                    codec.doFinal(buf);
+                    eof = true;
+                } else if (n == 0) {
+                    return;
+                } else {
+                    codec.update(tmp, 0, n, buf);
+                }
+            }
+        }
+
+        /**
+         * 読む.
+         *
+         * @return 読めた長さ, 終わりは -1, nonBlocking でまだ届いていなければ 0
+         */
+        @Override
+        public int read(byte[] b, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            fill(1);
+            if (buf.length() == 0) {
+                return eof ? -1 : 0;
+            }
+            return buf.read(b, offset, length);
+        }
+
+        /**
+         * 処理済みの長さ.
+         * @return 少なくとも読める長さ
+         */
+        @Override
+        public long length() {
+            fill(1);
+            return buf.length();
+        }
+
+        @Override
+        public boolean readable(long size) {
+            fill(size);
+            return buf.length() >= size;
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            fill(Long.MAX_VALUE);
+            return buf.toByteArray();
+        }
+    }
+
+    static class WritableChannel implements WritableByteChannel {
+
+        private final BASE64Stream codec;
+        private final WritableByteChannel ch;
+        private final PacketA buf = new PacketA();
+        private final byte[] tmp = new byte[BUFSIZE];
+        private boolean open = true;
+
+        WritableChannel(BASE64Stream codec, WritableByteChannel ch) {
+            this.codec = codec;
+            this.ch = ch;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            int len = src.remaining();
+            while (src.hasRemaining()) {
+                int n = Math.min(src.remaining(), tmp.length);
+                src.get(tmp, 0, n);
+                codec.update(tmp, 0, n, buf);
+                drain();
+            }
+            return len;
+        }
+
+        private void drain() throws IOException {
+            while (buf.length() > 0) {
+                int n = buf.read(tmp);
+                ByteBuffer bb = ByteBuffer.wrap(tmp, 0, n);
+                while (bb.hasRemaining()) {
+                    ch.write(bb);
+                }
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (open) {
+                open = false;
+                codec.doFinal(buf);
+                try {
+                    drain();
+                } finally {
+                    ch.close();
+                }
+            }
+        }
+    }
+
+    static class ReadableChannel implements ReadableByteChannel {
+
+        private final BASE64Stream codec;
+        private final ReadableByteChannel ch;
+        private final PacketA buf = new PacketA();
+        private final ByteBuffer tmp = ByteBuffer.allocate(BUFSIZE);
+        private boolean eof;
+
+        ReadableChannel(BASE64Stream codec, ReadableByteChannel ch) {
+            this.codec = codec;
+            this.ch = ch;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            while (buf.length() == 0 && !eof) {
+                tmp.clear();
+                int n = ch.read(tmp);
+                if (n < 0) {
+                    codec.doFinal(buf);
+                    eof = true;
+                } else if (n == 0) {
+                    return 0;
+                } else {
+                    codec.update(tmp.array(), 0, n, buf);
+                }
+            }
+            if (buf.length() == 0) {
+                return -1;
+            }
+            return buf.read(dst);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return ch.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            ch.close();
+        }
+    }
+}
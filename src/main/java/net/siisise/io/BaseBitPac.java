@@ -34,6 +34,8 @@ public abstract class BaseBitPac extends BasePacket implements BitPacket {
      */
     protected int writePadding;
 
+    private static final byte[] EMPTY = new byte[0];
+
     public abstract class BitInputStream extends AbstractInput {
 
         @Override
@@ -235,6 +237,141 @@ public abstract class BaseBitPac extends BasePacket implements BitPacket {
         return in.readBit(data, offsetBit, length);
     }
 
+    /**
+     * 同じビット幅の値をまとめて読む.
+     * 必要なバイトをまとめて取り出して BitReader で切り出す.
+     *
+     * @param bitWidth 値のビット幅 0 - 32
+     * @param dst 読み込み先
+     * @param offset dst の位置
+     * @param count 個数
+     */
+    @Override
+    public void readInts(int bitWidth, int[] dst, int offset, int count) {
+        if (!bulk()) {
+            BitPacket.super.readInts(bitWidth, dst, offset, count);
+            return;
+        }
+        BitReader r = bulkReader((long) bitWidth * count);
+        r.readInts(bitWidth, dst, offset, count);
+        bulkEnd(r);
+    }
+
+    /**
+     * 同じビット幅の値をまとめて読む.
+     *
+     * @param bitWidth 値のビット幅 0 - 64
+     * @param dst 読み込み先
+     * @param offset dst の位置
+     * @param count 個数
+     */
+    @Override
+    public void readLongs(int bitWidth, long[] dst, int offset, int count) {
+        if (!bulk()) {
+            BitPacket.super.readLongs(bitWidth, dst, offset, count);
+            return;
+        }
+        BitReader r = bulkReader((long) bitWidth * count);
+        r.readLongs(bitWidth, dst, offset, count);
+        bulkEnd(r);
+    }
+
+    /**
+     * BitReader でまとめて読めるか.
+     *
+     * @return bitReader があるとき true
+     */
+    private boolean bulk() {
+        return bitReader(EMPTY) != null;
+    }
+
+    /**
+     * 先頭から bitLength を含むバイトを取り出す.
+     *
+     * @param bitLength 読むビット長
+     * @return 読む位置に合わせた BitReader
+     */
+    private BitReader bulkReader(long bitLength) {
+        if (bitLength > bitLength()) {
+            throw new java.lang.IndexOutOfBoundsException();
+        }
+        long end = readPadding + bitLength;
+        byte[] d = new byte[(int) ((end + 7) / 8)];
+        pac.read(d);
+        BitReader r = bitReader(d);
+        r.skipBits(readPadding);
+        readPadding = (int) (end & 7);
+        return r;
+    }
+
+    /**
+     * 1 までの 0 の数を読む. 1 も読む.
+     * 8バイトまで覗いて BitReader で 0 を数え、読んだ分だけ進める.
+     *
+     * @return 0 の数
+     */
+    long readUnary() {
+        long q = 0;
+        if (!bulk()) {
+            while (readInt(1) == 0) {
+                q++;
+            }
+            return q;
+        }
+        while (true) {
+            long len = Math.min(bitLength(), 56);
+            if (len == 0) {
+                throw new java.lang.IndexOutOfBoundsException();
+            }
+            byte[] d = new byte[(int) ((readPadding + len + 7) / 8)];
+            pac.get(0, d);
+            BitReader r = bitReader(d);
+            r.skipBits(readPadding);
+            r.refill();
+            int z = (int) Math.min(r.zeros(), len);
+            if (z < len) {
+                skipBits(z + 1);
+                return q + z;
+            }
+            skipBits(len);
+            q += len;
+        }
+    }
+
+    /**
+     * 先頭から読み飛ばす.
+     * 端数は readInt で読んで読みかけのバイトを揃える.
+     *
+     * @param bitLength bitLength() 以下
+     */
+    private void skipBits(long bitLength) {
+        if (readPadding > 0 && bitLength >= 8 - readPadding) {
+            int n = 8 - readPadding;
+            readInt(n);
+            bitLength -= n;
+        }
+        pac.skip(bitLength >>> 3);
+        if ((bitLength & 7) > 0) {
+            readInt((int) (bitLength & 7));
+        }
+    }
+
+    /**
+     * 読みかけのバイトを戻す.
+     *
+     * @param r 読み終わった BitReader
+     */
+    private void bulkEnd(BitReader r) {
+        if (readPadding > 0) {
+            if (pac.length() == 0 && readPadding + writePadding == 8) {
+                readPadding = 0;
+                writePadding = 0;
+            } else {
+                pac.backWrite(r.partial());
+            }
+        }
+    }
+
     @Override
     public BitPacket readPac(long length) {
         return in.readBitPacket(length);
@@ -280,6 +417,90 @@ public abstract class BaseBitPac extends BasePacket implements BitPacket {
         out.writeBit(data, bitOffset, bitLength);
     }
 
+    /**
+     * 同じビット幅の値をまとめて書く.
+     *
+     * @param bitWidth 値のビット幅 0 - 32
+     * @param src 下位ビットに詰めた値
+     * @param offset src の位置
+     * @param count 個数
+     */
+    @Override
+    public void writeInts(int bitWidth, int[] src, int offset, int count) {
+        BitWriter w = bulkWriter();
+        if (w == null) {
+            BitPacket.super.writeInts(bitWidth, src, offset, count);
+            return;
+        }
+        w.writeInts(bitWidth, src, offset, count);
+        bulkEnd(w);
+    }
+
+    /**
+     * 同じビット幅の値をまとめて書く.
+     *
+     * @param bitWidth 値のビット幅 0 - 64
+     * @param src 下位ビットに詰めた値
+     * @param offset src の位置
+     * @param count 個数
+     */
+    @Override
+    public void writeLongs(int bitWidth, long[] src, int offset, int count) {
+        BitWriter w = bulkWriter();
+        if (w == null) {
+            BitPacket.super.writeLongs(bitWidth, src, offset, count);
+            return;
+        }
+        w.writeLongs(bitWidth, src, offset, count);
+        bulkEnd(w);
+    }
+
+    /**
+     * 書きかけのバイトを取り出して続きから書く BitWriter.
+     *
+     * @return BitWriter または null
+     */
+    private BitWriter bulkWriter() {
+        BitWriter w = bitWriter(pac);
+        if (w != null && writePadding > 0) {
+            int n = 8 - writePadding;
+            w.writeBit(bitReader(new byte[] {(byte) pac.backRead()}).readInt(n), n);
+        }
+        return w;
+    }
+
+    /**
+     * 端数を 0 で埋めて書き、埋めた分を writePadding にする.
+     *
+     * @param w 書き終わった BitWriter
+     */
+    private void bulkEnd(BitWriter w) {
+        writePadding = (int) (-w.bitLength() & 7);
+        w.close();
+    }
+
+    /**
+     * 同じ並びの BitReader.
+     * null のときはまとめて読まずに readInt で1値ずつ読む.
+     *
+     * @param data 元
+     * @return BitReader または null
+     */
+    protected BitReader bitReader(byte[] data) {
+        return null;
+    }
+
+    /**
+     * 同じ並びの BitWriter.
+     * null のときはまとめて書かずに writeBit で1値ずつ書く.
+     *
+     * @param out 出力先
+     * @return BitWriter または null
+     */
+    protected BitWriter bitWriter(Output out) {
+        return null;
+    }
+
     @Override
     public void backWrite(byte[] data, int offset, int length) {
         backOut.writeBit(data, offset * 8l, length * 8l);
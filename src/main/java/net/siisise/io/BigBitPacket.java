@@ -463,6 +463,16 @@ public class BigBitPacket extends BaseBitPac {
         return sb.toString();
     }
 
+    @Override
+    protected BitReader bitReader(byte[] data) {
+        return BitReader.big(data);
+    }
+
+    @Override
+    protected BitWriter bitWriter(Output out) {
+        return BitWriter.big(out);
+    }
+
     @Override
     public BigBitPacket readPacket(long length) {
         BigBitPacket bb = new BigBitPacket();
@@ -42,6 +42,51 @@ public interface BitInput {
      */
     long readBit(byte[] data, long offsetBit, long bitLength);
 
+    /**
+     * 同じビット幅の値をまとめて読む.
+     * 足りないときは読まずに例外.
+     *
+     * @param bitWidth 値のビット幅 0 - 32
+     * @param dst 読み込み先
+     * @param offset dst の位置
+     * @param count 個数
+     */
+    default void readInts(int bitWidth, int[] dst, int offset, int count) {
+        if ((long) bitWidth * count > bitLength()) {
+            throw new java.lang.IndexOutOfBoundsException();
+        }
+        for (int i = 0; i < count; i++) {
+            dst[offset + i] = readInt(bitWidth);
+        }
+    }
+
+    /**
+     * 同じビット幅の値をまとめて読む.
+     * 33ビット以上の値は readInt と同じ向きで1つの値として読む.
+     * MSBから読む実装(BigBitPacket)は上位 bitWidth - 32 ビットを先に、下位 32 ビットを後に読む.
+     * LSBから読む実装(LittleBitPacket)は下位 32 ビットを先に読む.
+     * この実装はMSBからの形. LSBからの実装は上書きすること.
+     * 足りないときは読まずに例外.
+     *
+     * @param bitWidth 値のビット幅 0 - 64
+     * @param dst 読み込み先
+     * @param offset dst の位置
+     * @param count 個数
+     */
+    default void readLongs(int bitWidth, long[] dst, int offset, int count) {
+        if ((long) bitWidth * count > bitLength()) {
+            throw new java.lang.IndexOutOfBoundsException();
+        }
+        for (int i = 0; i < count; i++) {
+            if (bitWidth <= 32) {
+                dst[offset + i] = readInt(bitWidth) & 0xffffffffL;
+            } else {
+                long h = readInt(bitWidth - 32) & 0xffffffffL;
+                dst[offset + i] = (h << 32) | (readInt(32) & 0xffffffffL);
+            }
+        }
+    }
+
     /**
      * 読み込み可能なビット数.
      * @return 端数含むビット数
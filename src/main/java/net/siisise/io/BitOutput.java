@@ -25,4 +25,42 @@ public interface BitOutput {
 
     void writeBit(BitPacket pac, long bitLength);
     void writeBit(BitPacket pac);
+
+    /**
+     * 同じビット幅の値をまとめて書く.
+     *
+     * @param bitWidth 値のビット幅 0 - 32
+     * @param src 下位ビットに詰めた値
+     * @param offset src の位置
+     * @param count 個数
+     */
+    default void writeInts(int bitWidth, int[] src, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            writeBit(src[offset + i], bitWidth);
+        }
+    }
+
+    /**
+     * 同じビット幅の値をまとめて書く.
+     * 33ビット以上の値は writeBit と同じ向きで1つの値として書く.
+     * MSBから書く実装(BigBitPacket)は上位 bitWidth - 32 ビットを先に、下位 32 ビットを後に書く.
+     * LSBから書く実装(LittleBitPacket)は下位 32 ビットを先に書く.
+     * この実装はMSBからの形. LSBからの実装は上書きすること.
+     *
+     * @param bitWidth 値のビット幅 0 - 64
+     * @param src 下位ビットに詰めた値
+     * @param offset src の位置
+     * @param count 個数
+     */
+    default void writeLongs(int bitWidth, long[] src, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            long v = src[offset + i];
+            if (bitWidth <= 32) {
+                writeBit((int) v, bitWidth);
+            } else {
+                writeBit((int) (v >>> 32), bitWidth - 32);
+                writeBit((int) v, 32);
+            }
+        }
+    }
 }
@@ -0,0 +1,535 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * long を溜めにしたビット読み.
+ * 配列から8バイト単位で補充するので1ビットずつ Packet を読み書きしない.
+ * Input から読むときは BUFSIZE 単位で配列に読む.
+ * 元には書き戻さないので、読み終わったら残りは捨てるか remaining で確認する.
+ * BigBitPacket と同じ上位ビット優先の Big と、LittleBitPacket と同じ下位ビット優先の Little がある.
+ */
+public abstract class BitReader implements BitInput {
+
+    static final int BUFSIZE = 0x2000;
+
+    static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * 溜め.
+     */
+    long acc;
+    /**
+     * 溜めの有効ビット数.
+     */
+    int bits;
+
+    byte[] buf;
+    int pos;
+    int limit;
+    private Input in;
+
+    /**
+     * 配列から読む.
+     * 複製しない.
+     *
+     * @param data 元
+     * @param offset 位置
+     * @param length 長さ
+     */
+    BitReader(byte[] data, int offset, int length) {
+        buf = data;
+        pos = offset;
+        limit = offset + length;
+    }
+
+    /**
+     * Input から読む.
+     *
+     * @param in 元
+     */
+    BitReader(Input in) {
+        this.in = in;
+        buf = new byte[BUFSIZE];
+    }
+
+    /**
+     * 上位ビット優先.
+     *
+     * @param data 元
+     * @return BitReader
+     */
+    public static BitReader big(byte[] data) {
+        return new Big(data, 0, data.length);
+    }
+
+    public static BitReader big(Input in) {
+        return new Big(in);
+    }
+
+    /**
+     * 下位ビット優先.
+     *
+     * @param data 元
+     * @return BitReader
+     */
+    public static BitReader little(byte[] data) {
+        return new Little(data, 0, data.length);
+    }
+
+    public static BitReader little(Input in) {
+        return new Little(in);
+    }
+
+    /**
+     * 配列を読み切ったら Input から読む.
+     *
+     * @return 読めるバイトがある
+     */
+    final boolean more() {
+        if (pos < limit) {
+            return true;
+        }
+        if (in == null) {
+            return false;
+        }
+        pos = 0;
+        limit = in.read(buf, 0, buf.length);
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 溜めを 57 ビット以上にする. 終わりのときはあるだけ.
+     */
+    abstract void refill();
+
+    /**
+     * 先を見る.
+     * 読み進めない.
+     *
+     * @param bitLength 0 から 32
+     * @return 下位ビットに詰めた値
+     */
+    public abstract int peekBits(int bitLength);
+
+    /**
+     * 読み飛ばす.
+     *
+     * @param bitLength ビット長
+     */
+    public void skipBits(long bitLength) {
+        while (bitLength > 0) {
+            if (bits == 0) {
+                refill();
+                if (bits == 0) {
+                    throw new java.lang.IndexOutOfBoundsException();
+                }
+            }
+            int n = (int) Math.min(bitLength, bits);
+            drop(n);
+            bitLength -= n;
+        }
+    }
+
+    /**
+     * 溜めから捨てる.
+     *
+     * @param n 1 から bits
+     */
+    abstract void drop(int n);
+
+    @Override
+    public int readInt(int bitLength) {
+        int v = peekBits(bitLength);
+        drop(bitLength);
+        return v;
+    }
+
+    /**
+     * 64ビットまで読む.
+     *
+     * @param bitLength 0 から 64
+     * @return 下位ビットに詰めた値
+     */
+    public abstract long readLong(int bitLength);
+
+    /**
+     * 同じビット幅の値をまとめて読む.
+     * 溜めに入っている分を1回のループで切り出す.
+     *
+     * @param bitWidth 値のビット幅 0 - 32
+     * @param dst 読み込み先
+     * @param offset dst の位置
+     * @param count 個数
+     */
+    @Override
+    public void readInts(int bitWidth, int[] dst, int offset, int count) {
+        if ((long) bitWidth * count > bitLength()) {
+            throw new java.lang.IndexOutOfBoundsException();
+        }
+        if (bitWidth == 0) {
+            java.util.Arrays.fill(dst, offset, offset + count, 0);
+            return;
+        }
+        int end = offset + count;
+        while (offset < end) {
+            refill();
+            int n = Math.min(end - offset, bits / bitWidth);
+            unpack(bitWidth, dst, offset, n);
+            offset += n;
+        }
+    }
+
+    /**
+     * 同じビット幅の値をまとめて読む.
+     *
+     * @param bitWidth 値のビット幅 0 - 64
+     * @param dst 読み込み先
+     * @param offset dst の位置
+     * @param count 個数
+     */
+    @Override
+    public void readLongs(int bitWidth, long[] dst, int offset, int count) {
+        if ((long) bitWidth * count > bitLength()) {
+            throw new java.lang.IndexOutOfBoundsException();
+        }
+        if (bitWidth == 0) {
+            java.util.Arrays.fill(dst, offset, offset + count, 0);
+            return;
+        }
+        int end = offset + count;
+        while (offset < end) {
+            refill();
+            int n = bitWidth == 64 ? 0 : Math.min(end - offset, bits / bitWidth);
+            if (n == 0) { // 溜めに入りきらない幅
+                dst[offset++] = readLong(bitWidth);
+            } else {
+                unpack(bitWidth, dst, offset, n);
+                offset += n;
+            }
+        }
+    }
+
+    /**
+     * 溜めから n 個切り出す.
+     *
+     * @param w 1 から 32
+     * @param dst 読み込み先
+     * @param offset 位置
+     * @param n 溜めに入っている個数
+     */
+    abstract void unpack(int w, int[] dst, int offset, int n);
+
+    /**
+     * 溜めから n 個切り出す.
+     *
+     * @param w 1 から 63
+     * @param dst 読み込み先
+     * @param offset 位置
+     * @param n 溜めに入っている個数
+     */
+    abstract void unpack(int w, long[] dst, int offset, int n);
+
+    /**
+     * 先頭から続く 0 のビット数.
+     *
+     * @return 0 から bits
+     */
+    abstract int zeros();
+
+    /**
+     * 読みかけのバイトの残り.
+     * 読んだビットは 0 にしてバイト内の元の位置に置く.
+     *
+     * @return 読みかけのバイト
+     */
+    abstract int partial();
+
+    /**
+     * バイト境界まで読み飛ばす.
+     */
+    public void align() {
+        drop(bits & 7);
+    }
+
+    /**
+     * 残りビット数.
+     * Input から読むときは Input.length() を含む.
+     *
+     * @return ビット数
+     */
+    @Override
+    public long bitLength() {
+        return bits + (limit - pos) * 8L + (in == null ? 0 : in.length() * 8);
+    }
+
+    /**
+     * 1ビットずつの位置から data に詰める.
+     *
+     * @param data 読み込み先
+     * @param offsetBit data列の先頭ビット位置
+     * @param bitLength 読み込むビット長
+     * @return 読み込んだビット長
+     */
+    @Override
+    public long readBit(byte[] data, long offsetBit, long bitLength) {
+        bitLength = Math.min(bitLength, bitLength());
+        long len = bitLength;
+        while (len > 0) {
+            int of = (int) (offsetBit >>> 3);
+            int o = (int) (offsetBit & 7);
+            int n = (int) Math.min(8 - o, len);
+            int shift = shift(o, n);
+            int m = ((1 << n) - 1) << shift;
+            data[of] = (byte) ((data[of] & ~m) | ((readInt(n) << shift) & m));
+            offsetBit += n;
+            len -= n;
+        }
+        return bitLength;
+    }
+
+    /**
+     * バイト内の位置.
+     *
+     * @param o 先頭からのビット位置
+     * @param n ビット長
+     * @return 左シフト量
+     */
+    abstract int shift(int o, int n);
+
+    /**
+     * 上位ビット優先.
+     * MSB が先頭 |01234567|89abcdef|.
+     * 溜めは左詰め.
+     */
+    public static class Big extends BitReader {
+
+        Big(byte[] data, int offset, int length) {
+            super(data, offset, length);
+        }
+
+        Big(Input in) {
+            super(in);
+        }
+
+        @Override
+        void refill() {
+            if (bits > 56) {
+                return;
+            }
+            if (limit - pos >= 8) {
+                int n = (64 - bits) >>> 3;
+                long v = (long) LONG_BE.get(buf, pos);
+                acc |= v >>> bits;
+                bits += n << 3;
+                pos += n;
+                if (bits < 64) {
+                    acc &= ~(-1L >>> bits);
+                }
+                return;
+            }
+            while (bits <= 56 && more()) {
+                acc |= (buf[pos++] & 0xffL) << (56 - bits);
+                bits += 8;
+            }
+        }
+
+        @Override
+        public int peekBits(int bitLength) {
+            if (bitLength == 0) {
+                return 0;
+            }
+            if (bits < bitLength) {
+                refill();
+                if (bits < bitLength) {
+                    throw new java.lang.IndexOutOfBoundsException();
+                }
+            }
+            return (int) (acc >>> (64 - bitLength));
+        }
+
+        @Override
+        void drop(int n) {
+            acc = n == 64 ? 0 : acc << n;
+            bits -= n;
+        }
+
+        @Override
+        public long readLong(int bitLength) {
+            if (bitLength <= 32) {
+                return readInt(bitLength) & 0xffffffffL;
+            }
+            long h = readInt(bitLength - 32) & 0xffffffffL;
+            return (h << 32) | (readInt(32) & 0xffffffffL);
+        }
+
+        @Override
+        void unpack(int w, int[] dst, int offset, int n) {
+            long a = acc;
+            int s = 64 - w;
+            for (int i = 0; i < n; i++) {
+                dst[offset + i] = (int) (a >>> s);
+                a <<= w;
+            }
+            acc = a;
+            bits -= n * w;
+        }
+
+        @Override
+        void unpack(int w, long[] dst, int offset, int n) {
+            long a = acc;
+            int s = 64 - w;
+            for (int i = 0; i < n; i++) {
+                dst[offset + i] = a >>> s;
+                a <<= w;
+            }
+            acc = a;
+            bits -= n * w;
+        }
+
+        @Override
+        int zeros() {
+            return Math.min(Long.numberOfLeadingZeros(acc), bits);
+        }
+
+        @Override
+        int partial() {
+            int n = bits & 7;
+            return n == 0 ? 0 : (int) (acc >>> (64 - n));
+        }
+
+        @Override
+        int shift(int o, int n) {
+            return 8 - o - n;
+        }
+    }
+
+    /**
+     * 下位ビット優先.
+     * LSB が先頭 |76543210|fedcba98|.
+     * 溜めは右詰め.
+     */
+    public static class Little extends BitReader {
+
+        Little(byte[] data, int offset, int length) {
+            super(data, offset, length);
+        }
+
+        Little(Input in) {
+            super(in);
+        }
+
+        @Override
+        void refill() {
+            if (bits > 56) {
+                return;
+            }
+            if (limit - pos >= 8) {
+                int n = (64 - bits) >>> 3;
+                long v = (long) LONG_LE.get(buf, pos);
+                acc |= v << bits;
+                bits += n << 3;
+                pos += n;
+                if (bits < 64) {
+                    acc &= (1L << bits) - 1;
+                }
+                return;
+            }
+            while (bits <= 56 && more()) {
+                acc |= (buf[pos++] & 0xffL) << bits;
+                bits += 8;
+            }
+        }
+
+        @Override
+        public int peekBits(int bitLength) {
+            if (bitLength == 0) {
+                return 0;
+            }
+            if (bits < bitLength) {
+                refill();
+                if (bits < bitLength) {
+                    throw new java.lang.IndexOutOfBoundsException();
+                }
+            }
+            return (int) (acc & ((1L << bitLength) - 1));
+        }
+
+        @Override
+        void drop(int n) {
+            acc = n == 64 ? 0 : acc >>> n;
+            bits -= n;
+        }
+
+        @Override
+        public long readLong(int bitLength) {
+            if (bitLength <= 32) {
+                return readInt(bitLength) & 0xffffffffL;
+            }
+            long l = readInt(32) & 0xffffffffL;
+            return l | ((readInt(bitLength - 32) & 0xffffffffL) << 32);
+        }
+
+        @Override
+        void unpack(int w, int[] dst, int offset, int n) {
+            long a = acc;
+            long m = (1L << w) - 1;
+            for (int i = 0; i < n; i++) {
+                dst[offset + i] = (int) (a & m);
+                a >>>= w;
+            }
+            acc = a;
+            bits -= n * w;
+        }
+
+        @Override
+        void unpack(int w, long[] dst, int offset, int n) {
+            long a = acc;
+            long m = (1L << w) - 1;
+            for (int i = 0; i < n; i++) {
+                dst[offset + i] = a & m;
+                a >>>= w;
+            }
+            acc = a;
+            bits -= n * w;
+        }
+
+        @Override
+        int zeros() {
+            return Math.min(Long.numberOfTrailingZeros(acc), bits);
+        }
+
+        @Override
+        int partial() {
+            int n = bits & 7;
+            return (int) ((acc & ((1L << n) - 1)) << (8 - n)) & 0xff;
+        }
+
+        @Override
+        int shift(int o, int n) {
+            return o;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+/**
+ * long を溜めにしたビット書き.
+ * 64ビット溜まったら配列に8バイトまとめて置き、配列がいっぱいになるか flush で Output に書く.
+ * 端数ビットは flush では残り、close で 0 を詰めて書く.
+ * BigBitPacket と同じ上位ビット優先の Big と、LittleBitPacket と同じ下位ビット優先の Little がある.
+ */
+public abstract class BitWriter implements BitOutput {
+
+    long acc;
+    int bits;
+
+    final byte[] buf = new byte[BitReader.BUFSIZE];
+    int pos;
+    private final Output out;
+
+    BitWriter(Output out) {
+        this.out = out;
+    }
+
+    /**
+     * 上位ビット優先.
+     *
+     * @param out 出力先
+     * @return BitWriter
+     */
+    public static BitWriter big(Output out) {
+        return new Big(out);
+    }
+
+    /**
+     * 下位ビット優先.
+     *
+     * @param out 出力先
+     * @return BitWriter
+     */
+    public static BitWriter little(Output out) {
+        return new Little(out);
+    }
+
+    /**
+     * 溜めの64ビットを配列に置く.
+     */
+    final void putLong(long v) {
+        room(8);
+        store(v);
+        pos += 8;
+    }
+
+    /**
+     * 配列に n バイトの空きを作る.
+     */
+    final void room(int n) {
+        if (pos + n > buf.length) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+
+    abstract void store(long v);
+
+    /**
+     * 溜めの先頭1バイトを配列に置く.
+     */
+    abstract void putByte();
+
+    /**
+     * バイト列のビット位置から書く.
+     *
+     * @param data データ
+     * @param offsetBit 先頭ビット位置
+     * @param bitLength ビット長
+     */
+    @Override
+    public void writeBit(byte[] data, long offsetBit, long bitLength) {
+        while (bitLength > 0) {
+            int of = (int) (offsetBit >>> 3);
+            int o = (int) (offsetBit & 7);
+            int n = (int) Math.min(8 - o, bitLength);
+            writeBit(data[of] >>> shift(o, n), n);
+            offsetBit += n;
+            bitLength -= n;
+        }
+    }
+
+    abstract int shift(int o, int n);
+
+    @Override
+    public void writeBit(BitPacket pac, long bitLength) {
+        byte[] data = new byte[(int) ((bitLength + 7) / 8)];
+        pac.readBit(data, 0, bitLength);
+        writeBit(data, 0, bitLength);
+    }
+
+    @Override
+    public void writeBit(BitPacket pac) {
+        writeBit(pac, pac.bitLength());
+    }
+
+    /**
+     * 64ビットまで書く.
+     *
+     * @param data 下位ビットに詰めた値
+     * @param bitLength 0 から 64
+     */
+    public abstract void writeLong(long data, int bitLength);
+
+    @Override
+    public void writeBit(int data, int bitLength) {
+        writeLong(data, bitLength);
+    }
+
+    /**
+     * 同じビット幅の値をまとめて書く.
+     * 溜めに入る分を1回のループで詰める.
+     *
+     * @param bitWidth 値のビット幅 0 - 32
+     * @param src 下位ビットに詰めた値
+     * @param offset src の位置
+     * @param count 個数
+     */
+    @Override
+    public void writeInts(int bitWidth, int[] src, int offset, int count) {
+        if (bitWidth == 0) {
+            return;
+        }
+        long m = (1L << bitWidth) - 1;
+        int end = offset + count;
+        while (offset < end) {
+            int n = Math.min(end - offset, (63 - bits) / bitWidth);
+            pack(bitWidth, src, offset, n);
+            offset += n;
+            if (offset < end) { // 溜めをまたぐ
+                writeLong(src[offset++] & m, bitWidth);
+            }
+        }
+    }
+
+    /**
+     * 同じビット幅の値をまとめて書く.
+     *
+     * @param bitWidth 値のビット幅 0 - 64
+     * @param src 下位ビットに詰めた値
+     * @param offset src の位置
+     * @param count 個数
+     */
+    @Override
+    public void writeLongs(int bitWidth, long[] src, int offset, int count) {
+        if (bitWidth == 0) {
+            return;
+        }
+        int end = offset + count;
+        while (offset < end) {
+            int n = bitWidth == 64 ? 0 : Math.min(end - offset, (63 - bits) / bitWidth);
+            pack(bitWidth, src, offset, n);
+            offset += n;
+            if (offset < end) {
+                writeLong(src[offset++], bitWidth);
+            }
+        }
+    }
+
+    /**
+     * 溜めに n 個詰める.
+     * 溜めは 64 ビットにしない.
+     *
+     * @param w 1 から 32
+     * @param src 値
+     * @param offset 位置
+     * @param n 溜めに入る個数
+     */
+    abstract void pack(int w, int[] src, int offset, int n);
+
+    /**
+     * 溜めに n 個詰める.
+     *
+     * @param w 1 から 63
+     * @param src 値
+     * @param offset 位置
+     * @param n 溜めに入る個数
+     */
+    abstract void pack(int w, long[] src, int offset, int n);
+
+    /**
+     * 書いていないビット数.
+     * @return 溜めと配列のビット数
+     */
+    public long bitLength() {
+        return pos * 8L + bits;
+    }
+
+    /**
+     * バイト境界まで 0 を書く.
+     */
+    public void align() {
+        writeLong(0, (8 - (bits & 7)) & 7);
+    }
+
+    /**
+     * 揃ったバイトを Output に書く.
+     * 端数ビットは残る.
+     */
+    public void flush() {
+        while (bits >= 8) {
+            putByte();
+        }
+        out.write(buf, 0, pos);
+        pos = 0;
+    }
+
+    /**
+     * 端数を 0 で埋めて書く.
+     */
+    public void close() {
+        align();
+        flush();
+    }
+
+    /**
+     * 上位ビット優先.
+     * 溜めは左詰め.
+     */
+    public static class Big extends BitWriter {
+
+        Big(Output out) {
+            super(out);
+        }
+
+        @Override
+        public void writeLong(long data, int bitLength) {
+            if (bitLength == 0) {
+                return;
+            }
+            if (bitLength < 64) {
+                data &= (1L << bitLength) - 1;
+            }
+            int free = 64 - bits;
+            if (bitLength < free) {
+                acc |= data << (free - bitLength);
+                bits += bitLength;
+                return;
+            }
+            int rest = bitLength - free;
+            acc |= data >>> rest;
+            putLong(acc);
+            acc = rest == 0 ? 0 : data << (64 - rest);
+            bits = rest;
+        }
+
+        @Override
+        void store(long v) {
+            BitReader.LONG_BE.set(buf, pos, v);
+        }
+
+        @Override
+        void putByte() {
+            room(1);
+            buf[pos++] = (byte) (acc >>> 56);
+            acc <<= 8;
+            bits -= 8;
+        }
+
+        @Override
+        void pack(int w, int[] src, int offset, int n) {
+            long a = acc;
+            int b = bits;
+            long m = (1L << w) - 1;
+            for (int i = 0; i < n; i++) {
+                b += w;
+                a |= (src[offset + i] & m) << (64 - b);
+            }
+            acc = a;
+            bits = b;
+        }
+
+        @Override
+        void pack(int w, long[] src, int offset, int n) {
+            long a = acc;
+            int b = bits;
+            long m = (1L << w) - 1;
+            for (int i = 0; i < n; i++) {
+                b += w;
+                a |= (src[offset + i] & m) << (64 - b);
+            }
+            acc = a;
+            bits = b;
+        }
+
+        @Override
+        int shift(int o, int n) {
+            return 8 - o - n;
+        }
+    }
+
+    /**
+     * 下位ビット優先.
+     * 溜めは右詰め.
+     */
+    public static class Little extends BitWriter {
+
+        Little(Output out) {
+            super(out);
+        }
+
+        @Override
+        public void writeLong(long data, int bitLength) {
+            if (bitLength == 0) {
+                return;
+            }
+            if (bitLength < 64) {
+                data &= (1L << bitLength) - 1;
+            }
+            int free = 64 - bits;
+            acc |= data << bits;
+            if (bitLength < free) {
+                bits += bitLength;
+                return;
+            }
+            putLong(acc);
+            acc = free == 64 ? 0 : data >>> free;
+            bits = bitLength - free;
+        }
+
+        @Override
+        void store(long v) {
+            BitReader.LONG_LE.set(buf, pos, v);
+        }
+
+        @Override
+        void putByte() {
+            room(1);
+            buf[pos++] = (byte) acc;
+            acc >>>= 8;
+            bits -= 8;
+        }
+
+        @Override
+        void pack(int w, int[] src, int offset, int n) {
+            long a = acc;
+            int b = bits;
+            long m = (1L << w) - 1;
+            for (int i = 0; i < n; i++) {
+                a |= (src[offset + i] & m) << b;
+                b += w;
+            }
+            acc = a;
+            bits = b;
+        }
+
+        @Override
+        void pack(int w, long[] src, int offset, int n) {
+            long a = acc;
+            int b = bits;
+            long m = (1L << w) - 1;
+            for (int i = 0; i < n; i++) {
+                a |= (src[offset + i] & m) << b;
+                b += w;
+            }
+            acc = a;
+            bits = b;
+        }
+
+        @Override
+        int shift(int o, int n) {
+            return o;
+        }
+    }
+}
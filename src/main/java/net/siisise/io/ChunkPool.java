@@ -0,0 +1,249 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Packet の中で使う byte[] の再利用.
+ * PacketA, FIFOPacket, BlockPacket にコンストラクタで渡したときだけ使う.
+ *
+ * サイズ区分ごとにスレッド毎の小さな置き場と、上限付きの共有置き場を持つ.
+ * 区分にぴったり合う長さの配列だけ受け取り、あふれた分は GC に任せる.
+ * 返した配列は外で使わないこと.
+ */
+public class ChunkPool {
+
+    /**
+     * サイズ区分.
+     * 最大は PacketA の分割上限.
+     */
+    static final int[] SIZES = {0x1000, 0x4000, 0x10000, 0x40000, PacketA.MAXLENGTH};
+
+    /**
+     * スレッド毎の区分毎の保持数上限.
+     */
+    private final int localLimit;
+    /**
+     * 共有置き場のバイト数上限.
+     */
+    private final long globalLimit;
+
+    private final List<ConcurrentLinkedQueue<byte[]>> global;
+    private final ThreadLocal<Local> local;
+    /**
+     * 各スレッドの置き場. 終了したスレッドの分は数えるときに外す.
+     */
+    private final ConcurrentLinkedQueue<Local> locals = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong globalBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder drops = new LongAdder();
+
+    /**
+     * スレッド毎 4個、共有 64MiB まで.
+     */
+    public ChunkPool() {
+        this(4, 0x4000000L);
+    }
+
+    /**
+     * 上限を指定する.
+     * @param localLimit スレッド毎、サイズ区分毎に残す数
+     * @param globalLimit 共有置き場に残すバイト数
+     */
+    public ChunkPool(int localLimit, long globalLimit) {
+        this.localLimit = localLimit;
+        this.globalLimit = globalLimit;
+        global = new ArrayList<>(SIZES.length);
+        for (int i = 0; i < SIZES.length; i++) {
+            global.add(new ConcurrentLinkedQueue<>());
+        }
+        local = ThreadLocal.withInitial(() -> {
+            Local l = new Local(localLimit);
+            purge();
+            locals.add(l);
+            return l;
+        });
+    }
+
+    /**
+     * スレッド毎の置き場.
+     * bytes は持ち主のスレッドだけが書く.
+     */
+    private static class Local {
+
+        final Thread owner = Thread.currentThread();
+        final List<ArrayDeque<byte[]>> lists;
+        volatile long bytes;
+
+        Local(int limit) {
+            lists = new ArrayList<>(SIZES.length);
+            for (int i = 0; i < SIZES.length; i++) {
+                lists.add(new ArrayDeque<>(limit));
+            }
+        }
+    }
+
+    /**
+     * 終了したスレッドの置き場を外す.
+     * 中の配列は GC に任せる.
+     */
+    private void purge() {
+        Iterator<Local> it = locals.iterator();
+        while (it.hasNext()) {
+            if (!it.next().owner.isAlive()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * length 以上の区分.
+     * @param length サイズ
+     * @return 区分 または -1
+     */
+    private static int sizeClass(int length) {
+        for (int i = 0; i < SIZES.length; i++) {
+            if (length <= SIZES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 配列を借りる.
+     * 長さは length 以上のサイズ区分になる.
+     * 中身は初期化されていない.
+     * @param length 必要なサイズ
+     * @return length 以上の配列
+     */
+    public byte[] alloc(int length) {
+        int c = sizeClass(length);
+        if (c < 0) {
+            misses.increment();
+            return new byte[length];
+        }
+        Local l = local.get();
+        byte[] d = l.lists.get(c).pollLast();
+        if (d != null) {
+            l.bytes -= d.length;
+        } else {
+            d = global.get(c).poll();
+            if (d != null) {
+                globalBytes.addAndGet(-d.length);
+            }
+        }
+        if (d == null) {
+            misses.increment();
+            return new byte[SIZES[c]];
+        }
+        hits.increment();
+        return d;
+    }
+
+    /**
+     * 配列を返す.
+     * 区分と同じ長さのものだけ残す.
+     * @param d 使い終わった配列
+     */
+    public void release(byte[] d) {
+        int c = sizeClass(d.length);
+        if (c < 0 || SIZES[c] != d.length) {
+            return;
+        }
+        Local l = local.get();
+        ArrayDeque<byte[]> q = l.lists.get(c);
+        if (q.size() < localLimit) {
+            q.addLast(d);
+            l.bytes += d.length;
+        } else if (globalBytes.addAndGet(d.length) <= globalLimit) {
+            global.get(c).offer(d);
+        } else {
+            globalBytes.addAndGet(-d.length);
+            drops.increment();
+        }
+    }
+
+    /**
+     * 再利用できた回数.
+     * @return alloc で置き場から出せた回数
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * 新規に確保した回数.
+     * @return alloc で new した回数
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * 上限を超えて捨てた回数.
+     * @return release で残せなかった回数
+     */
+    public long drops() {
+        return drops.sum();
+    }
+
+    /**
+     * ヒット率.
+     * @return 0.0 から 1.0
+     */
+    public double hitRate() {
+        long h = hits.sum();
+        long a = h + misses.sum();
+        return a == 0 ? 0.0 : (double) h / a;
+    }
+
+    /**
+     * 置き場にある配列の合計サイズ.
+     * 終了したスレッドの置き場の分は含まない.
+     * @return バイト数
+     */
+    public long pooledBytes() {
+        purge();
+        long sum = globalBytes.get();
+        for (Local l : locals) {
+            sum += l.bytes;
+        }
+        return sum;
+    }
+
+    /**
+     * 共有置き場にある配列の合計サイズ.
+     * @return バイト数
+     */
+    public long globalBytes() {
+        return globalBytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkPool hits:" + hits() + " misses:" + misses() + " drops:" + drops() + " pooled:" + pooledBytes();
+    }
+}
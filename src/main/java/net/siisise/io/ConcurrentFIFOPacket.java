@@ -0,0 +1,579 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import net.siisise.math.Matics;
+
+/**
+ * スレッド間で使える FIFOPacket.
+ * 片方向リンクの Chain を lock なしで繋ぐ.
+ * 読むのは1スレッドのみ. 書くのは1スレッド(SPSC) または複数スレッド(MPSC).
+ *
+ * read は待たない. take, poll, readFully は書かれるか close されるまで待つ.
+ * capacity を指定すると書き込み側は空くまで待つ. 待たないときは offer.
+ * 待ちは LockSupport の park / unpark なので仮想スレッドでも使える.
+ */
+public class ConcurrentFIFOPacket implements Input, Output, Closeable {
+
+    static final class Chain {
+
+        final byte[] data;
+        /**
+         * data の有効な長さ.
+         */
+        final int length;
+        /**
+         * data が pool から借りたもの. dwrite で受け取った配列は返さない.
+         */
+        final boolean pooled;
+        volatile Chain next;
+
+        Chain(byte[] data, int length, boolean pooled) {
+            this.data = data;
+            this.length = length;
+            this.pooled = pooled;
+        }
+    }
+
+    /**
+     * 複数スレッドから書くかどうか.
+     */
+    private final boolean multi;
+    /**
+     * 上限. 0以下のときは上限なし.
+     */
+    private final long capacity;
+    private final ChunkPool pool;
+
+    // 読み側のみが触る
+    private Chain out;
+    private int outoffset;
+
+    /**
+     * 入力点. 最後の Chain.
+     */
+    private final AtomicReference<Chain> in;
+    /**
+     * 読めるサイズ. 繋いでから増やす.
+     */
+    private final AtomicLong size = new AtomicLong();
+    /**
+     * capacity 用の予約サイズ. 繋ぐ前に増やす.
+     */
+    private final AtomicLong reserved = new AtomicLong();
+
+    private volatile boolean closed;
+    private volatile Thread reader;
+    private final ConcurrentLinkedQueue<Thread> writers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 1対1、上限なし.
+     */
+    public ConcurrentFIFOPacket() {
+        this(false, 0);
+    }
+
+    /**
+     * @param multiProducer 複数スレッドから書く場合 true
+     * @param capacity 上限サイズ 0以下は上限なし
+     */
+    public ConcurrentFIFOPacket(boolean multiProducer, long capacity) {
+        this(multiProducer, capacity, null);
+    }
+
+    /**
+     * @param multiProducer 複数スレッドから書く場合 true
+     * @param capacity 上限サイズ 0以下は上限なし
+     * @param pool 配列の再利用先 null のときは使わない
+     */
+    public ConcurrentFIFOPacket(boolean multiProducer, long capacity, ChunkPool pool) {
+        multi = multiProducer;
+        this.capacity = capacity;
+        this.pool = pool;
+        out = new Chain(new byte[0], 0, false);
+        in = new AtomicReference<>(out);
+    }
+
+    /**
+     * 読み終わった Chain の次に進む.
+     * @return 進めたら true
+     */
+    private boolean next() {
+        Chain n = out.next;
+        if (n == null) {
+            return false;
+        }
+        if (out.pooled) {
+            pool.release(out.data);
+        }
+        out = n;
+        outoffset = 0;
+        return true;
+    }
+
+    /**
+     * 待たずに読む.
+     * @param buf バッファ
+     * @param offset バッファ位置
+     * @param length サイズ
+     * @return 読めたサイズ ないときは0 閉じて空のときは -1
+     */
+    @Override
+    public int read(byte[] buf, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, buf.length)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        int len = length;
+        while (len > 0) {
+            int r = out.length - outoffset;
+            if (r == 0) {
+                if (!next()) {
+                    break;
+                }
+                continue;
+            }
+            int s = Math.min(r, len);
+            System.arraycopy(out.data, outoffset, buf, offset, s);
+            outoffset += s;
+            offset += s;
+            len -= s;
+        }
+        int s = length - len;
+        if (s > 0) {
+            consumed(s);
+        } else if (length > 0 && closed && size.get() <= 0) {
+            return -1;
+        }
+        return s;
+    }
+
+    @Override
+    public int read() {
+        byte[] d = new byte[1];
+        return read(d, 0, 1) < 1 ? -1 : d[0] & 0xff;
+    }
+
+    /**
+     * 読んだ分を減らして書き込み待ちを起こす.
+     * @param s 読んだサイズ
+     */
+    private void consumed(long s) {
+        size.addAndGet(-s);
+        if (capacity > 0) {
+            reserved.addAndGet(-s);
+            for (Thread t : writers) {
+                LockSupport.unpark(t);
+            }
+        }
+    }
+
+    /**
+     * 1バイト以上読めるか閉じられるまで待つ.
+     * @param nanos 待つ時間 マイナスは無期限
+     * @return 読めるとき true
+     * @throws InterruptedException 割り込み
+     */
+    private boolean await(long nanos) throws InterruptedException {
+        long deadline = System.nanoTime() + nanos;
+        while (size.get() <= 0) {
+            if (closed) {
+                return size.get() > 0;
+            }
+            reader = Thread.currentThread();
+            try {
+                if (size.get() <= 0 && !closed) {
+                    if (nanos < 0) {
+                        LockSupport.park(this);
+                    } else {
+                        long w = deadline - System.nanoTime();
+                        if (w <= 0) {
+                            return false;
+                        }
+                        LockSupport.parkNanos(this, w);
+                    }
+                }
+            } finally {
+                reader = null;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 1バイト以上読めるまで待って読む.
+     * @param buf バッファ
+     * @param offset バッファ位置
+     * @param length サイズ
+     * @return 読めたサイズ 閉じて空のときは -1
+     * @throws InterruptedException 割り込み
+     */
+    public int take(byte[] buf, int offset, int length) throws InterruptedException {
+        if (length <= 0) {
+            return read(buf, offset, length);
+        }
+        while (true) {
+            await(-1);
+            int s = read(buf, offset, length);
+            if (s != 0) {
+                return s;
+            }
+            Thread.onSpinWait(); // MPSC で繋ぎ途中のもの
+        }
+    }
+
+    /**
+     * 1バイト以上読めるまで指定時間待って読む.
+     * @param buf バッファ
+     * @param offset バッファ位置
+     * @param length サイズ
+     * @param timeout 待つ時間
+     * @param unit 時間の単位
+     * @return 読めたサイズ 時間切れは0 閉じて空のときは -1
+     * @throws InterruptedException 割り込み
+     */
+    public int poll(byte[] buf, int offset, int length, long timeout, TimeUnit unit) throws InterruptedException {
+        if (length > 0) {
+            await(Math.max(0, unit.toNanos(timeout)));
+        }
+        return read(buf, offset, length);
+    }
+
+    /**
+     * length 分読めるか閉じられるまで待って読む.
+     * @param buf バッファ
+     * @param offset バッファ位置
+     * @param length サイズ
+     * @return 読めたサイズ 閉じたときは短いこともある
+     * @throws InterruptedException 割り込み
+     */
+    public int readFully(byte[] buf, int offset, int length) throws InterruptedException {
+        int len = length;
+        while (len > 0) {
+            int s = take(buf, offset, len);
+            if (s < 0) {
+                break;
+            }
+            offset += s;
+            len -= s;
+        }
+        return length - len;
+    }
+
+    /**
+     * 待つ InputStream.
+     * @return 書き込みを待つ InputStream
+     */
+    @Override
+    public InputStream getInputStream() {
+        return new InputStream() {
+            @Override
+            public int read() throws InterruptedIOException {
+                byte[] d = new byte[1];
+                return read(d, 0, 1) < 1 ? -1 : d[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int offset, int length) throws InterruptedIOException {
+                try {
+                    return take(b, offset, length);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+
+            @Override
+            public int available() {
+                return size();
+            }
+
+            @Override
+            public void close() {
+                ConcurrentFIFOPacket.this.close();
+            }
+        };
+    }
+
+    @Override
+    public long get(byte[] b, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, b.length) || length() < length) {
+            throw new java.nio.BufferOverflowException();
+        }
+        return read(b, offset, length);
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        byte[] tmp = new byte[size()];
+        read(tmp);
+        return tmp;
+    }
+
+    @Override
+    public Packet readPacket(long length) {
+        Packet pac = new PacketA();
+        pac.write(this, length);
+        return pac;
+    }
+
+    /**
+     * 待たずに進む.
+     * @param length 長さ
+     * @return 進んだサイズ
+     */
+    @Override
+    public long skip(long length) {
+        long len = length;
+        while (len > 0) {
+            int r = out.length - outoffset;
+            if (r == 0) {
+                if (!next()) {
+                    break;
+                }
+                continue;
+            }
+            int s = (int) Math.min(r, len);
+            outoffset += s;
+            len -= s;
+        }
+        if (length - len > 0) {
+            consumed(length - len);
+        }
+        return length - len;
+    }
+
+    /**
+     * 今読めるサイズ.
+     * 書き込み中のものは含まない.
+     * @return サイズ
+     */
+    @Override
+    public long length() {
+        return Math.max(0, size.get());
+    }
+
+    @Override
+    public boolean readable(long length) {
+        return size.get() >= length;
+    }
+
+    /**
+     * 繋ぐ.
+     * @param n 追加する Chain
+     */
+    private void link(Chain n) {
+        Chain prev;
+        if (multi) {
+            prev = in.getAndSet(n);
+        } else {
+            prev = in.get();
+            in.lazySet(n);
+        }
+        prev.next = n;
+        size.addAndGet(n.length);
+        Thread t = reader;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    /**
+     * capacity の空きを予約する.
+     * 空でないときに上限を超える場合は待つ.
+     * @param len サイズ
+     * @param wait 待つかどうか
+     * @return 予約できたら true
+     */
+    private boolean reserve(int len, boolean wait) {
+        if (closed) {
+            throw new IllegalStateException("closed");
+        }
+        if (capacity <= 0) {
+            return true;
+        }
+        Thread t = null;
+        try {
+            while (true) {
+                long r = reserved.get();
+                if (r == 0 || r + len <= capacity) {
+                    if (reserved.compareAndSet(r, r + len)) {
+                        return true;
+                    }
+                    continue;
+                }
+                if (!wait) {
+                    return false;
+                }
+                if (closed) {
+                    throw new IllegalStateException("closed");
+                }
+                if (t == null) {
+                    t = Thread.currentThread();
+                    writers.add(t);
+                    continue; // 登録してからもう一度確認する
+                }
+                LockSupport.park(this);
+                if (t.isInterrupted()) { // 割り込まれたら上限を超えて書く
+                    reserved.addAndGet(len);
+                    return true;
+                }
+            }
+        } finally {
+            if (t != null) {
+                writers.remove(t);
+            }
+        }
+    }
+
+    private byte[] alloc(int length) {
+        return pool == null ? new byte[length] : pool.alloc(length);
+    }
+
+    /**
+     * 書き込む.
+     * capacity を超える場合は空くまで待つ.
+     * 割り込まれたときは待たずに書き、割り込み状態は残す.
+     * @param data データ
+     * @param offset データ位置
+     * @param length データサイズ
+     */
+    @Override
+    public void write(byte[] data, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, data.length)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        while (length > 0) {
+            int len = Math.min(length, PacketA.MAXLENGTH);
+            if (capacity > 0) {
+                len = (int) Math.min(len, capacity);
+            }
+            reserve(len, true);
+            byte[] d = alloc(len);
+            System.arraycopy(data, offset, d, 0, len);
+            link(new Chain(d, len, pool != null));
+            offset += len;
+            length -= len;
+        }
+    }
+
+    /**
+     * 待たずに書き込む.
+     * capacity を超える場合は書かない.
+     * @param data データ
+     * @param offset データ位置
+     * @param length データサイズ
+     * @return 書けたら true
+     */
+    public boolean offer(byte[] data, int offset, int length) {
+        if (!Matics.sorted(0, offset, offset + length, data.length)) {
+            throw new java.nio.BufferOverflowException();
+        }
+        if (!reserve(length, false)) {
+            return false;
+        }
+        byte[] d = alloc(length);
+        System.arraycopy(data, offset, d, 0, length);
+        link(new Chain(d, length, pool != null));
+        return true;
+    }
+
+    /**
+     * 直書き.
+     * 配列は複製しないので再利用しないこと.
+     * @param data データ列
+     */
+    @Override
+    public void dwrite(byte[] data) {
+        reserve(data.length, true);
+        link(new Chain(data, data.length, false));
+    }
+
+    @Override
+    public long write(Input pac) {
+        return write(pac, pac.length());
+    }
+
+    @Override
+    public long write(Input pac, long length) {
+        long len = Math.min(length, pac.length());
+        long x = len;
+        while (x > 0) {
+            int size = (int) Math.min(x, PacketA.MAXLENGTH);
+            if (capacity > 0) {
+                size = (int) Math.min(size, capacity);
+            }
+            reserve(size, true);
+            byte[] d = alloc(size);
+            int s = pac.read(d, 0, size);
+            if (s <= 0) {
+                if (capacity > 0) {
+                    reserved.addAndGet(-size);
+                }
+                if (pool != null) {
+                    pool.release(d);
+                }
+                break;
+            }
+            if (capacity > 0 && s < size) {
+                reserved.addAndGet(s - size);
+            }
+            link(new Chain(d, s, pool != null));
+            x -= s;
+        }
+        return len - x;
+    }
+
+    @Override
+    public Output put(byte[] data, int offset, int length) {
+        write(data, offset, length);
+        return this;
+    }
+
+    /**
+     * 書き込みの終了.
+     * 読み側は残りを読んだあと -1 になる.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Thread t = reader;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+        for (Thread w : writers) {
+            LockSupport.unpark(w);
+        }
+    }
+
+    /**
+     * 閉じられたかどうか.
+     * @return close 済みなら true
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+}
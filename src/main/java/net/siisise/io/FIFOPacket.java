@@ -27,6 +27,14 @@ public class FIFOPacket implements Input, Output {
     class Chain {
 
         byte[] data;
+        /**
+         * data の有効な長さ.
+         */
+        int length;
+        /**
+         * data が pool から借りたもの.
+         */
+        boolean pooled;
         Chain next;
     }
 
@@ -34,12 +42,45 @@ public class FIFOPacket implements Input, Output {
     // 入力点
     Chain in;
     Chain out;
+    /**
+     * 最後に書いた Chain. 読み終わったら null.
+     */
+    Chain last;
+
+    /**
+     * 配列の再利用先. null のときは使わない.
+     */
+    private final ChunkPool pool;
 
     public FIFOPacket() {
+        this(null);
+    }
+
+    /**
+     * 配列を pool から借りて、読み終わったら返す.
+     * @param pool 再利用先 null のときは使わない
+     */
+    public FIFOPacket(ChunkPool pool) {
+        this.pool = pool;
         out = new Chain();
         in = out;
     }
 
+    /**
+     * 読み終わった Chain の後始末.
+     */
+    private void next() {
+        if (out.pooled) {
+            pool.release(out.data);
+        }
+        if (out == last) {
+            last = null;
+        }
+        out.data = null;
+        out = out.next;
+        outoffset = 0;
+    }
+
     @Override
     public InputStream getInputStream() {
         return new FilterInput(this);
@@ -57,15 +98,14 @@ public class FIFOPacket implements Input, Output {
             return -1;
         }
         int len = length;
-        while (out.data != null && out.data.length - outoffset <= len) {
-            int rlen = out.data.length - outoffset;
+        while (out.data != null && out.length - outoffset <= len) {
+            int rlen = out.length - outoffset;
             System.arraycopy(out.data, outoffset, buf, offset, rlen);
             len -= rlen;
             offset += rlen;
-            out = out.next;
-            outoffset = 0;
+            next();
         }
-        if (out.data != null && out.data.length - outoffset > len) {
+        if (out.data != null && out.length - outoffset > len) {
             System.arraycopy(out.data, outoffset, buf, offset, len);
             outoffset += len;
             len = 0;
@@ -105,12 +145,11 @@ public class FIFOPacket implements Input, Output {
     public long skip(long length) {
 
         long len = length;
-        while (out.data != null && out.data.length - outoffset <= len) {
-            len -= out.data.length - outoffset;
-            outoffset = 0;
-            out = out.next;
+        while (out.data != null && out.length - outoffset <= len) {
+            len -= out.length - outoffset;
+            next();
         }
-        if (out.data != null && out.data.length - outoffset < len) {
+        if (out.data != null && out.length - outoffset > len) {
             outoffset += len;
             len = 0;
         }
@@ -122,7 +161,7 @@ public class FIFOPacket implements Input, Output {
         long len = -outoffset;
         Chain o = out;
         while (o.data != null) {
-            len += o.data.length;
+            len += o.length;
             o = o.next;
         }
         return len;
@@ -133,7 +172,7 @@ public class FIFOPacket implements Input, Output {
         length += outoffset;
         Chain o = out;
         while (o.data != null && length > 0) {
-            length -= o.data.length;
+            length -= o.length;
             o = o.next;
         }
         return length <= 0;
@@ -156,21 +195,35 @@ public class FIFOPacket implements Input, Output {
 
     @Override
     public void write(byte[] data, int offset, int length) {
+        int len = Math.min(length, data.length - offset);
+        if (last != null && last.pooled && len > 0) { // 借りた配列の空きに詰める
+            int s = Math.min(len, last.data.length - last.length);
+            System.arraycopy(data, offset, last.data, last.length, s);
+            last.length += s;
+            offset += s;
+            len -= s;
+            if (len == 0) {
+                return;
+            }
+        }
         Chain n = new Chain();
-        in.data = new byte[Math.min(length, data.length - offset)];
-        System.arraycopy(data, offset, in.data, 0, in.data.length);
-        Chain i = in;
+        in.data = pool == null ? new byte[len] : pool.alloc(len);
+        in.pooled = pool != null;
+        in.length = len;
+        System.arraycopy(data, offset, in.data, 0, len);
+        last = in;
         in = n;
-        i.next = n;
+        last.next = n;
     }
 
     @Override
     public void dwrite(byte[] data) {
         Chain n = new Chain();
         in.data = data;
-        Chain i = in;
+        in.length = data.length;
+        last = in;
         in = n;
-        i.next = n;
+        last.next = n;
     }
 
     @Override
@@ -189,13 +242,27 @@ public class FIFOPacket implements Input, Output {
 
     @Override
     public long write(Input pac, long length) {
-        long len = Math.min(length, length());
-        length = len;
+        length = Math.min(length, pac.length());
+        long len = 0;
         while (length > 0) {
-            byte[] tmp = new byte[length > 0x1000000 ? 0x1000000 : (int) length];
-            length -= tmp.length;
-            pac.read(tmp);
-            dwrite(tmp);
+            int size = (int) Math.min(length, PacketA.MAXLENGTH);
+            byte[] d = pool == null ? new byte[size] : pool.alloc(size);
+            int r = pac.read(d, 0, size);
+            if (r <= 0) {
+                if (pool != null) {
+                    pool.release(d);
+                }
+                break;
+            }
+            Chain n = new Chain();
+            in.data = d;
+            in.pooled = pool != null;
+            in.length = r;
+            last = in;
+            in = n;
+            last.next = n;
+            len += r;
+            length -= r;
         }
         return len;
     }
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+/**
+ * ビット単位の可変長整数符号.
+ * Golomb-Rice, Elias gamma/delta, 指数 Golomb.
+ * 値はどれも 0 以上. Elias の符号は v + 1 を符号化する.
+ *
+ * 1進部分は 0 を続けて 1 で終わる並びで、BitReader からは先頭の 0 の数を数えて読む.
+ * その他の BitInput からは1ビットずつ読む.
+ * 2進部分は writeBit / readInt の並びなので BigBitPacket の並びでは教科書どおりの符号になる.
+ * 並べた値の差分で書く encodeSorted / decodeSorted もある.
+ */
+public abstract class IntCode {
+
+    /**
+     * Elias gamma.
+     */
+    public static final IntCode GAMMA = new ExpGolomb(0);
+    /**
+     * Elias delta.
+     */
+    public static final IntCode DELTA = new Delta();
+
+    IntCode() {
+    }
+
+    /**
+     * Golomb-Rice.
+     *
+     * @param k 2進部分のビット数 0 から 63
+     * @return IntCode
+     */
+    public static IntCode rice(int k) {
+        return new Rice(k);
+    }
+
+    /**
+     * 指数 Golomb. k = 0 は gamma と同じ.
+     *
+     * @param k 0 から 62
+     * @return IntCode
+     */
+    public static IntCode expGolomb(int k) {
+        return k == 0 ? GAMMA : new ExpGolomb(k);
+    }
+
+    /**
+     * 1値書く.
+     *
+     * @param out 書き先
+     * @param v 0 以上
+     */
+    public abstract void encode(BitOutput out, long v);
+
+    /**
+     * 1値読む.
+     *
+     * @param in 読み元
+     * @return 値
+     */
+    public abstract long decode(BitInput in);
+
+    /**
+     * 符号のビット長.
+     *
+     * @param v 0 以上
+     * @return ビット長
+     */
+    public abstract int bitLength(long v);
+
+    /**
+     * まとめて書く.
+     *
+     * @param out 書き先
+     * @param src 値
+     * @param offset src の位置
+     * @param count 個数
+     */
+    public void encode(BitOutput out, long[] src, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            encode(out, src[offset + i]);
+        }
+    }
+
+    /**
+     * まとめて書く.
+     *
+     * @param out 書き先
+     * @param src 値
+     * @param offset src の位置
+     * @param count 個数
+     */
+    public void encode(BitOutput out, int[] src, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            encode(out, src[offset + i] & 0xffffffffL);
+        }
+    }
+
+    /**
+     * まとめて読む.
+     *
+     * @param in 読み元
+     * @param dst 読み込み先
+     * @param offset dst の位置
+     * @param count 個数
+     */
+    public void decode(BitInput in, long[] dst, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            dst[offset + i] = decode(in);
+        }
+    }
+
+    /**
+     * まとめて読む.
+     *
+     * @param in 読み元
+     * @param dst 読み込み先
+     * @param offset dst の位置
+     * @param count 個数
+     */
+    public void decode(BitInput in, int[] dst, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            dst[offset + i] = (int) decode(in);
+        }
+    }
+
+    /**
+     * 昇順の列を差分で書く.
+     * 先頭は 0 からの差.
+     *
+     * @param out 書き先
+     * @param sorted 0 以上の昇順 (同じ値可)
+     * @param offset sorted の位置
+     * @param count 個数
+     */
+    public void encodeSorted(BitOutput out, long[] sorted, int offset, int count) {
+        long prev = 0;
+        for (int i = 0; i < count; i++) {
+            long v = sorted[offset + i];
+            encode(out, v - prev);
+            prev = v;
+        }
+    }
+
+    /**
+     * 昇順の列を差分で書く.
+     * encode(int[]) と同じく符号なしとして扱う.
+     *
+     * @param out 書き先
+     * @param sorted 符号なしで昇順 (同じ値可)
+     * @param offset sorted の位置
+     * @param count 個数
+     */
+    public void encodeSorted(BitOutput out, int[] sorted, int offset, int count) {
+        long prev = 0;
+        for (int i = 0; i < count; i++) {
+            long v = sorted[offset + i] & 0xffffffffL;
+            encode(out, v - prev);
+            prev = v;
+        }
+    }
+
+    /**
+     * 差分で書いた昇順の列を読む.
+     *
+     * @param in 読み元
+     * @param dst 読み込み先
+     * @param offset dst の位置
+     * @param count 個数
+     */
+    public void decodeSorted(BitInput in, long[] dst, int offset, int count) {
+        long v = 0;
+        for (int i = 0; i < count; i++) {
+            v += decode(in);
+            dst[offset + i] = v;
+        }
+    }
+
+    /**
+     * 差分で書いた昇順の列を読む.
+     * 符号なしの値を int に入れる.
+     *
+     * @param in 読み元
+     * @param dst 読み込み先
+     * @param offset dst の位置
+     * @param count 個数
+     */
+    public void decodeSorted(BitInput in, int[] dst, int offset, int count) {
+        long v = 0;
+        for (int i = 0; i < count; i++) {
+            v += decode(in);
+            dst[offset + i] = (int) v;
+        }
+    }
+
+    /**
+     * 1進で書く. q 個の 0 と 1.
+     *
+     * @param out 書き先
+     * @param q 0 の数
+     */
+    static void writeUnary(BitOutput out, long q) {
+        while (q > 32) {
+            out.writeBit(0, 32);
+            q -= 32;
+        }
+        out.writeBit(0, (int) q);
+        out.writeBit(1, 1);
+    }
+
+    /**
+     * 1進で読む.
+     * BitReader は溜めの先頭の 0 を数える.
+     *
+     * @param in 読み元
+     * @return 0 の数
+     */
+    static long readUnary(BitInput in) {
+        long q = 0;
+        if (in instanceof BitReader) {
+            BitReader r = (BitReader) in;
+            while (true) {
+                r.refill();
+                if (r.bits == 0) {
+                    throw new java.lang.IndexOutOfBoundsException();
+                }
+                int z = r.zeros();
+                if (z < r.bits) {
+                    r.drop(z + 1);
+                    return q + z;
+                }
+                q += z;
+                r.drop(z);
+            }
+        }
+        if (in instanceof BaseBitPac) {
+            return ((BaseBitPac) in).readUnary();
+        }
+        while (in.readInt(1) == 0) {
+            q++;
+        }
+        return q;
+    }
+
+    /**
+     * 64ビットまで書く. 32ビットを超える分が先.
+     *
+     * @param out 書き先
+     * @param v 値
+     * @param n 0 から 64
+     */
+    static void writeBits(BitOutput out, long v, int n) {
+        if (n > 32) {
+            out.writeBit((int) (v >>> 32), n - 32);
+            n = 32;
+        }
+        out.writeBit((int) v, n);
+    }
+
+    /**
+     * 64ビットまで読む.
+     *
+     * @param in 読み元
+     * @param n 0 から 64
+     * @return 値
+     */
+    static long readBits(BitInput in, int n) {
+        long h = 0;
+        if (n > 32) {
+            h = (in.readInt(n - 32) & 0xffffffffL) << 32;
+            n = 32;
+        }
+        return h | (in.readInt(n) & 0xffffffffL);
+    }
+
+    /**
+     * 最上位ビットの位置.
+     */
+    static int log2(long v) {
+        return 63 - Long.numberOfLeadingZeros(v);
+    }
+
+    static void check(long v) {
+        if (v < 0) {
+            throw new java.lang.IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Golomb-Rice.
+     * v >>> k を1進で、下位 k ビットを2進で書く.
+     */
+    public static class Rice extends IntCode {
+
+        private final int k;
+
+        Rice(int k) {
+            if (k < 0 || k > 63) {
+                throw new java.lang.IllegalArgumentException();
+            }
+            this.k = k;
+        }
+
+        @Override
+        public void encode(BitOutput out, long v) {
+            check(v);
+            writeUnary(out, v >>> k);
+            writeBits(out, v, k);
+        }
+
+        @Override
+        public long decode(BitInput in) {
+            long q = readUnary(in);
+            return (q << k) | readBits(in, k);
+        }
+
+        @Override
+        public int bitLength(long v) {
+            return (int) Math.min(Integer.MAX_VALUE, (v >>> k) + 1 + k);
+        }
+    }
+
+    /**
+     * 指数 Golomb.
+     * w = v + 2^k の最上位ビットまでの桁数 - k を1進で、残りを2進で書く.
+     * k = 0 は Elias gamma.
+     */
+    public static class ExpGolomb extends IntCode {
+
+        private final int k;
+
+        ExpGolomb(int k) {
+            if (k < 0 || k > 62) {
+                throw new java.lang.IllegalArgumentException();
+            }
+            this.k = k;
+        }
+
+        @Override
+        public void encode(BitOutput out, long v) {
+            check(v);
+            long w = v + (1L << k);
+            if (w < 0) {
+                throw new java.lang.IllegalArgumentException();
+            }
+            int n = log2(w);
+            writeUnary(out, n - k);
+            writeBits(out, w, n);
+        }
+
+        @Override
+        public long decode(BitInput in) {
+            int n = (int) readUnary(in) + k;
+            if (n > 62) {
+                throw new java.lang.IllegalStateException();
+            }
+            return ((1L << n) | readBits(in, n)) - (1L << k);
+        }
+
+        @Override
+        public int bitLength(long v) {
+            int n = log2(v + (1L << k));
+            return 2 * n - k + 1;
+        }
+    }
+
+    /**
+     * Elias delta.
+     * v + 1 の桁数を gamma で、最上位ビットを除いた残りを2進で書く.
+     */
+    public static class Delta extends IntCode {
+
+        Delta() {
+        }
+
+        @Override
+        public void encode(BitOutput out, long v) {
+            check(v);
+            long w = v + 1;
+            if (w < 0) {
+                throw new java.lang.IllegalArgumentException();
+            }
+            int n = log2(w);
+            GAMMA.encode(out, n);
+            writeBits(out, w, n);
+        }
+
+        @Override
+        public long decode(BitInput in) {
+            long n = GAMMA.decode(in);
+            if (n > 62) {
+                throw new java.lang.IllegalStateException();
+            }
+            return ((1L << n) | readBits(in, (int) n)) - 1;
+        }
+
+        @Override
+        public int bitLength(long v) {
+            int n = log2(v + 1);
+            return GAMMA.bitLength(n) + n;
+        }
+    }
+}
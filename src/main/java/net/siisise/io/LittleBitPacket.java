@@ -40,8 +40,9 @@ public class LittleBitPacket extends BaseBitPac {
                 throw new java.lang.IndexOutOfBoundsException();
             }
             int ret = 0;
-            int flen = 8 - readPadding;
-            if (bit >= flen) { // そのまま
+            int flen = 0;
+            if (bit >= 8 - readPadding) { // そのまま
+                flen = 8 - readPadding;
                 ret = (int) ((pac.read() >> readPadding) & andMask(flen));
                 bit -= flen;
                 readPadding = 0;
@@ -57,15 +58,15 @@ public class LittleBitPacket extends BaseBitPac {
                 bit -= len * 8;
             }
             if (bit > 0) { // bit = 1～7 ビット構造で異なる
-                int d = (int) (((pac.read() >> readPadding) & andMask(bit)) << flen);
+                int c = pac.read();
+                int d = (int) (((c >> readPadding) & andMask(bit)) << flen);
                 readPadding += bit;
                 ret |= d;
                 if (pac.length() == 0 && readPadding + writePadding == 8) {
                     readPadding = 0;
                     writePadding = 0;
                 } else {
-                    d &= andMask(8 - readPadding) << bit;
-                    pac.backWrite(d);
+                    pac.backWrite(c & (0xff << readPadding));
                 }
             }
             return ret;
@@ -492,6 +493,16 @@ public class LittleBitPacket extends BaseBitPac {
         backOut = new BackLittleBitOutputStream();
     }
 
+    @Override
+    protected BitReader bitReader(byte[] data) {
+        return BitReader.little(data);
+    }
+
+    @Override
+    protected BitWriter bitWriter(Output out) {
+        return BitWriter.little(out);
+    }
+
     @Override
     public LittleBitPacket readPacket(long length) {
         LittleBitPacket lp = new LittleBitPacket();
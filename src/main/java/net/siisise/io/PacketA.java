@@ -15,6 +15,8 @@
  */
 package net.siisise.io;
 
+import java.util.Arrays;
+
 /**
  * First In First Out Stream Packet.
  * 参照型リストのようなもの
@@ -40,6 +42,15 @@ public class PacketA extends BasePacket {
          * 実質サイズ
          */
         int length;
+        /**
+         * data を借りた pool. dwrite で受け取った配列は null で返さない.
+         * 別の PacketA に移っても借りた先に返す.
+         */
+        ChunkPool pool;
+        /**
+         * data が dwrite で受け取った配列. 書き換えない.
+         */
+        boolean shared;
 
         private PacketIn() { // NULLPACK
             offset = 0;
@@ -47,13 +58,23 @@ public class PacketA extends BasePacket {
         }
 
         private PacketIn(byte[] data) {
+            this(data, 0, data.length);
+        }
+
+        private PacketIn(byte[] data, int offset, int length) {
             this.data = data;
-            offset = 0;
-            length = data.length;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        final PacketIn addPrev(byte[] data) {
+            return addPrev(data, 0, data.length);
         }
 
-        final void addPrev(byte[] data) {
-            excPrev(new PacketIn(data));
+        final PacketIn addPrev(byte[] data, int offset, int length) {
+            PacketIn pac = new PacketIn(data, offset, length);
+            excPrev(pac);
+            return pac;
         }
 
         /**
@@ -96,6 +117,27 @@ public class PacketA extends BasePacket {
 
     private final PacketIn nullPack = new PacketIn();
 
+    /**
+     * 配列の再利用先. null のときは使わない.
+     */
+    private final ChunkPool pool;
+
+    /**
+     * read方向の全長.
+     * length(), readable() を辿らずに返す.
+     */
+    private long length;
+
+    /**
+     * get/put 用の PacketIn 位置索引.
+     * 並びや長さが変わったら null にして作り直す.
+     */
+    private PacketIn[] chunks;
+    /**
+     * chunks の各先頭位置.
+     */
+    private long[] chunkOffsets;
+
     /*
      * ちょっと違うので分けたい (未使用?)
      */
@@ -116,12 +158,60 @@ public class PacketA extends BasePacket {
      * Input / Output を中で持つので手軽に使える.
      */
     public PacketA() {
+        pool = null;
+    }
+
+    /**
+     * 配列を pool から借りて、読み終わったら返す.
+     * @param pool 再利用先 null のときは使わない
+     */
+    public PacketA(ChunkPool pool) {
+        this.pool = pool;
     }
 
     public PacketA(byte[] b) {
+        pool = null;
         write(b);
     }
 
+    private byte[] alloc(int length) {
+        return pool == null ? new byte[length] : pool.alloc(length);
+    }
+
+    /**
+     * alloc した配列を持つ PacketIn の印.
+     * @param n alloc した配列の PacketIn
+     * @return n
+     */
+    private PacketIn pooled(PacketIn n) {
+        n.pool = pool;
+        n.shared = false;
+        return n;
+    }
+
+    /**
+     * 借りた先に配列を返す.
+     * @param n 使い終わった PacketIn
+     */
+    private static void release(PacketIn n) {
+        if (n.pool != null) {
+            n.pool.release(n.data);
+            n.pool = null;
+        }
+    }
+
+    /**
+     * 輪から外した PacketIn をまとめて返す.
+     * @param n 切り離した輪
+     */
+    private static void releaseRing(PacketIn n) {
+        PacketIn c = n;
+        do {
+            release(c);
+            c = c.next;
+        } while (c != n);
+    }
+
     @Override
     public int read(byte[] b, int offset, int length) {
         int len = length;
@@ -131,6 +221,7 @@ public class PacketA extends BasePacket {
                 len -= n.length;
                 offset += n.length;
                 n.delete(); // Javaのgc的には分けて消す方がいいのかどうか
+                release(n);
             } else {
                 System.arraycopy(n.data, n.offset, b, offset, len);
                 n.length -= len;
@@ -138,35 +229,45 @@ public class PacketA extends BasePacket {
 
                 if ( n.length < 1000 ) {
                     if ( n.next != nullPack ) {
-                        if ( n.next.offset >= n.length ) {
+                        if ( n.next.offset >= n.length && !n.next.shared ) {
                             System.arraycopy(n.data, n.offset, n.next.data, n.next.offset - n.length, n.length);
                             n.next.offset -= n.length;
                             n.next.length += n.length;
                             n.delete(); // 分けて消す場合
+                            release(n);
 //                            n = n.next;
                         } else if ( n.length + n.next.length < 500 ) {
-                            byte[] d = new byte[n.length + n.next.length];
+                            byte[] d = alloc(n.length + n.next.length);
                             System.arraycopy(n.data, n.offset, d, 0, n.length);
                             System.arraycopy(n.next.data, n.next.offset, d, n.length, n.next.length);
                             n.length += n.next.length;
                             n.offset = 0;
+                            release(n);
                             n.data = d;
+                            pooled(n);
+                            release(n.next);
                             n.next.delete(); // 分けて消す場合
 //                            n = n.next;
                         }
-                    } else {
-                        byte[] d = new byte[n.length];
-                        System.arraycopy(n.data, n.offset, d, 0, d.length);
+                    } else if ( pool == null || n.data.length > ChunkPool.SIZES[0] ) { // 小さい区分なら詰め直さない
+                        byte[] d = alloc(n.length);
+                        System.arraycopy(n.data, n.offset, d, 0, n.length);
+                        release(n);
                         n.data = d;
+                        pooled(n);
                         n.offset = 0;
                     }
                 }
 //                n.excPrev(nullPack.next); // まとめて消える
+                this.length -= length;
+                chunks = null;
                 return length;
             }
         }
 //        mode = Mode.EOF;
         nullPack.excPrev(nullPack.next);
+        this.length = 0;
+        chunks = null;
         return length - len;
     }
 
@@ -188,12 +289,24 @@ public class PacketA extends BasePacket {
             } else {
                 n.length -= len;
                 System.arraycopy(n.data, n.offset + n.length, b, offset, len);
-                n.next.excPrev(nullPack);
+                PacketIn c = n.next;
+                if (c != nullPack) {
+                    c.excPrev(nullPack);
+                    releaseRing(c);
+                }
+                this.length -= length;
+                chunks = null;
                 return length;
             }
         }
 //            mode = Mode.EOF;
-        nullPack.excPrev(nullPack.next);
+        PacketIn c = nullPack.next;
+        if (c != nullPack) {
+            nullPack.excPrev(c);
+            releaseRing(c);
+        }
+        this.length = 0;
+        chunks = null;
         return length - len;
     }
 
@@ -209,9 +322,14 @@ public class PacketA extends BasePacket {
                 byte[] d = pac.toByteArray();
                 write(d,0,d.length);
             } else {
-                PacketIn an = ((PacketA)pac).nullPack;
+                PacketA src = (PacketA)pac;
+                PacketIn an = src.nullPack;
                 nullPack.excPrev(an);
                 an.excPrev(an.next); // an を nullPack のみにする
+                length += len;
+                chunks = null;
+                src.length = 0;
+                src.chunks = null;
             }
             return len;
         } else {
@@ -228,10 +346,15 @@ public class PacketA extends BasePacket {
     @Override
     public long backWrite(RevInput pac) {
         if (pac instanceof PacketA) {
-            long len = pac.backLength();
-            PacketIn an = ((PacketA)pac).nullPack;
+            PacketA src = (PacketA)pac;
+            long len = src.backLength();
+            PacketIn an = src.nullPack;
             nullPack.next.excPrev(an);
             an.excPrev(an.next); // an を nullPack のみにする
+            length += len;
+            chunks = null;
+            src.length = 0;
+            src.chunks = null;
             return len;
         } else {
             return RevOutput.backWrite(this, pac, pac.backLength());
@@ -267,14 +390,18 @@ public class PacketA extends BasePacket {
     @Override
     public void write(byte[] src, int offset, int length) {
         PacketIn pp = nullPack.prev;
+        this.length += length;
+        chunks = null;
 
         if ( pp != nullPack && pp.length + length > pp.data.length && pp.data.length + length < 1000 ) {
-            byte[] d = new byte[pp.data.length + length + 32];
+            byte[] d = alloc(pp.data.length + length + 32);
             System.arraycopy(pp.data, pp.offset, d, 0, pp.length);
+            release(pp);
             pp.data = d;
+            pooled(pp);
             pp.offset = 0;
         }
-        if (pp != nullPack && length > 0 && pp.offset + pp.length < pp.data.length ) {
+        if (pp != nullPack && length > 0 && pp.offset + pp.length < pp.data.length && !pp.shared ) {
             int min = Math.min(length, pp.data.length - pp.offset - pp.length );
             System.arraycopy(src, offset, pp.data, pp.offset + pp.length, min);
             pp.length += min;
@@ -282,21 +409,37 @@ public class PacketA extends BasePacket {
             offset += min;
         }
         while (length > 0) {
-            byte[] d = new byte[Math.min(length, MAXLENGTH)];
-            System.arraycopy(src, offset, d, 0, d.length);
-            nullPack.addPrev(d);
-            length -= d.length;
-            offset += d.length;
+            int len = Math.min(length, MAXLENGTH);
+            byte[] d = alloc(len);
+            System.arraycopy(src, offset, d, 0, len);
+            pooled(nullPack.addPrev(d, 0, len));
+            length -= len;
+            offset += len;
         }
     }
 
     /**
      * 直書き.
+     * d は複製せずに持つが書き換えない. put などは複製してから書く.
      * @param d データ領域
      */
     @Override
     public void dwrite(byte[] d) {
-        nullPack.addPrev(d);        
+        nullPack.addPrev(d).shared = true;
+        length += d.length;
+        chunks = null;
+    }
+
+    /**
+     * pool から借りた配列を複製せずに足す.
+     * 読み終わったら pool に返す.
+     * @param d pool の配列
+     * @param length 使った長さ
+     */
+    void pwrite(byte[] d, int length) {
+        pooled(nullPack.addPrev(d, 0, length));
+        this.length += length;
+        chunks = null;
     }
 
     /**
@@ -308,49 +451,52 @@ public class PacketA extends BasePacket {
     @Override
     public void backWrite(byte[] src, int offset, int length) {
         PacketIn nn = nullPack.next;
+        this.length += length;
+        chunks = null;
 
         if ( nn != nullPack && nn.length + length > nn.data.length && nn.data.length + length < 1024 ) {
-            byte[] d = new byte[nn.data.length + length + 32];
+            byte[] d = alloc(nn.data.length + length + 32);
             System.arraycopy(nn.data, nn.offset, d, d.length - nn.length, nn.length);
             nn.offset = d.length - nn.length;
+            release(nn);
             nn.data = d;
+            pooled(nn);
         }
-        if (length > 0 && nn.offset >= length) { // 空いているところに詰め込むことにしてみたり nullPackはoffset 0なので判定しなくて問題ない
+        if (length > 0 && nn.offset >= length && !nn.shared) { // 空いているところに詰め込むことにしてみたり nullPackはoffset 0なので判定しなくて問題ない
             System.arraycopy(src, offset, nn.data, nn.offset - length, length);
             nn.offset -= length;
             nn.length += length;
             return;
         }
         while (length > 0) {
-            byte[] d = new byte[Math.min(length, MAXLENGTH)];
-            System.arraycopy(src, offset, d, 0, d.length);
-            nn.addPrev(d);
-            length -= d.length;
-            offset += d.length;
+            int len = Math.min(length, MAXLENGTH);
+            byte[] d = alloc(len);
+            System.arraycopy(src, offset, d, d.length - len, len); // 前に詰められるよう後ろに置く
+            pooled(nn.addPrev(d, d.length - len, len));
+            length -= len;
+            offset += len;
         }
     }
 
     /**
      * 直逆書き.
+     * d は複製せずに持つが書き換えない.
      * @param d データ領域
      */
     @Override
     public void dbackWrite(byte[] d) {
-        nullPack.next.addPrev(d);
+        nullPack.next.addPrev(d).shared = true;
+        length += d.length;
+        chunks = null;
     }
 
     /**
      * read方向の長さ.
+     * 書き込み、読み込み時に数えておいたもの.
      * @return 残りサイズ
      */
     @Override
     public long length() {
-        long length = 0;
-        PacketIn pc = nullPack.next;
-        while (pc != nullPack) {
-            length += pc.length;
-            pc = pc.next;
-        }
         return length;
     }
 
@@ -361,12 +507,7 @@ public class PacketA extends BasePacket {
      */
     @Override
     public boolean readable(long size) {
-        PacketIn pc = nullPack.next;
-        while (pc != nullPack && size > 0) {
-            size -= pc.length;
-            pc = pc.next;
-        }
-        return size <= 0;
+        return length >= size;
     }
     
     @Override
@@ -380,24 +521,29 @@ public class PacketA extends BasePacket {
     @Override
     public void flush() {
         PacketIn nn;
+        chunks = null;
         //if ( nullPack.next == nullPack ) return;
         for (nn = nullPack.next; nn != nullPack && nn.next != nullPack; nn = nn.next) {
             PacketIn nx = nn.next;
             if ( nx != nullPack && nn.data.length + nx.data.length < 1024 ) {
-                byte[] d = new byte[nn.length + nx.length];
+                byte[] d = alloc(nn.length + nx.length);
                 System.arraycopy(nn.data, nn.offset, d, 0, nn.length);
                 System.arraycopy(nx.data, nx.offset, d, nn.length, nx.length);
-                nx.excPrev(new PacketIn(d));
+                nx.excPrev(pooled(new PacketIn(d, 0, nn.length + nx.length)));
                 nx.delete();
                 nn.delete();
-            } else if ( nn.length < nn.next.offset ) {
+                release(nx);
+                release(nn);
+            } else if ( nn.length < nn.next.offset && !nn.next.shared ) {
                 System.arraycopy(nn.data, nn.offset, nn.next.data, nn.next.offset - nn.length, nn.length);
                 nn.next.offset -= nn.length;
                 nn.next.length += nn.length;
                 nn.delete();
-            } else if ( nn.data.length > nn.offset + nn.length + nn.next.length ) {
+                release(nn);
+            } else if ( nn.data.length > nn.offset + nn.length + nn.next.length && !nn.shared ) {
                 System.arraycopy(nn.next.data, nn.next.offset, nn.data, nn.offset + nn.length, nn.next.length);
                 nn.length += nn.next.length;
+                release(nn.next);
                 nn.next.delete();
             }
         }
@@ -413,7 +559,7 @@ public class PacketA extends BasePacket {
     @Override
     public PacketA readPacket(long length) {
         long limit = length;
-        PacketA newPac = new PacketA();
+        PacketA newPac = new PacketA(pool);
         PacketIn n; // read 方向
         for ( n = nullPack.next; n != nullPack && n.length <= limit; n = n.next ) {
             limit -= n.length;
@@ -423,6 +569,10 @@ public class PacketA extends BasePacket {
             PacketIn c = nullPack.next; // c = 新データの頭
             n.excPrev(c);
             newPac.nullPack.excPrev(c);
+            long moved = length - limit;
+            this.length -= moved;
+            newPac.length = moved;
+            chunks = null;
         }
 
         if ( limit > 0 ) {
@@ -442,7 +592,7 @@ public class PacketA extends BasePacket {
     @Override
     public PacketA backReadPacket(long length) {
         long limit = length;
-        PacketA newPac = new PacketA();
+        PacketA newPac = new PacketA(pool);
         PacketIn n = nullPack.prev; // write 方向
         while ( n != nullPack && n.length <= limit ) {
             limit -= n.length;
@@ -453,6 +603,10 @@ public class PacketA extends BasePacket {
             PacketIn c = n.next; // c = 新データの頭
             nullPack.excPrev(c);
             newPac.nullPack.excPrev(c);
+            long moved = length - limit;
+            this.length -= moved;
+            newPac.length = moved;
+            chunks = null;
         }
 
         if ( limit > 0 ) {
@@ -470,8 +624,10 @@ public class PacketA extends BasePacket {
      */
     @Override
     public long skip(long length) {
-        Packet p = readPacket(length);
-        return p.length();
+        PacketA p = readPacket(length);
+        long len = p.length();
+        p.recycle();
+        return len;
     }
 
     /**
@@ -481,12 +637,101 @@ public class PacketA extends BasePacket {
      */
     @Override
     public long back(long length) {
-        Packet p = backReadPacket(length);
-        return p.length();
+        PacketA p = backReadPacket(length);
+        long len = p.length();
+        p.recycle();
+        return len;
+    }
+
+    /**
+     * 中身を捨てて配列を pool に返す.
+     */
+    private void recycle() {
+        PacketIn c = nullPack.next;
+        if (c != nullPack) {
+            nullPack.excPrev(c);
+            releaseRing(c);
+        }
+        length = 0;
+        chunks = null;
+    }
+
+    /**
+     * index を含む PacketIn の chunks 上の位置.
+     * 索引がなければ作る.
+     * @param index 0 以上 length 未満
+     * @return chunks の位置
+     */
+    private int chunkAt(long index) {
+        if (chunks == null) {
+            int count = 0;
+            for (PacketIn n = nullPack.next; n != nullPack; n = n.next) {
+                count++;
+            }
+            PacketIn[] cs = new PacketIn[count];
+            long[] offsets = new long[count];
+            long p = 0;
+            count = 0;
+            for (PacketIn n = nullPack.next; n != nullPack; n = n.next) {
+                cs[count] = n;
+                offsets[count++] = p;
+                p += n.length;
+            }
+            chunks = cs;
+            chunkOffsets = offsets;
+        }
+        int i = Arrays.binarySearch(chunkOffsets, index);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * index の位置で PacketIn を分ける.
+     * 短い側を複製するので配列の共有はしない.
+     * 索引は使わず近い端から辿る.
+     * @param index 0 以上 length 以下
+     * @return index から始まる PacketIn, 末尾のときは nullPack
+     */
+    private PacketIn splitAt(long index) {
+        PacketIn n;
+        long p; // n の先頭位置
+        if (index <= length / 2) {
+            n = nullPack.next;
+            p = 0;
+            while (n != nullPack && p + n.length <= index) {
+                p += n.length;
+                n = n.next;
+            }
+        } else {
+            n = nullPack;
+            p = length;
+            while (p > index) {
+                n = n.prev;
+                p -= n.length;
+            }
+        }
+        if (p == index) {
+            return n;
+        }
+        chunks = null;
+        int o = (int) (index - p);
+        if (o <= n.length - o) { // 前を分ける
+            byte[] d = alloc(o);
+            System.arraycopy(n.data, n.offset, d, 0, o);
+            pooled(n.addPrev(d, 0, o));
+            n.offset += o;
+            n.length -= o;
+            return n;
+        }
+        int len = n.length - o;
+        byte[] d = alloc(len);
+        System.arraycopy(n.data, n.offset + o, d, 0, len);
+        n.length = o;
+        return pooled(n.next.addPrev(d, 0, len));
     }
 
     /**
      * 読んだところは消えない.
+     * 分割はせずに索引から探す.
      * @param index 位置
      * @param b データ
      * @param offset データ位置
@@ -495,21 +740,27 @@ public class PacketA extends BasePacket {
      */
     @Override
     public PacketA get(long index, byte[] b, int offset, int length) {
-        long pl = length();
-        if ( !readable(length)) {
+        if ( index < 0 || index + length > this.length ) {
             throw new java.nio.BufferOverflowException();
         }
-        PacketA bb = backReadPacket(pl - index - length);
-        PacketA t = backReadPacket(length);
-        t.read(b, offset, length);
-        write(b, offset, length);
-        write(bb);
-
+        if ( length > 0 ) {
+            int i = chunkAt(index);
+            int o = (int) (index - chunkOffsets[i]);
+            while ( length > 0 ) {
+                PacketIn n = chunks[i++];
+                int s = Math.min(n.length - o, length);
+                System.arraycopy(n.data, n.offset + o, b, offset, s);
+                offset += s;
+                length -= s;
+                o = 0;
+            }
+        }
         return this;
     }
 
     /**
-     * 上書き overwrite
+     * 上書き overwrite.
+     * 末尾を超える分は追加する.
      * @param index 位置
      * @param b データ
      * @param offset データ位置
@@ -517,10 +768,34 @@ public class PacketA extends BasePacket {
      */
     @Override
     public void put(long index, byte[] b, int offset, int length) {
-        PacketA bb = backReadPacket(length() - index);
-        bb.readPacket(length);
-        bb.backWrite(b, offset, length);
-        write(bb);
+        if ( index < 0 ) {
+            throw new java.nio.BufferOverflowException();
+        }
+        int over = (int) Math.max(0, Math.min(length, this.length - index));
+        if ( over > 0 ) {
+            int i = chunkAt(index);
+            int o = (int) (index - chunkOffsets[i]);
+            int len = over;
+            int off = offset;
+            while ( len > 0 ) {
+                PacketIn n = chunks[i++];
+                if (n.shared) { // dwrite の配列は複製してから書く
+                    byte[] d = alloc(n.length);
+                    System.arraycopy(n.data, n.offset, d, 0, n.length);
+                    n.data = d;
+                    n.offset = 0;
+                    pooled(n);
+                }
+                int s = Math.min(n.length - o, len);
+                System.arraycopy(b, off, n.data, n.offset + o, s);
+                off += s;
+                len -= s;
+                o = 0;
+            }
+        }
+        if ( over < length ) {
+            write(b, offset + over, length - over);
+        }
     }
 
     /**
@@ -532,9 +807,20 @@ public class PacketA extends BasePacket {
      */
     @Override
     public void add(long index, byte[] b, int offset, int length) {
-        PacketA bb = backReadPacket(length() - index);
-        write(b, offset, length);
-        write(bb);
+        if ( index < 0 ) {
+            throw new java.nio.BufferOverflowException();
+        }
+        PacketIn n = splitAt(Math.min(index, this.length));
+        this.length += length;
+        chunks = null;
+        while (length > 0) {
+            int len = Math.min(length, MAXLENGTH);
+            byte[] d = alloc(len);
+            System.arraycopy(b, offset, d, 0, len);
+            pooled(n.addPrev(d, 0, len));
+            length -= len;
+            offset += len;
+        }
     }
 
     /**
@@ -544,9 +830,17 @@ public class PacketA extends BasePacket {
      */
     @Override
     public void del(long index, long length) {
-        PacketA bb = backReadPacket(length() - index - length);
-        backReadPacket(length);
-        write(bb);
+        if ( index < 0 || length < 0 || index + length > this.length ) {
+            throw new java.nio.BufferOverflowException();
+        }
+        PacketIn e = splitAt(index + length);
+        PacketIn s = splitAt(index);
+        if ( s != e ) {
+            e.excPrev(s); // s から e の手前までを輪から外す
+            releaseRing(s);
+            this.length -= length;
+            chunks = null;
+        }
     }
 
     /**
@@ -559,9 +853,8 @@ public class PacketA extends BasePacket {
      */
     @Override
     public PacketA del(long index, byte[] b, int offset, int length) {
-        PacketA bb = backReadPacket(length() - index - length);
-        backRead(b, offset, length);
-        write(bb);
+        get(index, b, offset, length);
+        del(index, length);
         return this;
     }
 }
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+/**
+ * 符号長から作る正規ハフマン符号 (canonical prefix code).
+ * DEFLATE, HPACK などの符号表に使う.
+ * 短い符号ほど小さい値、同じ長さでは記号順に割り当てる.
+ *
+ * 復号は rootBits ビットの表と、それより長い符号のための SUBBITS ビットまでの
+ * 2段目以降の表を引く. 表の大きさは符号の数程度に収まる.
+ * BitReader からは溜めの先読みで、DEFLATE の符号なら1回か2回の表引きになる.
+ * その他の BitInput からは1ビットずつ読む.
+ *
+ * Big は BigBitPacket と同じ符号の上位ビットから、
+ * Little は LittleBitPacket (DEFLATE) と同じく符号の上位ビットを下位ビット側から詰める.
+ */
+public class PrefixCode {
+
+    /**
+     * 符号長の上限.
+     */
+    public static final int MAXBITS = 32;
+    /**
+     * 1段目の表のビット数.
+     */
+    static final int ROOTBITS = 9;
+    /**
+     * 2段目以降の表のビット数の上限.
+     */
+    static final int SUBBITS = 7;
+
+    static final int LEN = 0x3f;
+    static final int SUB = 0x40;
+    static final int VAL = 7;
+
+    private final boolean big;
+    private final int[] lengths;
+    /**
+     * 正規符号.
+     */
+    private final int[] codes;
+    /**
+     * 書く形の符号. Little では反転.
+     */
+    private final int[] outCodes;
+
+    /**
+     * 1ビットずつ復号する用.
+     * 符号長毎の数と長さ順の記号.
+     */
+    private final int[] count;
+    private final int[] sorted;
+    private final int maxBits;
+
+    /**
+     * 表.
+     * 下位6ビットが符号長 (次の段へは次の表のビット数), SUB が次の段, VAL ビット目から記号か次の表の位置.
+     */
+    final int[] table;
+    /**
+     * 作るときの table の使用量.
+     */
+    private int tableSize;
+    private final int rootBits;
+
+    /**
+     * 符号長から作る.
+     *
+     * @param lengths 記号毎の符号長 0 は使わない記号
+     * @param big BigBitPacket の並び
+     */
+    public PrefixCode(int[] lengths, boolean big) {
+        this.big = big;
+        this.lengths = lengths.clone();
+        count = new int[MAXBITS + 1];
+        int max = 0;
+        for (int len : lengths) {
+            if (len < 0 || len > MAXBITS) {
+                throw new java.lang.IllegalArgumentException();
+            }
+            count[len]++;
+            max = Math.max(max, len);
+        }
+        count[0] = 0;
+        maxBits = max;
+        long left = 1;
+        for (int len = 1; len <= max; len++) {
+            left = (left << 1) - count[len];
+            if (left < 0) { // 符号が多すぎる
+                throw new java.lang.IllegalArgumentException();
+            }
+        }
+
+        // 正規符号の割り当て
+        int[] next = new int[max + 2];
+        int[] offs = new int[max + 2];
+        long code = 0;
+        for (int len = 1; len <= max; len++) {
+            code = (code + count[len - 1]) << 1;
+            next[len] = (int) code;
+            offs[len + 1] = offs[len] + count[len];
+        }
+        codes = new int[lengths.length];
+        outCodes = new int[lengths.length];
+        sorted = new int[offs[max + 1]];
+        for (int s = 0; s < lengths.length; s++) {
+            int len = lengths[s];
+            if (len > 0) {
+                codes[s] = next[len]++;
+                outCodes[s] = big ? codes[s] : reverse(codes[s], len);
+                sorted[offs[len]++] = s;
+            }
+        }
+
+        rootBits = Math.min(max, ROOTBITS);
+        work = new int[(1 << rootBits) + 64];
+        build(sorted, sorted.length, 0, rootBits);
+        table = java.util.Arrays.copyOf(work, tableSize);
+        work = null;
+    }
+
+    /**
+     * 上位ビット優先.
+     *
+     * @param lengths 記号毎の符号長
+     * @return PrefixCode
+     */
+    public static PrefixCode big(int... lengths) {
+        return new PrefixCode(lengths, true);
+    }
+
+    /**
+     * 下位ビット優先. DEFLATE の並び.
+     *
+     * @param lengths 記号毎の符号長
+     * @return PrefixCode
+     */
+    public static PrefixCode little(int... lengths) {
+        return new PrefixCode(lengths, false);
+    }
+
+    /**
+     * 下位 n ビットの反転.
+     *
+     * @param v 値
+     * @param n 0 から 32
+     * @return 反転した値
+     */
+    static int reverse(int v, int n) {
+        return n == 0 ? 0 : Integer.reverse(v) >>> (32 - n);
+    }
+
+    /**
+     * 符号の上位ビットから並べた位置を表の位置にする.
+     */
+    private int index(int msb, int n) {
+        return big ? msb : reverse(msb, n);
+    }
+
+    /**
+     * 作りかけの表.
+     */
+    private int[] work;
+
+    private int alloc(int n) {
+        int o = tableSize;
+        tableSize += n;
+        if (tableSize > work.length) {
+            work = java.util.Arrays.copyOf(work, Math.max(tableSize, work.length * 2));
+        }
+        return o;
+    }
+
+    /**
+     * used ビット読んだ後の tb ビットの表を作る.
+     * 収まらない符号は次の tb ビット毎に分けて次の段の表を作る.
+     *
+     * @param syms 符号がこの表の範囲に入る記号
+     * @param n syms の数
+     * @param used 前の段までのビット数
+     * @param tb この表のビット数
+     * @return 表の位置
+     */
+    private int build(int[] syms, int n, int used, int tb) {
+        int base = alloc(1 << tb);
+        int end = used + tb;
+        int[] subMax = new int[1 << tb];
+        int[] subCount = new int[1 << tb];
+        for (int i = 0; i < n; i++) {
+            int s = syms[i];
+            int len = lengths[s];
+            int c = codes[s];
+            if (len <= end) {
+                int rest = c & ((1 << (len - used)) - 1);
+                int fill = 1 << (end - len);
+                int e = (s << VAL) | len;
+                for (int k = 0; k < fill; k++) {
+                    work[base + index((rest << (end - len)) | k, tb)] = e;
+                }
+            } else {
+                int q = (c >>> (len - end)) & ((1 << tb) - 1);
+                subMax[q] = Math.max(subMax[q], len - end);
+                subCount[q]++;
+            }
+        }
+        for (int q = 0; q < subCount.length; q++) {
+            if (subCount[q] > 0) {
+                int[] sub = new int[subCount[q]];
+                int m = 0;
+                for (int i = 0; i < n; i++) {
+                    int s = syms[i];
+                    int len = lengths[s];
+                    if (len > end && ((codes[s] >>> (len - end)) & ((1 << tb) - 1)) == q) {
+                        sub[m++] = s;
+                    }
+                }
+                int sb = Math.min(subMax[q], SUBBITS);
+                int o = build(sub, m, end, sb);
+                work[base + index(q, tb)] = (o << VAL) | SUB | sb;
+            }
+        }
+        return base;
+    }
+
+    /**
+     * 先読み. 終わり近くでは足りない分を 0 で詰める.
+     */
+    private int look(BitReader r, int n) {
+        if (r.bits < n) {
+            r.refill();
+            if (r.bits < n) {
+                int v = r.peekBits(r.bits);
+                return big ? v << (n - r.bits) : v;
+            }
+        }
+        return r.peekBits(n);
+    }
+
+    /**
+     * 1記号読む.
+     *
+     * @param r 読み元
+     * @return 記号
+     */
+    public int decode(BitReader r) {
+        int e = table[look(r, rootBits)];
+        int used = rootBits;
+        while ((e & SUB) != 0) {
+            int sb = e & LEN;
+            int v = look(r, used + sb);
+            e = table[(e >>> VAL) + (big ? v & ((1 << sb) - 1) : v >>> used)];
+            used += sb;
+        }
+        int len = e & LEN;
+        if (len == 0 || len > r.bits) { // 該当する符号がない
+            throw new java.lang.IllegalStateException();
+        }
+        r.drop(len);
+        return e >>> VAL;
+    }
+
+    /**
+     * まとめて読む.
+     *
+     * @param r 読み元
+     * @param dst 記号の書き込み先
+     * @param offset dst の位置
+     * @param count 個数
+     */
+    public void decode(BitReader r, int[] dst, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            dst[offset + i] = decode(r);
+        }
+    }
+
+    /**
+     * 1記号読む.
+     * BitReader 以外は1ビットずつ読む.
+     *
+     * @param in 読み元
+     * @return 記号
+     */
+    public int decode(BitInput in) {
+        if (in instanceof BitReader) {
+            return decode((BitReader) in);
+        }
+        long code = 0;
+        long first = 0;
+        int index = 0;
+        for (int len = 1; len <= maxBits; len++) {
+            code |= in.readInt(1);
+            int c = count[len];
+            if (code - first < c) {
+                return sorted[index + (int) (code - first)];
+            }
+            index += c;
+            first = (first + c) << 1;
+            code <<= 1;
+        }
+        throw new java.lang.IllegalStateException();
+    }
+
+    /**
+     * 1記号書く.
+     *
+     * @param out 書き先
+     * @param symbol 記号
+     */
+    public void encode(BitOutput out, int symbol) {
+        int len = lengths[symbol];
+        if (len == 0) {
+            throw new java.lang.IllegalArgumentException();
+        }
+        out.writeBit(outCodes[symbol], len);
+    }
+
+    /**
+     * まとめて書く.
+     *
+     * @param out 書き先
+     * @param symbols 記号
+     * @param offset symbols の位置
+     * @param count 個数
+     */
+    public void encode(BitOutput out, int[] symbols, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            encode(out, symbols[offset + i]);
+        }
+    }
+
+    /**
+     * 符号長.
+     *
+     * @param symbol 記号
+     * @return ビット数 0 は符号なし
+     */
+    public int length(int symbol) {
+        return lengths[symbol];
+    }
+
+    /**
+     * 正規符号.
+     * 上位ビットから読む値.
+     *
+     * @param symbol 記号
+     * @return 符号
+     */
+    public int code(int symbol) {
+        return codes[symbol];
+    }
+
+    /**
+     * 記号の数.
+     *
+     * @return 符号長の配列の長さ
+     */
+    public int size() {
+        return lengths.length;
+    }
+}
@@ -18,31 +18,83 @@ package net.siisise.io;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
-import net.siisise.lang.CodePoint;
 
 /**
  * StreamFrontPacket の前処理.
  * バイト列が必要な処理系にReader系を繋ぐ
  * InputStreamReaderの逆
- * とりあえずUTF-8出力前提
+ * 標準はUTF-8出力. 他の文字コードは CharsetEncoder で.
+ * char[] 単位でまとめて読んで変換する.
+ * 変換先は使い回す配列で、そのまま pac に渡す.
  * 100文字程度読んでおく
  */
 public class ReaderInputStream extends InputStream {
 
-    final PacketA pac = new PacketA();
-    char[] pair;
+    /**
+     * 1回に読む文字数.
+     */
+    static final int CHARS = 0x1000;
+    /**
+     * これより短い変換結果は pac に複製して配列は使い回す.
+     */
+    private static final int SMALL = 0x400;
+
+    /**
+     * 変換先の配列. 読み終わったら戻る.
+     */
+    final ChunkPool pool = new ChunkPool(2, 0);
+    final PacketA pac = new PacketA(pool);
     Reader rd;
     final int bufferSize;
 
+    private final char[] cbuf = new char[CHARS];
+    /**
+     * cbuf 先頭の前回の残り. 分かれたサロゲートなど.
+     */
+    private int left;
+    /**
+     * 変換先の大きさ.
+     */
+    private final int outSize;
+    /**
+     * UTF-8 以外のとき.
+     */
+    private final CharsetEncoder encoder;
+
     public ReaderInputStream(Reader r) {
-        rd = r;
-        bufferSize = 100;
+        this(r, 100);
     }
 
     public ReaderInputStream(Reader r, int size) {
+        this(r, size, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 文字コードを指定する.
+     *
+     * @param r 元
+     * @param size 先に読んでおく目安
+     * @param cs 出力の文字コード
+     */
+    public ReaderInputStream(Reader r, int size, Charset cs) {
         rd = r;
         bufferSize = size;
+        if (cs.equals(StandardCharsets.UTF_8)) {
+            encoder = null;
+            outSize = CHARS * 3 + 1;
+        } else {
+            encoder = cs.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            outSize = (int) Math.ceil(CHARS * (double) encoder.maxBytesPerChar()) + 16;
+        }
     }
 
     private void cacheIn() throws IOException {
@@ -51,47 +103,145 @@ public class ReaderInputStream extends InputStream {
         }
     }
 
+    /**
+     * まとめて読んで変換する.
+     * 読めるまで待つ.
+     *
+     * @throws IOException
+     */
     private void buffering() throws IOException {
         if (rd == null) {
             return;
         }
-        int ch = rd.read();
-        if (ch < 0) {
+        int n = rd.read(cbuf, left, cbuf.length - left);
+        boolean eof = n < 0;
+        int len = left + Math.max(n, 0);
+        byte[] out = pool.alloc(outSize);
+        int o;
+        if (encoder == null) {
+            o = utf8(len, eof, out);
+        } else {
+            o = encode(len, eof, out);
+        }
+        if (o < SMALL) {
+            pac.write(out, 0, o);
+            pool.release(out);
+        } else {
+            pac.pwrite(out, o);
+        }
+        if (eof) {
             close();
-            return;
         }
-        if (ch >= 0xd800 && ch <= 0xdbff) {
-            if (pair != null) {
-                ch = pair[0];
-                byte[] bytes = CodePoint.utf8(ch);
-                pac.write(bytes);
-            }
-            pair = new char[]{(char) ch, 0};
-            buffering();
-        } else if (ch >= 0xdc00 && ch <= 0xdfff) {
-            byte[] bytes;
-            if (pair != null) {
-                pair[1] = (char) ch;
-                bytes = String.valueOf(pair).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * UTF-8 にする.
+     * 末尾の上位サロゲートは次回に回す.
+     * 対にならないサロゲートはそのまま3バイトにする.
+     *
+     * @param len cbuf の長さ
+     * @param eof 終わり
+     * @param b 変換先
+     * @return 変換したバイト数
+     */
+    private int utf8(int len, boolean eof, byte[] b) {
+        char[] c = cbuf;
+        int p = 0;
+        int i = 0;
+        left = 0;
+        while (i < len) {
+            char ch = c[i++];
+            if (ch < 0x80) {
+                b[p++] = (byte) ch;
+                while (i < len && (ch = c[i]) < 0x80) { // ASCII はまとめて
+                    b[p++] = (byte) ch;
+                    i++;
+                }
+            } else if (ch < 0x800) {
+                b[p++] = (byte) (0xc0 | (ch >> 6));
+                b[p++] = (byte) (0x80 | (ch & 0x3f));
+            } else if (Character.isHighSurrogate(ch) && i < len && Character.isLowSurrogate(c[i])) {
+                int cp = Character.toCodePoint(ch, c[i++]);
+                b[p++] = (byte) (0xf0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                b[p++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isHighSurrogate(ch) && i == len && !eof) {
+                c[0] = ch;
+                left = 1;
             } else {
-                bytes = CodePoint.utf8(ch);
+                b[p++] = (byte) (0xe0 | (ch >> 12));
+                b[p++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+                b[p++] = (byte) (0x80 | (ch & 0x3f));
             }
-            pac.write(bytes);
-        } else {
-            pair = null;
-            byte[] bytes = CodePoint.utf8(ch);
-            pac.write(bytes);
         }
+        return p;
+    }
+
+    /**
+     * CharsetEncoder で変換する.
+     * 変換しきれなかった文字は次回に回す.
+     *
+     * @param len cbuf の長さ
+     * @param eof 終わり
+     * @param out 変換先
+     * @return 変換したバイト数
+     */
+    private int encode(int len, boolean eof, byte[] out) {
+        CharBuffer cb = CharBuffer.wrap(cbuf, 0, len);
+        ByteBuffer bb = ByteBuffer.wrap(out);
+        CoderResult r = encoder.encode(cb, bb, eof);
+        if (eof) {
+            encoder.flush(bb);
+            encoder.reset();
+        }
+        if (r.isOverflow()) { // 余裕をとっているので起きない
+            throw new IllegalStateException();
+        }
+        left = cb.remaining();
+        System.arraycopy(cbuf, cb.position(), cbuf, 0, left);
+        return bb.position();
     }
 
+    /**
+     * 1バイト読む.
+     * なければ読めるまで待つ.
+     *
+     * @return 1バイト または -1
+     * @throws IOException
+     */
     @Override
     public int read() throws IOException {
-        while (rd != null && pac.size() < bufferSize && rd.ready()) {
+        while (rd != null && (pac.size() == 0 || (pac.size() < bufferSize && rd.ready()))) {
             buffering();
         }
         return pac.read();
     }
 
+    /**
+     * まとめて読む.
+     * なければ読めるまで待つ.
+     *
+     * @param b 読み先
+     * @param offset 位置
+     * @param length 長さ
+     * @return 読んだ長さ 終わりは -1
+     * @throws IOException
+     */
+    @Override
+    public int read(byte[] b, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (rd != null && pac.size() == 0) {
+            buffering();
+        }
+        if (pac.size() == 0) {
+            return -1;
+        }
+        return pac.read(b, offset, length);
+    }
+
     @Override
     public void close() throws IOException {
         if (rd != null) {
@@ -27,27 +27,65 @@ import java.util.logging.Logger;
  * Packet を InputStream の頭につけたい。
  * Streamとして振る舞うのがメイン。
  * 使い終わったStreamは閉じる.
+ *
+ * バッファサイズを指定すると先読みする形になり、read はデータが来るまで待つ.
+ * readFully, peek, fill はどちらの形でも来るか終わるまで待つ.
  */
 public class StreamFrontPacket implements FrontPacket {
 
-    private final FrontPacket inpac = new PacketA();
+    private final PacketA inpac = new PacketA();
 
     private final StreamFrontInputStream in;
+    /**
+     * 先読みの単位. 0 のときは available の範囲で読む従来の形.
+     */
+    private final int bufferSize;
 
     /**
      *
      * @param in 入力
      */
     public StreamFrontPacket(InputStream in) {
+        this(in, 0);
+    }
+
+    /**
+     * 先読みする形.
+     * bufferSize 単位で読んで溜めておく.
+     *
+     * @param in 入力
+     * @param bufferSize 1回に読む大きさ 0 のときは先読みしない
+     */
+    public StreamFrontPacket(InputStream in, int bufferSize) {
+        if (bufferSize < 0) {
+            throw new IllegalArgumentException();
+        }
         this.in = new StreamFrontInputStream(in);
+        this.bufferSize = bufferSize;
     }
 
     public StreamFrontPacket(Reader reader) {
         this(new ReaderInputStream(reader, 30));
     }
 
+    /**
+     * length 全部読む.
+     * 先読みする形では溜まるか終わるまで待つ.
+     * 足りないときは読まずに例外.
+     *
+     * @param d 読み先
+     * @param offset 位置
+     * @param length 長さ
+     * @return length
+     */
     @Override
     public long get(byte[] d, int offset, int length) {
+        if (bufferSize > 0) {
+            if (fill(length) < length) {
+                throw new java.nio.BufferOverflowException();
+            }
+            return inpac.read(d, offset, length);
+        }
         if (size() < length) {
             throw new java.nio.BufferOverflowException();
         }
@@ -103,6 +141,47 @@ public class StreamFrontPacket implements FrontPacket {
             return len;
         }
 
+        /**
+         * length まで溜まるか終わるまで読む.
+         *
+         * @param length 溜めたい長さ
+         * @return 溜まっている長さ
+         * @throws IOException
+         */
+        long fill(long length) throws IOException {
+            while (inpac.length() < length && in != null) {
+                int len = (int) Math.min(Math.max(bufferSize, length - inpac.length()), PacketA.MAXLENGTH);
+                byte[] d = new byte[len];
+                int l = in.read(d);
+                if (l < 0) {
+                    in.close();
+                    in = null;
+                } else if (l == len) {
+                    inpac.dwrite(d);
+                } else {
+                    inpac.write(d, 0, l);
+                }
+            }
+            return inpac.length();
+        }
+
+        /**
+         * 溜めずに直接読む.
+         *
+         * @return 読んだ長さ 終わりは -1
+         */
+        int direct(byte[] data, int offset, int length) throws IOException {
+            if (in == null) {
+                return -1;
+            }
+            int l = in.read(data, offset, length);
+            if (l < 0) {
+                in.close();
+                in = null;
+            }
+            return l;
+        }
+
         @Override
         public long skip(long length) {
             long min = inpac.skip(length);
@@ -123,7 +202,10 @@ public class StreamFrontPacket implements FrontPacket {
 
         @Override
         public void close() throws IOException {
-            in.close();
+            if (in != null) {
+                in.close();
+                in = null;
+            }
         }
     }
 
@@ -135,6 +217,9 @@ public class StreamFrontPacket implements FrontPacket {
     @Override
     public int read() {
         try {
+            if (bufferSize > 0) {
+                return in.fill(1) > 0 ? inpac.read() : -1;
+            }
             if (in.available() > 0) {
                 return in.read();
             } else {
@@ -146,9 +231,36 @@ public class StreamFrontPacket implements FrontPacket {
         return -1;
     }
 
+    /**
+     * 読む.
+     * 先読みする形では溜まっている分と待たずに読める分を返す. なければ1回だけ待って読む.
+     * バッファより大きいときは溜めずに直接読む.
+     *
+     * @param data 読み先
+     * @param offset 位置
+     * @param length 長さ
+     * @return 読んだ長さ 終わりは 0
+     */
     @Override
     public int read(byte[] data, int offset, int length) {
         try {
+            if (bufferSize > 0) {
+                if (inpac.length() == 0 && length > 0) {
+                    if (length >= bufferSize) {
+                        return Math.max(in.direct(data, offset, length), 0);
+                    }
+                    in.fill(1);
+                }
+                int len = inpac.read(data, offset, length);
+                while (len < length && in.available() > 0) { // size() の分は読む
+                    int l = in.direct(data, offset + len, length - len);
+                    if (l <= 0) {
+                        break;
+                    }
+                    len += l;
+                }
+                return len;
+            }
             int len = 0;
             while (in.available() > 0 && length > 0) {
                 int l = in.read(data, offset, length);
@@ -173,6 +285,81 @@ public class StreamFrontPacket implements FrontPacket {
         return in.skip(size);
     }
 
+    /**
+     * length まで溜まるか終わるまで待って読む.
+     *
+     * @param buf 読み先
+     * @param offset 位置
+     * @param length 長さ
+     * @return 読んだ長さ 終わったときは length より短い
+     */
+    public int readFully(byte[] buf, int offset, int length) {
+        int len = 0;
+        while (len < length) {
+            if (inpac.length() > 0 || length - len < bufferSize) {
+                if (fill(Math.min(length - len, Math.max(bufferSize, 1))) == 0) {
+                    break;
+                }
+                len += inpac.read(buf, offset + len, length - len);
+            } else {
+                try {
+                    int l = in.direct(buf, offset + len, length - len);
+                    if (l < 0) {
+                        break;
+                    }
+                    len += l;
+                } catch (IOException ex) {
+                    throw new java.nio.BufferUnderflowException();
+                }
+            }
+        }
+        return len;
+    }
+
+    /**
+     * 読まずに先を見る.
+     * length まで溜まるか終わるまで待つ.
+     *
+     * @param buf 読み先
+     * @param offset 位置
+     * @param length 長さ
+     * @return 見えた長さ
+     */
+    public int peek(byte[] buf, int offset, int length) {
+        int len = (int) Math.min(fill(length), length);
+        inpac.get(0, buf, offset, len);
+        return len;
+    }
+
+    /**
+     * length 溜まるか終わるまで待つ.
+     *
+     * @param length 長さ
+     * @return 溜まっている長さ
+     */
+    public long fill(long length) {
+        try {
+            return in.fill(length);
+        } catch (IOException ex) {
+            throw new java.nio.BufferUnderflowException();
+        }
+    }
+
+    /**
+     * 読めるかどうか.
+     * 先読みする形では溜まるか終わるまで待つ.
+     *
+     * @param length 長さ
+     * @return 読める
+     */
+    @Override
+    public boolean readable(long length) {
+        if (bufferSize > 0) {
+            return fill(length) >= length;
+        }
+        return FrontPacket.super.readable(length);
+    }
+
     @Override
     public byte[] toByteArray() {
         try {
@@ -221,8 +408,9 @@ public class StreamFrontPacket implements FrontPacket {
     /**
      * サイズ取得。
      * availableしか使えないので不確定な要素.
+     * 溜まっている分と available の合計. read はこの長さまで待たずに読める.
      *
-     * @return
+     * @return 待たずに読める長さ
      */
     @Override
     public int size() {
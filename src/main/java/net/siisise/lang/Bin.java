@@ -15,7 +15,11 @@
  */
 package net.siisise.lang;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import net.siisise.math.Matics;
 
@@ -26,9 +30,16 @@ import net.siisise.math.Matics;
  * HexとBASE64は統合したいかもしれない
  * Number べーす
  * java.util.BitSet があるらしいが変換には向かないので使わない.
+ * byte列と int, long の変換は VarHandle で1語ずつ読み書きする.
  */
 public class Bin {
 
+    private static final VarHandle SHORT_BE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
     /**
      * バイト列を16進数(小文字)に変換する.
      *
@@ -240,8 +251,7 @@ public class Bin {
      * @return outと同じ列
      */
     public static byte[] toByte(short i, byte[] out, int offset) {
-        out[offset++] = (byte) (i >>> 8);
-        out[offset] = (byte) i;
+        SHORT_BE.set(out, offset, i);
         return out;
     }
 
@@ -265,10 +275,7 @@ public class Bin {
      * @return outと同じ列
      */
     public static byte[] toByte(int i, byte[] out, int offset) {
-        out[offset++] = (byte) (i >>> 24);
-        out[offset++] = (byte) (i >> 16);
-        out[offset++] = (byte) (i >>> 8);
-        out[offset] = (byte) i;
+        INT_BE.set(out, offset, i);
         return out;
     }
 
@@ -292,14 +299,7 @@ public class Bin {
      * @return outと同じ列
      */
     public static byte[] toByte(long l, byte[] out, int offset) {
-        out[0] = (byte) (l >>> 56);
-        out[1] = (byte) (l >> 48);
-        out[2] = (byte) (l >> 40);
-        out[3] = (byte) (l >> 32);
-        out[4] = (byte) (l >> 24);
-        out[5] = (byte) (l >> 16);
-        out[6] = (byte) (l >>> 8);
-        out[7] = (byte) l;
+        LONG_BE.set(out, offset, l);
         return out;
     }
 
@@ -595,6 +595,21 @@ public class Bin {
         return n;
     }
 
+    /**
+     * Big endian 左シフト 上書き.
+     *
+     * @param a 元列 結果で上書きする
+     * @return a
+     */
+    public static long[] shll(long[] a) {
+        int last = a.length - 1;
+        for (int i = 0; i < last; i++) {
+            a[i] = (a[i] << 1) | (a[i + 1] >>> 63);
+        }
+        a[last] <<= 1;
+        return a;
+    }
+
     public static byte[] rol(byte[] a) {
         int b = Byte.toUnsignedInt(a[0]) >> 7;
         byte[] n = shl(a);
@@ -665,6 +680,20 @@ public class Bin {
         return n;
     }
 
+    /**
+     * 右1bitシフト 上書き.
+     *
+     * @param a 元列 結果で上書きする
+     * @return a
+     */
+    public static long[] shrl(long[] a) {
+        for (int i = a.length - 1; i > 0; i--) {
+            a[i] = (a[i] >>> 1) | (a[i - 1] << 63);
+        }
+        a[0] >>>= 1;
+        return a;
+    }
+
     /**
      * 右1bit rotate
      *
@@ -721,16 +750,8 @@ public class Bin {
      * @return int列
      */
     public static final int[] btoi(final byte[] src) {
-        int t = 0;
-        int dl = src.length / 4;
-        int[] dst = new int[dl];
-        for (int i = 0; i < dst.length; i++, t += 4) {
-            dst[i]
-                    =  (src[t    ]         << 24)
-                    | ((src[t + 1] & 0xff) << 16)
-                    | ((src[t + 2] & 0xff) <<  8)
-                    |  (src[t + 3] & 0xff);
-        }
+        int[] dst = new int[src.length / 4];
+        btoi(src, 0, dst, 0, dst.length);
         return dst;
     }
 
@@ -741,19 +762,8 @@ public class Bin {
      * @return long列
      */
     public static final long[] btol(final byte[] src) {
-        int t = 0;
         long[] dst = new long[src.length / 8];
-        for (int i = 0; i < dst.length; i++, t += 8) {
-            dst[i]
-                    = ( ((long) src[t    ])         << 56)
-                    | ((((long) src[t + 1]) & 0xff) << 48)
-                    | ((((long) src[t + 2]) & 0xff) << 40)
-                    | ((((long) src[t + 3]) & 0xff) << 32)
-                    | ((((long) src[t + 4]) & 0xff) << 24)
-                    | ((((long) src[t + 5]) & 0xff) << 16)
-                    | ((((long) src[t + 6]) & 0xff) << 8)
-                    |  (((long) src[t + 7]) & 0xff);
-        }
+        btol(src, 0, dst, 0, dst.length);
         return dst;
     }
 
@@ -764,15 +774,7 @@ public class Bin {
      * @return byte配列
      */
     public static byte[] itob(final int[] src) {
-        byte[] ss = new byte[src.length * 4];
-        for (int i = 0; i < src.length; i++) {
-            int l = i * 4;
-            ss[l++] = (byte) (src[i] >> 24);
-            ss[l++] = (byte) (src[i] >> 16);
-            ss[l++] = (byte) (src[i] >>  8);
-            ss[l  ] = (byte)  src[i]       ;
-        }
-        return ss;
+        return itob(src, 0, src.length, new byte[src.length * 4], 0);
     }
 
     /**
@@ -782,15 +784,7 @@ public class Bin {
      * @return byte配列
      */
     public static byte[] litob(final int[] src) {
-        byte[] ss = new byte[src.length * 4];
-        for (int i = 0; i < src.length; i++) {
-            int l = i * 4;
-            ss[l++] = (byte)  src[i]       ;
-            ss[l++] = (byte) (src[i] >>  8);
-            ss[l++] = (byte) (src[i] >> 16);
-            ss[l  ] = (byte) (src[i] >> 24);
-        }
-        return ss;
+        return litob(src, 0, src.length, new byte[src.length * 4], 0);
     }
 
     /**
@@ -800,20 +794,7 @@ public class Bin {
      * @return byte列
      */
     public static byte[] ltob(final long... src) {
-        byte[] ds = new byte[src.length * 8];
-        for (int i = 0; i < src.length; i++) {
-            long s = src[i];
-            int l = i * 8;
-            ds[l    ] = (byte) (s >> 56);
-            ds[l + 1] = (byte) (s >> 48);
-            ds[l + 2] = (byte) (s >> 40);
-            ds[l + 3] = (byte) (s >> 32);
-            ds[l + 4] = (byte) (s >> 24);
-            ds[l + 5] = (byte) (s >> 16);
-            ds[l + 6] = (byte) (s >>  8);
-            ds[l + 7] = (byte) (s      );
-        }
-        return ds;
+        return ltob(src, 0, src.length, new byte[src.length * 8], 0);
     }
 
     /**
@@ -823,20 +804,7 @@ public class Bin {
      * @return byte列
      */
     public static byte[] lltob(final long... src) {
-        byte[] ds = new byte[src.length * 8];
-        for (int i = 0; i < src.length; i++) {
-            long s = src[i];
-            int l = i * 8;
-            ds[l    ] = (byte) (s      );
-            ds[l + 1] = (byte) (s >>  8);
-            ds[l + 2] = (byte) (s >> 16);
-            ds[l + 3] = (byte) (s >> 24);
-            ds[l + 4] = (byte) (s >> 32);
-            ds[l + 5] = (byte) (s >> 40);
-            ds[l + 6] = (byte) (s >> 48);
-            ds[l + 7] = (byte) (s >> 56);
-        }
-        return ds;
+        return lltob(src, 0, src.length, new byte[src.length * 8], 0);
     }
 
     /**
@@ -879,16 +847,7 @@ public class Bin {
      * @return byte列
      */
     public static final byte[] itob(final int[] src, int offset, int len) {
-        byte[] ss = new byte[len * 4];
-        int l = 0;
-        for (int i = len; i > 0; i--) {
-            int v = src[offset++];
-            ss[l++] = (byte) (v >> 24);
-            ss[l++] = (byte) (v >> 16);
-            ss[l++] = (byte) (v >>  8);
-            ss[l++] = (byte)  v       ;
-        }
-        return ss;
+        return itob(src, offset, len, new byte[len * 4], 0);
     }
 
     /**
@@ -901,14 +860,7 @@ public class Bin {
      */
     public static final int[] btoi(final byte[] src, int offset, int length) {
         int[] dst = new int[length];
-        for (int i = 0; i < dst.length; i++) {
-            dst[i]
-                    = ( src[offset]             << 24)
-                    | ((src[offset + 1] & 0xff) << 16)
-                    | ((src[offset + 2] & 0xff) <<  8)
-                    |  (src[offset + 3] & 0xff);
-            offset += 4;
-        }
+        btoi(src, offset, dst, 0, length);
         return dst;
     }
 
@@ -921,14 +873,7 @@ public class Bin {
      */
     public static final int[] btoli(final byte[] src, int offset, int length) {
         int[] dst = new int[length];
-        for (int i = 0; i < dst.length; i++) {
-            dst[i]
-                    =  (src[offset]     & 0xff)                  
-                    | ((src[offset + 1] & 0xff) <<  8)
-                    | ((src[offset + 2] & 0xff) << 16)
-                    | ( src[offset + 3]         << 24);
-            offset += 4;
-        }
+        btoli(src, offset, dst, 0, length);
         return dst;
     }
 
@@ -942,17 +887,7 @@ public class Bin {
      */
     public static final long[] btol(final byte[] src, int offset, int length) {
         long[] dst = new long[length];
-        for (int i = 0; i < dst.length; i++, offset += 8) {
-            dst[i]
-                    = (((long)  src[offset    ]        ) << 56)
-                    | (((long) (src[offset + 1] & 0xff)) << 48)
-                    | (((long) (src[offset + 2] & 0xff)) << 40)
-                    | (((long) (src[offset + 3] & 0xff)) << 32)
-                    | (((long) (src[offset + 4] & 0xff)) << 24)
-                    | (((long) (src[offset + 5] & 0xff)) << 16)
-                    | (((long) (src[offset + 6] & 0xff)) <<  8)
-                    |  ((long) (src[offset + 7] & 0xff));
-        }
+        btol(src, offset, dst, 0, length);
         return dst;
     }
 
@@ -982,21 +917,7 @@ public class Bin {
      * @return byte列
      */
     public static byte[] ltob(final long[] src, int offset, int srclen) {
-        byte[] ss = new byte[srclen * 8];
-        int l = 0;
-        for (int i = srclen; i > 0; i--) {
-            long v = src[offset++];
-            ss[l    ] = (byte) (v >> 56);
-            ss[l + 1] = (byte) (v >> 48);
-            ss[l + 2] = (byte) (v >> 40);
-            ss[l + 3] = (byte) (v >> 32);
-            ss[l + 4] = (byte) (v >> 24);
-            ss[l + 5] = (byte) (v >> 16);
-            ss[l + 6] = (byte) (v >>  8);
-            ss[l + 7] = (byte)  v       ;
-            l += 8;
-        }
-        return ss;
+        return ltob(src, offset, srclen, new byte[srclen * 8], 0);
     }
 
     /**
@@ -1008,17 +929,7 @@ public class Bin {
      * @param length 転送先長
      */
     public static final void btol(final byte[] src, int offset, long[] dst, int length) {
-        for (int i = 0; i < length; i++, offset += 8) {
-            dst[i]
-                    = ( (long) src[offset    ]         << 56)
-                    | (((long) src[offset + 1] & 0xff) << 48)
-                    | (((long) src[offset + 2] & 0xff) << 40)
-                    | (((long) src[offset + 3] & 0xff) << 32)
-                    | (((long) src[offset + 4] & 0xff) << 24)
-                    | (((long) src[offset + 5] & 0xff) << 16)
-                    | (((long) src[offset + 6] & 0xff) <<  8)
-                    |  ((long) src[offset + 7] & 0xff);
-        }
+        btol(src, offset, dst, 0, length);
     }
 
     /**
@@ -1047,25 +958,19 @@ public class Bin {
      * @param length int長
      */
     public static void btoi(final byte[] src, int offset, int[] dst, int length) {
-        for (int i = 0; i < length; i++) {
-            dst[i]
-                    = ( src[offset    ]         << 24)
-                    | ((src[offset + 1] & 0xff) << 16)
-                    | ((src[offset + 2] & 0xff) <<  8)
-                    |  (src[offset + 3] & 0xff);
-            offset += 4;
-        }
+        btoi(src, offset, dst, 0, length);
     }
 
+    /**
+     * Little Endian byte[]をint[]に変換する.
+     *
+     * @param src バイト列
+     * @param offset src位置
+     * @param dst 戻りint列
+     * @param length int長
+     */
     public static void btoli(final byte[] src, int offset, int[] dst, int length) {
-        for (int i = 0; i < length; i++) {
-            dst[i]
-                    =  (src[offset    ] & 0xff)      
-                    | ((src[offset + 1] & 0xff) <<  8)
-                    | ((src[offset + 2] & 0xff) << 16)
-                    |  (src[offset + 3]         << 24); 
-            offset += 4;
-        }
+        btoli(src, offset, dst, 0, length);
     }
 
     /**
@@ -1092,14 +997,7 @@ public class Bin {
      * @return ss
      */
     public static byte[] itob(final int[] src, byte[] ss, int doffset) {
-        for (int i = 0; i < src.length; i++) {
-            int l = doffset + i * 4;
-            ss[l++] = (byte) (src[i] >> 24);
-            ss[l++] = (byte) (src[i] >> 16);
-            ss[l++] = (byte) (src[i] >>  8);
-            ss[l  ] = (byte)  src[i]       ;
-        }
-        return ss;
+        return itob(src, 0, src.length, ss, doffset);
     }
 
     /**
@@ -1111,14 +1009,7 @@ public class Bin {
      * @return ss
      */
     public static byte[] litob(final int[] src, byte[] ss, int doffset) {
-        for (int i = 0; i < src.length; i++) {
-            int l = doffset + i * 4;
-            ss[l++] = (byte)  src[i]       ;
-            ss[l++] = (byte) (src[i] >>  8);
-            ss[l++] = (byte) (src[i] >> 16);
-            ss[l  ] = (byte) (src[i] >> 24);
-        }
-        return ss;
+        return litob(src, 0, src.length, ss, doffset);
     }
 
     /**
@@ -1130,18 +1021,240 @@ public class Bin {
      * @return ss
      */
     public static final byte[] ltob(final long[] src, byte[] ss, int doffset) {
-        for (int i = 0; i < src.length; i++) {
-            int l = doffset + i * 8;
-            ss[l    ] = (byte) (src[i] >> 56);
-            ss[l + 1] = (byte) (src[i] >> 48);
-            ss[l + 2] = (byte) (src[i] >> 40);
-            ss[l + 3] = (byte) (src[i] >> 32);
-            ss[l + 4] = (byte) (src[i] >> 24);
-            ss[l + 5] = (byte) (src[i] >> 16);
-            ss[l + 6] = (byte) (src[i] >>  8);
-            ss[l + 7] = (byte)  src[i]       ;
+        return ltob(src, 0, src.length, ss, doffset);
+    }
+
+    /**
+     * byte列の一部をint列の一部に変換する.
+     *
+     * @param src byte列
+     * @param offset src位置
+     * @param dst int列
+     * @param doffset dst位置
+     * @param length int長
+     */
+    public static void btoi(final byte[] src, int offset, int[] dst, int doffset, int length) {
+        for (int i = 0; i < length; i++, offset += 4) {
+            dst[doffset + i] = (int) INT_BE.get(src, offset);
         }
-        return ss;
+    }
+
+    /**
+     * Little Endian byte列の一部をint列の一部に変換する.
+     *
+     * @param src byte列
+     * @param offset src位置
+     * @param dst int列
+     * @param doffset dst位置
+     * @param length int長
+     */
+    public static void btoli(final byte[] src, int offset, int[] dst, int doffset, int length) {
+        for (int i = 0; i < length; i++, offset += 4) {
+            dst[doffset + i] = (int) INT_LE.get(src, offset);
+        }
+    }
+
+    /**
+     * byte列の一部をlong列の一部に変換する.
+     *
+     * @param src byte列
+     * @param offset src位置
+     * @param dst long列
+     * @param doffset dst位置
+     * @param length long長
+     */
+    public static void btol(final byte[] src, int offset, long[] dst, int doffset, int length) {
+        for (int i = 0; i < length; i++, offset += 8) {
+            dst[doffset + i] = (long) LONG_BE.get(src, offset);
+        }
+    }
+
+    /**
+     * Little Endian byte列の一部をlong列の一部に変換する.
+     *
+     * @param src byte列
+     * @param offset src位置
+     * @param dst long列
+     * @param doffset dst位置
+     * @param length long長
+     */
+    public static void btoll(final byte[] src, int offset, long[] dst, int doffset, int length) {
+        for (int i = 0; i < length; i++, offset += 8) {
+            dst[doffset + i] = (long) LONG_LE.get(src, offset);
+        }
+    }
+
+    /**
+     * int列の一部をbyte列に書き込む.
+     *
+     * @param src int列
+     * @param offset src位置
+     * @param length int長
+     * @param dst 出力先byte列
+     * @param doffset dst位置
+     * @return dst
+     */
+    public static byte[] itob(final int[] src, int offset, int length, byte[] dst, int doffset) {
+        for (int i = 0; i < length; i++, doffset += 4) {
+            INT_BE.set(dst, doffset, src[offset + i]);
+        }
+        return dst;
+    }
+
+    /**
+     * int列の一部を Little Endian でbyte列に書き込む.
+     *
+     * @param src int列
+     * @param offset src位置
+     * @param length int長
+     * @param dst 出力先byte列
+     * @param doffset dst位置
+     * @return dst
+     */
+    public static byte[] litob(final int[] src, int offset, int length, byte[] dst, int doffset) {
+        for (int i = 0; i < length; i++, doffset += 4) {
+            INT_LE.set(dst, doffset, src[offset + i]);
+        }
+        return dst;
+    }
+
+    /**
+     * long列の一部をbyte列に書き込む.
+     *
+     * @param src long列
+     * @param offset src位置
+     * @param length long長
+     * @param dst 出力先byte列
+     * @param doffset dst位置
+     * @return dst
+     */
+    public static byte[] ltob(final long[] src, int offset, int length, byte[] dst, int doffset) {
+        for (int i = 0; i < length; i++, doffset += 8) {
+            LONG_BE.set(dst, doffset, src[offset + i]);
+        }
+        return dst;
+    }
+
+    /**
+     * long列の一部を Little Endian でbyte列に書き込む.
+     *
+     * @param src long列
+     * @param offset src位置
+     * @param length long長
+     * @param dst 出力先byte列
+     * @param doffset dst位置
+     * @return dst
+     */
+    public static byte[] lltob(final long[] src, int offset, int length, byte[] dst, int doffset) {
+        for (int i = 0; i < length; i++, doffset += 8) {
+            LONG_LE.set(dst, doffset, src[offset + i]);
+        }
+        return dst;
+    }
+
+    /**
+     * ByteBuffer の position から int列に読む.
+     * src の byte order は使わず Big Endian で読み、position を進める.
+     *
+     * @param src 読み元 direct も可
+     * @param dst int列
+     * @param offset dst位置
+     * @param length int長
+     */
+    public static void btoi(ByteBuffer src, int[] dst, int offset, int length) {
+        src.duplicate().order(ByteOrder.BIG_ENDIAN).asIntBuffer().get(dst, offset, length);
+        src.position(src.position() + length * 4);
+    }
+
+    /**
+     * ByteBuffer の position から Little Endian で int列に読む.
+     *
+     * @param src 読み元
+     * @param dst int列
+     * @param offset dst位置
+     * @param length int長
+     */
+    public static void btoli(ByteBuffer src, int[] dst, int offset, int length) {
+        src.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(dst, offset, length);
+        src.position(src.position() + length * 4);
+    }
+
+    /**
+     * ByteBuffer の position から long列に読む.
+     *
+     * @param src 読み元
+     * @param dst long列
+     * @param offset dst位置
+     * @param length long長
+     */
+    public static void btol(ByteBuffer src, long[] dst, int offset, int length) {
+        src.duplicate().order(ByteOrder.BIG_ENDIAN).asLongBuffer().get(dst, offset, length);
+        src.position(src.position() + length * 8);
+    }
+
+    /**
+     * ByteBuffer の position から Little Endian で long列に読む.
+     *
+     * @param src 読み元
+     * @param dst long列
+     * @param offset dst位置
+     * @param length long長
+     */
+    public static void btoll(ByteBuffer src, long[] dst, int offset, int length) {
+        src.duplicate().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(dst, offset, length);
+        src.position(src.position() + length * 8);
+    }
+
+    /**
+     * int列の一部を ByteBuffer の position から書き、position を進める.
+     *
+     * @param src int列
+     * @param offset src位置
+     * @param length int長
+     * @param dst 書き先 direct も可
+     */
+    public static void itob(final int[] src, int offset, int length, ByteBuffer dst) {
+        dst.duplicate().order(ByteOrder.BIG_ENDIAN).asIntBuffer().put(src, offset, length);
+        dst.position(dst.position() + length * 4);
+    }
+
+    /**
+     * int列の一部を ByteBuffer に Little Endian で書く.
+     *
+     * @param src int列
+     * @param offset src位置
+     * @param length int長
+     * @param dst 書き先
+     */
+    public static void litob(final int[] src, int offset, int length, ByteBuffer dst) {
+        dst.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(src, offset, length);
+        dst.position(dst.position() + length * 4);
+    }
+
+    /**
+     * long列の一部を ByteBuffer に書く.
+     *
+     * @param src long列
+     * @param offset src位置
+     * @param length long長
+     * @param dst 書き先
+     */
+    public static void ltob(final long[] src, int offset, int length, ByteBuffer dst) {
+        dst.duplicate().order(ByteOrder.BIG_ENDIAN).asLongBuffer().put(src, offset, length);
+        dst.position(dst.position() + length * 8);
+    }
+
+    /**
+     * long列の一部を ByteBuffer に Little Endian で書く.
+     *
+     * @param src long列
+     * @param offset src位置
+     * @param length long長
+     * @param dst 書き先
+     */
+    public static void lltob(final long[] src, int offset, int length, ByteBuffer dst) {
+        dst.duplicate().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(src, offset, length);
+        dst.position(dst.position() + length * 8);
     }
 
     /**
@@ -109,6 +109,19 @@ public class GF {
         return v;
     }
 
+    /**
+     * long列 GF s・2 上書き.
+     *
+     * @param s 数 結果で上書きする
+     * @return s
+     */
+    public long[] xTo(long[] s) {
+        long c = s[0] >>> 63;
+        Bin.shll(s);
+        s[s.length - 1] ^= (constRb & 0xffl) * c;
+        return s;
+    }
+
     /**
      * GF s・2の逆 /2
      *
@@ -298,20 +311,69 @@ public class GF {
         return x;
     }
 
+    /**
+     * 累乗.
+     * 4bit のスライド窓. 奇数乗の表 8個以外は配列を確保しない.
+     *
+     * @param n 底
+     * @param p 指数
+     * @return n^p
+     */
     public long[] pow(long[] n, long[] p) {
-        long[] x = new long[n.length];
-        x[n.length - 1] = 1;
-        for (int i = 0; i < p.length; i++) {
-            for (int j = 0; j < 64; j++) {
-                x = mul(x, x);
-                if ((p[i] << j) < 0) {
-                    x = mul(x, n);
+        int len = n.length;
+        long[][] t = new long[8][]; // n^1, n^3, .. n^15
+        long[] n2 = new long[len];
+        t[0] = n.clone();
+        mulTo(n, n, n2);
+        for (int i = 1; i < t.length; i++) {
+            t[i] = mulTo(t[i - 1], n2, new long[len]);
+        }
+        long[] x = n2;
+        Arrays.fill(x, 0);
+        x[len - 1] = 1;
+        boolean one = true;
+        int bits = p.length * 64;
+        int i = 0;
+        while (i < bits) {
+            if (!bit(p, i)) {
+                if (!one) {
+                    squareInPlace(x);
                 }
+                i++;
+                continue;
+            }
+            int j = Math.min(i + 4, bits);
+            while (!bit(p, j - 1)) {
+                j--;
+            }
+            int v = 0;
+            for (int k = i; k < j; k++) {
+                v = (v << 1) | (bit(p, k) ? 1 : 0);
+                if (!one) {
+                    squareInPlace(x);
+                }
+            }
+            if (one) {
+                System.arraycopy(t[v >> 1], 0, x, 0, len);
+                one = false;
+            } else {
+                mulTo(x, t[v >> 1], x);
             }
+            i = j;
         }
         return x;
     }
 
+    /**
+     * 先頭から i ビット目.
+     * @param p 列
+     * @param i 位置
+     * @return 1 のとき true
+     */
+    static boolean bit(long[] p, int i) {
+        return (p[i >>> 6] << (i & 63)) < 0;
+    }
+
     static final BigInteger SEVEN = BigInteger.valueOf(7);
     static final BigInteger eSEVEN = BigInteger.ONE.shiftLeft(128).subtract(TWO);
 
@@ -413,13 +475,6 @@ public class GF {
         return true;
     }
 
-    private static boolean isZero(long[] a) {
-        for (long c : a) {
-            if (c != 0) return false;
-        }
-        return true;
-    }
-
     /**
      * 積算.
      * a・b
@@ -474,19 +529,78 @@ public class GF {
      * @return a・b
      */
     public long[] mul(long[] a, long[] b) {
-        long[] r = new long[a.length];
-        if (isZero(b)) {
-            return r;
+        return mulTo(a, b, new long[a.length]);
+    }
+
+    /**
+     * 積算 結果を dst に書く.
+     * dst = a・b
+     * dst は a, b と同じ配列でもいい.
+     * 2 long までと、dst が a, b と別の配列のときは配列を確保しない.
+     *
+     * @param a 整数
+     * @param b 整数
+     * @param dst 結果
+     * @return dst
+     */
+    public long[] mulTo(long[] a, long[] b, long[] dst) {
+        long rb = constRb & 0xffl;
+        if (a.length == 2) {
+            long rh = 0;
+            long rl = 0;
+            long bh = b[0];
+            long bl = b[1];
+            for (int i = 0; i < 2; i++) {
+                long c = a[i];
+                for (int j = 0; j < 64; j++) {
+                    long t = rb & (rh >> 63);
+                    rh = (rh << 1) | (rl >>> 63);
+                    rl = (rl << 1) ^ t;
+                    long m = (c << j) >> 63;
+                    rh ^= bh & m;
+                    rl ^= bl & m;
+                }
+            }
+            dst[0] = rh;
+            dst[1] = rl;
+            return dst;
+        } else if (a.length == 1) {
+            long r = 0;
+            long c = a[0];
+            long bl = b[0];
+            for (int j = 0; j < 64; j++) {
+                r = (r << 1) ^ (rb & (r >> 63));
+                r ^= bl & ((c << j) >> 63);
+            }
+            dst[0] = r;
+            return dst;
         }
-        int last = a.length - 1;
-        while (!isZero(a)) {
-            if ((a[last] & 1) != 0) {
-                Bin.xorl(r, b);
+        long[] r = (dst == a || dst == b) ? new long[a.length] : dst;
+        Arrays.fill(r, 0);
+        for (int i = 0; i < a.length; i++) {
+            long c = a[i];
+            for (int j = 0; j < 64; j++) {
+                xTo(r);
+                if ((c << j) < 0) {
+                    Bin.xorl(r, b);
+                }
             }
-            a = Bin.shr(a);
-            b = x(b);
         }
-        return r;
+        if (r != dst) {
+            System.arraycopy(r, 0, dst, 0, r.length);
+        }
+        return dst;
+    }
+
+    /**
+     * 2乗 上書き.
+     * a = a・a
+     *
+     * @param a 整数 結果で上書きする
+     * @return a
+     */
+    public long[] squareInPlace(long[] a) {
+        return mulTo(a, a, a);
     }
 
     public int div(int a, int b) {
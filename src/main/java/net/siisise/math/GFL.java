@@ -152,6 +152,21 @@ public class GFL {
         return v;
     }
 
+    /**
+     * s・2 上書き.
+     *
+     * @param s 数 結果で上書きする
+     * @return s
+     */
+    public final long[] xTo(long[] s) {
+        boolean c = (s[0] & mask) != 0;
+        Bin.shll(s);
+        if (c) {
+            Bin.xorl(s, p);
+        }
+        return s;
+    }
+
     /**
      * 右シフト演算っぽい動作.
      * s/2.
@@ -191,18 +206,80 @@ public class GFL {
      * @return a・b
      */
     public long[] mul(long[] a, long[] b) {
-        long[] r = new long[b.length];
-        if (!isZero(b)) {
-            int last = a.length - 1;
-            while (!isZero(a)) {
-                if ((a[last] & 1) != 0) {
+        return mulTo(a, b, new long[b.length]);
+    }
+
+    /**
+     * 積算 結果を dst に書く.
+     * dst = a・b
+     * dst は a, b と同じ配列でもいい.
+     * 2 long までと、dst が a, b と別の配列のときは配列を確保しない.
+     *
+     * @param a a
+     * @param b b
+     * @param dst 結果
+     * @return dst
+     */
+    public long[] mulTo(long[] a, long[] b, long[] dst) {
+        if (b.length == 2 && a.length == 2 && p.length == 2) {
+            long ph = p[0];
+            long pl = p[1];
+            long rh = 0;
+            long rl = 0;
+            long bh = b[0];
+            long bl = b[1];
+            for (int i = 0; i < 2; i++) {
+                long c = a[i];
+                for (int j = 0; j < 64; j++) {
+                    long t = -((rh & mask) >>> preBit);
+                    rh = ((rh << 1) | (rl >>> 63)) ^ (ph & t);
+                    rl = (rl << 1) ^ (pl & t);
+                    long m = (c << j) >> 63;
+                    rh ^= bh & m;
+                    rl ^= bl & m;
+                }
+            }
+            dst[0] = rh;
+            dst[1] = rl;
+            return dst;
+        } else if (b.length == 1 && a.length == 1 && p.length == 1) {
+            long p0 = p[0];
+            long r = 0;
+            long c = a[0];
+            long bl = b[0];
+            for (int j = 0; j < 64; j++) {
+                r = (r << 1) ^ (p0 & -((r & mask) >>> preBit));
+                r ^= bl & ((c << j) >> 63);
+            }
+            dst[0] = r;
+            return dst;
+        }
+        long[] r = (dst == a || dst == b) ? new long[b.length] : dst;
+        Arrays.fill(r, 0);
+        for (int i = 0; i < a.length; i++) {
+            long c = a[i];
+            for (int j = 0; j < 64; j++) {
+                xTo(r);
+                if ((c << j) < 0) {
                     Bin.xorl(r, b);
                 }
-                a = Bin.shr(a);
-                b = x(b);
             }
         }
-        return r;
+        if (r != dst) {
+            System.arraycopy(r, 0, dst, 0, r.length);
+        }
+        return dst;
+    }
+
+    /**
+     * 2乗 上書き.
+     * a = a・a
+     *
+     * @param a 結果で上書きする
+     * @return a
+     */
+    public long[] squareInPlace(long[] a) {
+        return mulTo(a, a, a);
     }
 
     /**
@@ -218,24 +295,53 @@ public class GFL {
 
     /**
      * べき乗 a^n
+     * 4bit のスライド窓. 奇数乗の表 8個以外は配列を確保しない.
      *
      * @param a
      * @param n べき
      * @return a^n
      */
     public long[] pow(long[] a, long[] n) {
-        long[] x = new long[a.length];
-        x[x.length - 1] = 1;
-        int st = preBit;
-        for (int i = 0; i < n.length; i++) {
-            long ni = n[i];
-            for (int j = st; j >= 0; j--) {
-                x = mul(x, x);
-                if ((ni & (1l << j)) != 0) {
-                    x = mul(x, a);
+        int len = a.length;
+        long[][] t = new long[8][]; // a^1, a^3, .. a^15
+        long[] a2 = new long[len];
+        t[0] = a.clone();
+        mulTo(a, a, a2);
+        for (int i = 1; i < t.length; i++) {
+            t[i] = mulTo(t[i - 1], a2, new long[len]);
+        }
+        long[] x = a2;
+        Arrays.fill(x, 0);
+        x[len - 1] = 1;
+        boolean one = true;
+        int bits = n.length * 64;
+        int i = 0;
+        while (i < bits) {
+            if (!GF.bit(n, i)) {
+                if (!one) {
+                    squareInPlace(x);
                 }
+                i++;
+                continue;
+            }
+            int j = Math.min(i + 4, bits);
+            while (!GF.bit(n, j - 1)) {
+                j--;
+            }
+            int v = 0;
+            for (int k = i; k < j; k++) {
+                v = (v << 1) | (GF.bit(n, k) ? 1 : 0);
+                if (!one) {
+                    squareInPlace(x);
+                }
+            }
+            if (one) {
+                System.arraycopy(t[v >> 1], 0, x, 0, len);
+                one = false;
+            } else {
+                mulTo(x, t[v >> 1], x);
             }
-            st = 63;
+            i = j;
         }
         return x;
     }
@@ -32,24 +32,94 @@ import net.siisise.lang.Bin;
  * GCMが反転していたので作ってみる.
  * a・L
  * ・L 用キャッシュをもたせて高速化
+ * 128bit のときは Shoup の 4bit / 8bit 表で long 2つのまま計算する.
  */
 public class GFRev {
     public static final long RGF128 = 0xe100000000000000l;
 
-    private final long[][] shL;
+    /**
+     * L
+     */
+    private final long[] l;
+    /**
+     * 1bit 毎の L・x^k. 128bit の表引き時は使わない.
+     */
+    private long[][] shL;
+    /**
+     * 表引きのビット幅 4 または 8. 0 はビット毎.
+     */
+    private final int w;
+    /**
+     * L・i の上位 long, 下位 long.
+     */
+    private long[] mh;
+    private long[] ml;
+    /**
+     * w ビットずらしたときにあふれた分の還元値 (上位 long のみ)
+     */
+    private long[] red;
     long constRb = RGF128;
 
     /**
-     * 
+     * 128bit のときは 4bit 表.
      * @param l  掛ける値
      */
     public GFRev(long[] l) {
-        
-        shL = new long[l.length * 64][];
-        long[] n;
-        n = shL[0] = l.clone();
-        for (int i = 1; i < l.length * 64; i++) {
-            n = shL[i] = x(n);
+        this(l, l.length == 2 ? 4 : 1);
+    }
+
+    /**
+     * 表の大きさを指定する.
+     * 4bit は 16要素, 8bit は 256要素 と還元表.
+     * 128bit 以外は 1 のみ.
+     * @param l 掛ける値
+     * @param bits 1, 4, 8
+     */
+    public GFRev(long[] l, int bits) {
+        this.l = l.clone();
+        if (bits == 1) {
+            w = 0;
+            shL = new long[l.length * 64][];
+            long[] n;
+            n = shL[0] = this.l;
+            for (int i = 1; i < l.length * 64; i++) {
+                n = shL[i] = x(n);
+            }
+        } else if ((bits == 4 || bits == 8) && l.length == 2) {
+            w = bits;
+            table();
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Shoup の表.
+     * i の最上位ビットが x^0 になる.
+     */
+    private void table() {
+        int size = 1 << w;
+        mh = new long[size];
+        ml = new long[size];
+        long[] v = l;
+        for (int k = size >>> 1; k > 0; k >>>= 1) {
+            mh[k] = v[0];
+            ml[k] = v[1];
+            v = x(v);
+        }
+        for (int k = 2; k < size; k <<= 1) {
+            for (int j = 1; j < k; j++) {
+                mh[k + j] = mh[k] ^ mh[j];
+                ml[k + j] = ml[k] ^ ml[j];
+            }
+        }
+        red = new long[size];
+        for (int i = 1; i < size; i++) {
+            v = new long[] {0, i};
+            for (int j = 0; j < w; j++) {
+                v = x(v);
+            }
+            red[i] = v[0];
         }
     }
 
@@ -72,6 +142,9 @@ public class GFRev {
      * @return a・b
      */
     public long[] mul(long[] b) {
+        if (w > 0) {
+            return mulTo(b.clone());
+        }
         long[] v = new long[b.length];
         int k = -1;
         for (int i = 0; i < b.length; i++) {
@@ -86,7 +159,64 @@ public class GFRev {
         return v;
     }
 
+    /**
+     * 上書き積算.
+     * v = v・L
+     * 表引きのときは配列を確保しない.
+     * @param v 値 結果で上書きする
+     * @return v
+     */
+    public long[] mulTo(long[] v) {
+        if (w == 0) {
+            long[] r = mul(v);
+            System.arraycopy(r, 0, v, 0, r.length);
+            return v;
+        }
+        int mask = (1 << w) - 1;
+        int back = 64 - w;
+        long zh = 0;
+        long zl = 0;
+        for (int i = 1; i >= 0; i--) {
+            long c = v[i];
+            for (int s = 0; s < 64; s += w) {
+                int rem = (int) zl & mask;
+                zl = (zl >>> w) | (zh << back);
+                zh = (zh >>> w) ^ red[rem];
+                int n = (int) (c >>> s) & mask;
+                zh ^= mh[n];
+                zl ^= ml[n];
+            }
+        }
+        v[0] = zh;
+        v[1] = zl;
+        return v;
+    }
+
+    /**
+     * a・b
+     * @param a
+     * @param b
+     * @return a・b
+     */
     public long[] mul(long[] a, long[] b) {
+        if (a.length == 2 && b.length == 2) {
+            long vh = 0;
+            long vl = 0;
+            long bh = b[0];
+            long bl = b[1];
+            for (int i = 0; i < 2; i++) {
+                long c = a[i];
+                for (int j = 0; j < 64; j++) {
+                    long m = (c << j) >> 63;
+                    vh ^= bh & m;
+                    vl ^= bl & m;
+                    long r = -(bl & 1);
+                    bl = (bl >>> 1) | (bh << 63);
+                    bh = (bh >>> 1) ^ (constRb & r);
+                }
+            }
+            return new long[] {vh, vl};
+        }
         long[] v = new long[a.length];
         for (int i = 0; i < a.length; i++) {
             long c = a[i];
@@ -115,7 +245,7 @@ public class GFRev {
     static final BigInteger THREE = BigInteger.valueOf(3);
 
 //    static final BigInteger INV_POW = BigInteger.ONE.shiftLeft(128).subtract(TWO);
-    static final long[] INV_LONG_POW = {0xffffffffffffffffl, 0xfffffffffffffffdl};
+    static final long[] INV_LONG_POW = {0xffffffffffffffffl, 0xfffffffffffffffel};
 
     /**
      * 逆数計算.
@@ -159,14 +289,14 @@ public class GFRev {
     }
     
     public long[] pow(long[] p) {
-        long[] n = shL[0];
-        long[] x = {0,1};
+        long[] x = new long[l.length];
+        x[0] = 0x8000000000000000l; // 反転しているので 1 は先頭ビット
         for ( int i = 0; i < p.length; i++) {
             for ( int j = 0; j < 64; j++) {
+                x = mul(x, x);
                 if ( (p[i] << j) < 0) {
-                    x = mul(x, n);
+                    x = mul(x);
                 }
-                x = mul(x, x);
             }
         }
         return x;
@@ -176,7 +306,7 @@ public class GFRev {
 
     public long[] pow(BigInteger p) {
         if ( p.equals(BigInteger.ONE)) {
-            return shL[0];
+            return l;
         } else {
             long[] n;
             if ( p.compareTo(OCT) > 0 ) {
@@ -186,7 +316,7 @@ public class GFRev {
                     n = mul(n,n);
                 }
                 if ( !m.equals(BigInteger.ZERO)) {
-                    n = mul( n, pow(p));
+                    n = mul( n, pow(m));
                 }
                 return n;
             }
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class AsyncChannelBlockTest {
+
+    public AsyncChannelBlockTest() {
+    }
+
+    @Test
+    public void testReadAsync() throws Exception {
+        System.out.println("async read");
+        File f = ChannelBlockTest.file(100000);
+        try (AsyncChannelBlock b = AsyncChannelBlock.open(f.toPath())) {
+            OverBlock dst = OverBlock.wrap(new byte[100]);
+            assertEquals(100, b.readAsync(1000, dst).get());
+            assertEquals(0, dst.length());
+            assertEquals((byte) (1000 * 7), dst.get(0));
+
+            DirectArena arena = new DirectArena();
+            OverBlock tail = arena.alloc(100);
+            assertEquals(50, b.readAsync(99950, tail).get());
+            assertEquals(50, tail.backLength());
+
+            long[] index = new long[64];
+            OverBlock[] dsts = new OverBlock[64];
+            for (int i = 0; i < index.length; i++) {
+                index[i] = i * 1500L;
+                dsts[i] = i % 2 == 0 ? OverBlock.wrap(new byte[16]) : arena.alloc(16);
+            }
+            int[] lens = b.readAsync(index, dsts, 8).get();
+            for (int i = 0; i < index.length; i++) {
+                assertEquals(16, lens[i]);
+                assertEquals((byte) (i * 1500 * 7), dsts[i].get(0));
+            }
+
+            // 続きを投げるときの例外
+            OverBlock[] bad = {OverBlock.wrap(new byte[16]), OverBlock.wrap(new byte[16]), OverBlock.wrap(new byte[16])};
+            CompletableFuture<int[]> fb = b.readAsync(new long[] {0, -1, 100}, bad, 1);
+            ExecutionException ee = assertThrows(ExecutionException.class, () -> fb.get(10, TimeUnit.SECONDS));
+            assertTrue(ee.getCause() instanceof IllegalArgumentException);
+
+            // 同期
+            b.seek(10);
+            byte[] r = new byte[4];
+            assertEquals(4, b.read(r));
+            assertEquals((byte) (13 * 7), r[3]);
+            assertThrows(java.nio.BufferOverflowException.class, () -> b.get(99999, new byte[2], 0, 2));
+        }
+    }
+
+    @Test
+    public void testWriteAsync() throws Exception {
+        System.out.println("async write");
+        File f = ChannelBlockTest.file(10000);
+        try (AsyncChannelBlock b = AsyncChannelBlock.over(f.toPath())) {
+            CompletableFuture<?>[] fs = new CompletableFuture[10];
+            for (int i = 0; i < fs.length; i++) {
+                fs[i] = b.writeAsync(i * 1000L, ByteBuffer.wrap(new byte[] {(byte) i, (byte) i}));
+            }
+            CompletableFuture.allOf(fs).get();
+            ReadableBlock src = ReadableBlock.wrap(new byte[] {9, 8, 7});
+            assertEquals(3, b.writeAsync(5000, src).get());
+            assertEquals(0, src.length());
+            b.seek(9998);
+            b.write(new byte[] {1, 1});
+        }
+        byte[] r = Files.readAllBytes(f.toPath());
+        assertEquals(3, r[3000]);
+        assertEquals(3, r[3001]);
+        assertEquals((byte) (3002 * 7), r[3002]);
+        assertEquals(8, r[5001]);
+        assertEquals(1, r[9999]);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class BlocksTest {
+
+    public BlocksTest() {
+    }
+
+    @Test
+    public void testForEach() {
+        System.out.println("blocks forEach");
+        byte[] s = new byte[0x100000 + 5];
+        for (int i = 0; i < s.length; i++) {
+            s[i] = (byte) i;
+        }
+        OverBlock src = OverBlock.wrap(s);
+        OverBlock dst = OverBlock.wrap(new byte[s.length]);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        // offset で位置を確かめる CTR 風
+        Blocks.forEach(pool, src, dst, 16, 0x1000, (offset, in, out) -> {
+            byte[] d = new byte[(int) in.length()];
+            in.read(d);
+            for (int i = 0; i < d.length; i++) {
+                d[i] ^= (byte) ((offset + i) >>> 4);
+            }
+            out.write(d);
+        });
+        pool.shutdown();
+        assertEquals(0, src.length());
+        assertEquals(s.length, dst.backLength());
+        byte[] r = new byte[s.length];
+        dst.get(0, r, 0, r.length);
+        for (int i = 0; i < r.length; i++) {
+            assertEquals((byte) (i ^ (i >>> 4)), r[i]);
+        }
+    }
+
+    @Test
+    public void testReduce() throws Exception {
+        System.out.println("blocks reduce");
+        File f = ChannelBlockTest.file(300000);
+        try (FileChannel fc = FileChannel.open(f.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ChannelBlock b = new ChannelBlock(fc);
+            long exp = 0;
+            for (int i = 0; i < 300000; i++) {
+                exp += (byte) (i * 7) & 0xff;
+            }
+            long sum = Blocks.reduce(ForkJoinPool.commonPool(), b, 64, 0x4000, in -> {
+                byte[] d = new byte[(int) in.length()];
+                in.read(d);
+                long t = 0;
+                for (byte v : d) {
+                    t += v & 0xff;
+                }
+                return t;
+            }, Long::sum);
+            assertEquals(exp, sum);
+            assertEquals(0, b.backLength());
+
+            // ChannelBlock への並列書き込み
+            Blocks.forEach(b, b, 64, (in, out) -> {
+                byte[] d = new byte[(int) in.length()];
+                in.read(d);
+                for (int i = 0; i < d.length; i++) {
+                    d[i] = (byte) ~d[i];
+                }
+                out.write(d);
+            });
+            byte[] r = new byte[100];
+            b.get(1000, r, 0, 100);
+            assertEquals((byte) ~(1000 * 7), r[0]);
+            assertEquals((byte) ~(1099 * 7), r[99]);
+        }
+    }
+
+    /**
+     * direct ByteBuffer は sub で position を使うので並列に分けても範囲がずれないこと.
+     */
+    @Test
+    public void testDirect() {
+        System.out.println("blocks direct");
+        int len = 0x100000;
+        ByteBuffer sb = ByteBuffer.allocateDirect(len);
+        for (int i = 0; i < len; i++) {
+            sb.put((byte) i);
+        }
+        sb.flip();
+        ByteBufferBlock src = new ByteBufferBlock(sb);
+        ByteBufferBlock dst = new ByteBufferBlock(ByteBuffer.allocateDirect(len));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int n = 0; n < 20; n++) {
+            src.seek(0);
+            dst.seek(0);
+            Blocks.forEach(pool, src, dst, 16, 0x400, (offset, in, out) -> {
+                byte[] d = new byte[(int) in.length()];
+                in.read(d);
+                for (int i = 0; i < d.length; i++) {
+                    d[i] ^= (byte) ((offset + i) >>> 4);
+                }
+                out.write(d);
+            });
+            byte[] r = new byte[len];
+            dst.get(0, r, 0, len);
+            for (int i = 0; i < len; i++) {
+                assertEquals((byte) (i ^ (i >>> 4)), r[i]);
+            }
+            src.seek(0);
+            long sum = Blocks.reduce(pool, src, 16, 0x400, in -> {
+                long t = 0;
+                while (in.length() > 0) {
+                    t += in.read();
+                }
+                return t;
+            }, Long::sum);
+            assertEquals(len / 256 * (255 * 256 / 2), sum);
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InterruptedIOException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class ChannelBlockTest {
+
+    public ChannelBlockTest() {
+    }
+
+    static File file(int len) throws IOException {
+        File f = File.createTempFile("channel", ".bin");
+        f.deleteOnExit();
+        byte[] d = new byte[len];
+        for (int i = 0; i < len; i++) {
+            d[i] = (byte) (i * 7);
+        }
+        Files.write(f.toPath(), d);
+        return f;
+    }
+
+    /**
+     * 同時に get しても position は動かない.
+     */
+    @Test
+    public void testGet() throws Exception {
+        System.out.println("channel get");
+        File f = file(0x10000);
+        try (FileChannel fc = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            ChannelBlock b = new ChannelBlock(fc);
+            b.seek(100);
+            AtomicInteger err = new AtomicInteger();
+            Thread[] ts = new Thread[4];
+            for (int t = 0; t < ts.length; t++) {
+                int s = t;
+                ts[t] = new Thread(() -> {
+                    byte[] r = new byte[16];
+                    for (int i = 0; i < 2000; i++) {
+                        int idx = (i * 31 + s * 1000) % (0x10000 - 16);
+                        b.get(idx, r, 0, 16);
+                        for (int j = 0; j < 16; j++) {
+                            if (r[j] != (byte) ((idx + j) * 7)) {
+                                err.incrementAndGet();
+                            }
+                        }
+                    }
+                });
+                ts[t].start();
+            }
+            for (Thread t : ts) {
+                t.join();
+            }
+            assertEquals(0, err.get());
+            assertEquals(100, b.backLength());
+            assertThrows(java.nio.BufferOverflowException.class, () -> b.get(0x10000 - 4, new byte[8], 0, 8));
+            byte[] r = new byte[10];
+            assertEquals(10, b.backRead(r, 0, 10));
+            assertEquals((byte) (90 * 7), r[0]);
+            assertEquals(90, b.backLength());
+        }
+    }
+
+    @Test
+    public void testTransfer() throws Exception {
+        System.out.println("channel transfer");
+        File f = file(100000);
+        File g = File.createTempFile("channel", ".bin");
+        g.deleteOnExit();
+        try (FileChannel fc = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+                FileChannel gc = FileChannel.open(g.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ChannelBlock src = new ChannelBlock(fc);
+            src.seek(10);
+            assertEquals(99990, src.transferTo(gc, 200000));
+            assertEquals(100000, src.backLength());
+            ChannelBlock dst = new ChannelBlock(gc);
+            Pipe pipe = Pipe.open();
+            Thread w = new Thread(() -> {
+                try {
+                    pipe.sink().write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5}));
+                    pipe.sink().close();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            w.start();
+            dst.seek(5);
+            assertEquals(5, dst.transferFrom(pipe.source(), 100));
+            w.join();
+            assertEquals(10, dst.backLength());
+        }
+        byte[] r = Files.readAllBytes(g.toPath());
+        assertEquals(99990, r.length);
+        assertArrayEquals(new byte[] {(byte) 70, (byte) 77, (byte) 84, (byte) 91, (byte) 98, 1, 2, 3, 4, 5, (byte) 140},
+                java.util.Arrays.copyOf(r, 11));
+
+        byte[] d = new byte[1000];
+        d[999] = 9;
+        BlockChannel bc = new BlockChannel(OverBlock.wrap(d));
+        Pipe pipe = Pipe.open();
+        Thread rd = new Thread(() -> {
+            try {
+                ByteBuffer bb = ByteBuffer.allocate(1000);
+                while (bb.hasRemaining() && pipe.source().read(bb) >= 0) {
+                }
+                assertEquals(9, bb.get(999));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        rd.start();
+        assertEquals(1000, bc.transferTo(pipe.sink(), 2000));
+        pipe.sink().close();
+        rd.join();
+        assertEquals(1000, bc.position());
+    }
+
+    /**
+     * FileChannel 以外でも get と read が混ざらない. 失敗しても位置は戻る.
+     */
+    @Test
+    public void testSeekable() throws Exception {
+        System.out.println("channel seekable");
+        byte[] d = new byte[0x8000];
+        for (int i = 0; i < d.length; i++) {
+            d[i] = (byte) (i * 7);
+        }
+        AtomicInteger fail = new AtomicInteger();
+        BlockChannel bc = new BlockChannel(OverBlock.wrap(d)) {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                if (fail.get() != 0) {
+                    throw new IOException();
+                }
+                return super.read(dst);
+            }
+        };
+        ChannelBlock b = new ChannelBlock(bc);
+        AtomicInteger err = new AtomicInteger();
+        Thread g = new Thread(() -> {
+            byte[] r = new byte[16];
+            for (int i = 0; i < 5000; i++) {
+                int idx = (i * 31) % (d.length - 16);
+                b.get(idx, r, 0, 16);
+                for (int j = 0; j < 16; j++) {
+                    if (r[j] != (byte) ((idx + j) * 7)) {
+                        err.incrementAndGet();
+                    }
+                }
+            }
+        });
+        g.start();
+        byte[] r = new byte[16];
+        for (int p = 0; p < d.length; p += 16) {
+            assertEquals(16, b.read(r, 0, 16));
+            for (int j = 0; j < 16; j++) {
+                if (r[j] != (byte) ((p + j) * 7)) {
+                    err.incrementAndGet();
+                }
+            }
+        }
+        g.join();
+        assertEquals(0, err.get());
+        b.seek(100);
+        fail.set(1);
+        assertThrows(java.nio.BufferOverflowException.class, () -> b.get(10, r, 0, 16));
+        assertEquals(100, b.backLength());
+    }
+
+    /**
+     * 送り先が途中で書けなくなっても読んだ分は失わない.
+     */
+    @Test
+    public void testCopy() throws Exception {
+        System.out.println("channel copy");
+        byte[] d = new byte[1000];
+        for (int i = 0; i < d.length; i++) {
+            d[i] = (byte) i;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicInteger room = new AtomicInteger(100);
+        WritableByteChannel full = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                int l = Math.min(src.remaining(), room.get());
+                out.write(src.array(), src.arrayOffset() + src.position(), l);
+                src.position(src.position() + l);
+                room.addAndGet(-l);
+                return l;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        BlockChannel bc = new BlockChannel(OverBlock.wrap(d));
+        assertEquals(100, BlockChannel.copy(bc, full, 1000));
+        assertEquals(100, bc.position());
+        room.set(1000);
+        assertEquals(900, BlockChannel.copy(bc, full, 1000));
+        assertArrayEquals(d, out.toByteArray());
+
+        out.reset();
+        AtomicInteger calls = new AtomicInteger();
+        WritableByteChannel slow = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                if (calls.incrementAndGet() % 2 == 0) {
+                    return 0;
+                }
+                int l = Math.min(src.remaining(), 7);
+                out.write(src.array(), src.arrayOffset() + src.position(), l);
+                src.position(src.position() + l);
+                return l;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ReadableByteChannel in = Channels.newChannel(new ByteArrayInputStream(d));
+        assertEquals(1000, BlockChannel.copy(in, slow, 2000));
+        assertArrayEquals(d, out.toByteArray());
+
+        // 戻せない src で書けないまま割り込まれたら止まる
+        room.set(10);
+        WritableByteChannel stop = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                int l = full.write(src);
+                if (l == 0) {
+                    Thread.currentThread().interrupt();
+                }
+                return l;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        InterruptedIOException ex = assertThrows(InterruptedIOException.class,
+                () -> BlockChannel.copy(Channels.newChannel(new ByteArrayInputStream(d)), stop, 1000));
+        assertEquals(10, ex.bytesTransferred);
+        assertTrue(Thread.interrupted());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class DirectArenaTest {
+
+    public DirectArenaTest() {
+    }
+
+    @Test
+    public void testAlloc() {
+        System.out.println("arena alloc");
+        DirectArena arena = new DirectArena();
+        DirectArena.DirectBlock a = arena.alloc(100);
+        assertFalse(a.hasArray());
+        assertEquals(100, a.length());
+        assertEquals(0x100000, arena.reservedBytes());
+        assertEquals(0x1000, arena.usedBytes());
+        a.write(new byte[] {1, 2, 3});
+        byte[] r = new byte[3];
+        a.get(0, r, 0, 3);
+        assertArrayEquals(new byte[] {1, 2, 3}, r);
+        a.close();
+        a.close();
+        assertEquals(0, arena.usedBytes());
+        DirectArena.DirectBlock b = arena.alloc(0x1000);
+        assertEquals(0x1000, b.length());
+        DirectArena.DirectBlock big = arena.alloc(0x100000);
+        assertEquals(0x200000, arena.reservedBytes());
+        assertEquals(0x101000, arena.usedBytes());
+        big.close();
+        b.close();
+        assertEquals(0x100000, arena.reservedBytes());
+        assertEquals(0, arena.usedBytes());
+    }
+
+    /**
+     * 返した後は sub の view も含めて使えない.
+     */
+    @Test
+    public void testClosed() {
+        System.out.println("arena closed");
+        DirectArena arena = new DirectArena();
+        DirectArena.DirectBlock a = arena.alloc(100);
+        DirectArena.DirectBlock v = a.sub(10, 20);
+        v.write(new byte[] {7});
+        byte[] r = new byte[1];
+        a.get(10, r, 0, 1);
+        assertEquals(7, r[0]);
+        v.close(); // view では返さない
+        assertEquals(0x1000, arena.usedBytes());
+        a.close();
+        assertThrows(IllegalStateException.class, () -> a.write(new byte[] {1}));
+        assertThrows(IllegalStateException.class, () -> a.put(0, new byte[] {1}));
+        assertThrows(IllegalStateException.class, () -> a.get(0, r, 0, 1));
+        assertThrows(IllegalStateException.class, () -> a.read(r));
+        assertThrows(IllegalStateException.class, () -> v.write(new byte[] {1}));
+        assertThrows(IllegalStateException.class, () -> v.get(0, r, 0, 1));
+        assertThrows(IllegalStateException.class, () -> a.sub(0, 10));
+
+        DirectArena.DirectBlock b = arena.alloc(100); // 同じ slab
+        b.put(10, new byte[] {5});
+        b.get(10, r, 0, 1);
+        assertEquals(5, r[0]);
+        b.close();
+    }
+
+    @Test
+    public void testChannel() throws Exception {
+        System.out.println("arena channel");
+        DirectArena arena = new DirectArena();
+        File f = ChannelBlockTest.file(5000);
+        try (DirectArena.DirectBlock b = arena.alloc(5000);
+                FileChannel fc = FileChannel.open(f.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            while (b.length() > 0 && b.transferFrom(fc) > 0) {
+            }
+            assertEquals(5000, b.backLength());
+            assertEquals((byte) (4999 * 7), b.get(4999));
+            b.seek(0);
+            fc.position(0);
+            b.put(0, new byte[] {9});
+            BlockChannel bc = new BlockChannel(b);
+            assertEquals(5000, bc.transferTo(fc, 6000));
+        }
+        assertEquals(9, Files.readAllBytes(f.toPath())[0]);
+    }
+}
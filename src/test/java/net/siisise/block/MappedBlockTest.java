@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 区間を小さくして区間またぎを試す.
+ */
+public class MappedBlockTest {
+
+    public MappedBlockTest() {
+    }
+
+    static File file(int len) throws IOException {
+        File f = File.createTempFile("mapped", ".bin");
+        f.deleteOnExit();
+        byte[] d = new byte[len];
+        for (int i = 0; i < len; i++) {
+            d[i] = (byte) i;
+        }
+        Files.write(f.toPath(), d);
+        return f;
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        System.out.println("mapped read");
+        File f = file(100);
+        try (RandomAccessFile io = new RandomAccessFile(f, "r")) {
+            MappedBlock b = MappedBlock.map(io.getChannel(), FileChannel.MapMode.READ_ONLY, 0, 100, 4);
+            assertEquals(100, b.length());
+            assertEquals(0, b.read());
+            byte[] r = new byte[40];
+            assertEquals(40, b.read(r));
+            assertEquals(1, r[0]);
+            assertEquals(40, r[39]);
+            assertEquals(41, b.backLength());
+            assertEquals(10, b.backRead(r, 0, 10));
+            assertEquals(31, r[0]);
+            assertEquals(40, r[9]);
+            b.get(90, r, 0, 10);
+            assertEquals(90, r[0]);
+            assertEquals(99, r[9]);
+            assertEquals(31, b.backLength());
+            assertThrows(java.nio.BufferOverflowException.class, () -> b.get(95, new byte[10], 0, 10));
+
+            OverBlock s = b.sub(20, 8); // 1区間
+            assertTrue(s instanceof ByteBufferBlock);
+            assertEquals(20, s.read());
+            OverBlock m = b.sub(10, 50);
+            assertTrue(m instanceof MappedBlock);
+            assertEquals(10, m.read());
+            m.seek(49);
+            assertEquals(59, m.read());
+            assertEquals(-1, m.read());
+            OverBlock fl = m.flip();
+            assertEquals(50, fl.length());
+            assertEquals(10, fl.read());
+            b.seek(0);
+            OverBlock rb = b.readBlock(30);
+            assertEquals(30, b.backLength());
+            assertEquals(30, rb.length());
+            assertEquals(0, rb.read());
+        }
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        System.out.println("mapped write");
+        File f = file(64);
+        try (RandomAccessFile io = new RandomAccessFile(f, "rw")) {
+            MappedBlock b = MappedBlock.map(io.getChannel(), FileChannel.MapMode.READ_WRITE, 0, 64, 4);
+            b.seek(10);
+            b.write(new byte[] {-1, -2, -3, -4, -5, -6, -7, -8}, 0, 8);
+            b.put(60, new byte[] {9, 9, 9, 9}, 0, 4);
+            b.force();
+        }
+        byte[] d = Files.readAllBytes(f.toPath());
+        assertEquals(9, d[9]);
+        assertEquals(-1, d[10]);
+        assertEquals(-8, d[17]);
+        assertEquals(18, d[18]);
+        assertEquals(9, d[63]);
+        ReadableBlock rb = ReadableBlock.wrap(f, true);
+        assertEquals(64, rb.length());
+        rb.skip(10);
+        assertEquals(0xff, rb.read());
+    }
+}
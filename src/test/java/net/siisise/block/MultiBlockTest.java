@@ -0,0 +1,141 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class MultiBlockTest {
+
+    public MultiBlockTest() {
+    }
+
+    /**
+     * 長さ 0 から 9 の断片を交互に詰める.
+     */
+    static MultiBlock multi(int count) {
+        List<OverBlock> list = new ArrayList<>();
+        int v = 0;
+        for (int i = 0; i < count; i++) {
+            byte[] d = new byte[i % 10];
+            for (int j = 0; j < d.length; j++) {
+                d[j] = (byte) v++;
+            }
+            if (i % 3 == 1) {
+                ByteBuffer bb = ByteBuffer.allocateDirect(d.length);
+                bb.put(d).flip();
+                list.add(new ByteBufferBlock(bb));
+            } else if (i % 3 == 2) {
+                list.add(new OverBlock.SubOverBlock(OverBlock.wrap(d)));
+            } else {
+                list.add(OverBlock.wrap(d));
+            }
+        }
+        return new MultiBlock(list);
+    }
+
+    @Test
+    public void testSeek() {
+        System.out.println("multi seek");
+        MultiBlock mb = multi(1000);
+        assertEquals(4500, mb.length());
+        byte[] r = new byte[100];
+        mb.get(1234, r, 0, 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals((byte) (1234 + i), r[i]);
+        }
+        mb.seek(4000);
+        assertEquals(4000, mb.backLength());
+        assertEquals(500, mb.read(new byte[1000], 0, 1000));
+        assertEquals(0, mb.length());
+        assertEquals(10, mb.backRead(r, 0, 10));
+        assertEquals((byte) 4490, r[0]);
+        mb.seek(10);
+        byte[] w = {-1, -2, -3, -4, -5, -6, -7, -8, -9, -10, -11};
+        mb.write(w, 0, w.length);
+        assertEquals(21, mb.backLength());
+        mb.backWrite(w, 0, 3);
+        assertEquals(18, mb.backLength());
+        mb.get(9, r, 0, 13);
+        assertArrayEquals(new byte[] {9, -1, -2, -3, -4, -5, -6, -7, -8, -1, -2, -3, 21}, java.util.Arrays.copyOf(r, 13));
+        assertThrows(java.nio.BufferOverflowException.class, () -> mb.get(4495, new byte[10], 0, 10));
+    }
+
+    @Test
+    public void testAdd() {
+        System.out.println("multi add");
+        MultiBlock mb = multi(3);
+        mb.seek(1);
+        mb.addDirectPrev(OverBlock.wrap(new byte[] {10, 11}));
+        mb.addDirectNext(OverBlock.wrap(new byte[] {12}));
+        assertEquals(6, mb.backLength() + mb.length());
+        assertEquals(3, mb.backLength());
+        byte[] r = new byte[6];
+        mb.get(0, r, 0, 6);
+        assertArrayEquals(new byte[] {10, 11, 0, 1, 2, 12}, r);
+    }
+
+    /**
+     * 細かい Block をたくさん足す.
+     */
+    @Test
+    public void testManyAdd() {
+        System.out.println("multi many add");
+        List<OverBlock> list = new ArrayList<>();
+        list.add(OverBlock.wrap(new byte[] {0}));
+        MultiBlock mb = new MultiBlock(list);
+        for (int i = 1; i <= 50000; i++) {
+            mb.addDirectNext(OverBlock.wrap(new byte[] {(byte) i}));
+            mb.addDirectPrev(OverBlock.wrap(new byte[] {(byte) -i}));
+        }
+        assertEquals(100001, mb.backLength() + mb.length());
+        assertEquals(50000, mb.backLength());
+        byte[] r = new byte[3];
+        mb.get(49999, r, 0, 3);
+        assertArrayEquals(new byte[] {-1, 0, 1}, r);
+        mb.addDirectNext(OverBlock.wrap(new byte[] {99}));
+        mb.get(100001, r, 0, 1);
+        assertEquals(99, r[0]);
+    }
+
+    @Test
+    public void testTransfer() throws Exception {
+        System.out.println("multi transfer");
+        MultiBlock mb = multi(300);
+        File f = File.createTempFile("multi", ".bin");
+        f.deleteOnExit();
+        mb.seek(5);
+        try (FileChannel fc = FileChannel.open(f.toPath(), StandardOpenOption.WRITE)) {
+            assertEquals(1000, mb.transferTo(fc, 1000));
+        }
+        assertEquals(1005, mb.backLength());
+        byte[] r = Files.readAllBytes(f.toPath());
+        assertEquals(1000, r.length);
+        for (int i = 0; i < r.length; i++) {
+            assertEquals((byte) (i + 5), r[i]);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class PageCacheBlockTest {
+
+    public PageCacheBlockTest() {
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        System.out.println("page cache read");
+        File f = ChannelBlockTest.file(0x100000 + 10);
+        try (PageCacheBlock b = PageCacheBlock.wrap(f)) {
+            byte[] r = new byte[100];
+            int n = 0;
+            while (b.length() > 0) {
+                int s = b.read(r);
+                for (int i = 0; i < s; i++) {
+                    assertEquals((byte) ((n + i) * 7), r[i]);
+                }
+                n += s;
+            }
+            assertEquals(0x100000 + 10, n);
+            assertEquals(257, b.readPages());
+            assertTrue(b.misses() < 20, b.toString()); // 先読み
+            Random rnd = new Random(1);
+            for (int i = 0; i < 1000; i++) {
+                int index = rnd.nextInt(0x100000 - 100);
+                b.get(index, r, 0, 100);
+                assertEquals((byte) (index * 7), r[0]);
+                assertEquals((byte) ((index + 99) * 7), r[99]);
+            }
+            assertEquals(10, b.backRead(r, 0, 10));
+            assertEquals((byte) ((0x100000 + 9) * 7), r[9]);
+        }
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        System.out.println("page cache write");
+        File f = ChannelBlockTest.file(100000);
+        try (PageCacheBlock b = new PageCacheBlock(FileChannel.open(f.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE), 10, 4)) {
+            byte[] d = new byte[2000];
+            for (int i = 0; i < 10; i++) {
+                b.put(i * 10000L + 500, d, 0, d.length);
+            }
+            assertTrue(b.writePages() > 0); // 追い出し
+            b.seek(99990);
+            b.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+            assertThrows(java.nio.BufferOverflowException.class, () -> b.write(new byte[1]));
+        }
+        byte[] r = Files.readAllBytes(f.toPath());
+        assertEquals(100000, r.length);
+        assertEquals((byte) (499 * 7), r[499]);
+        assertEquals(0, r[500]);
+        assertEquals(0, r[92499]);
+        assertEquals((byte) (92500 * 7), r[92500]);
+        assertEquals(10, r[99999]);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class PieceBlockTest {
+
+    public PieceBlockTest() {
+    }
+
+    static byte[] concat(byte[] a, int index, byte[] b, int skip) {
+        ByteArrayOutputStream o = new ByteArrayOutputStream();
+        o.write(a, 0, index);
+        o.write(b, 0, b.length);
+        o.write(a, index + skip, a.length - index - skip);
+        return o.toByteArray();
+    }
+
+    /**
+     * 配列での編集と比べる.
+     */
+    @Test
+    public void testRandom() {
+        System.out.println("piece random");
+        Random rnd = new Random(3);
+        byte[] org = new byte[10000];
+        rnd.nextBytes(org);
+        byte[] exp = org.clone();
+        PieceBlock pb = new PieceBlock(org);
+        for (int i = 0; i < 2000; i++) {
+            int index = rnd.nextInt(exp.length + 1);
+            int len = rnd.nextInt(20);
+            byte[] d = new byte[len];
+            rnd.nextBytes(d);
+            switch (rnd.nextInt(3)) {
+                case 0:
+                    pb.add(index, d);
+                    exp = concat(exp, index, d, 0);
+                    break;
+                case 1:
+                    len = Math.min(len, exp.length - index);
+                    pb.del(index, len);
+                    exp = concat(exp, index, new byte[0], len);
+                    break;
+                default:
+                    len = Math.min(len, exp.length - index);
+                    pb.put(index, d, 0, len);
+                    exp = concat(exp, index, Arrays.copyOf(d, len), len);
+            }
+            assertEquals(exp.length, pb.totalLength());
+        }
+        byte[] r = new byte[exp.length];
+        pb.get(0, r, 0, r.length);
+        assertArrayEquals(exp, r);
+        byte[] s = new byte[100];
+        pb.sub(500, 100).get(0, s, 0, 100);
+        assertArrayEquals(Arrays.copyOfRange(exp, 500, 600), s);
+        ByteBlock bb = pb.flatten();
+        assertEquals(1, pb.pieces());
+        assertArrayEquals(exp, bb.toByteArray());
+    }
+
+    @Test
+    public void testPosition() {
+        System.out.println("piece position");
+        PieceBlock pb = new PieceBlock("abcdef".getBytes());
+        pb.seek(3);
+        for (byte c : "XYZ".getBytes()) {
+            pb.add(pb.backLength(), c);
+            pb.skip(1);
+        }
+        assertEquals(3, pb.pieces()); // 続けて追加した分はまとまる
+        pb.add(0, "0".getBytes());
+        assertEquals(7, pb.backLength());
+        assertArrayEquals("XYZ".getBytes(), pb.backDrop(3));
+        assertEquals(4, pb.backLength());
+        pb.write("__".getBytes());
+        byte[] r = new byte[(int) pb.totalLength()];
+        pb.get(0, r, 0, r.length);
+        assertEquals("0abc__f", new String(r));
+        assertEquals(1, pb.read(new byte[2]));
+        assertEquals(0, pb.length());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.block;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import net.siisise.io.PacketA;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class StreamBoxTest {
+
+    public StreamBoxTest() {
+    }
+
+    static byte[] data(int len) {
+        byte[] d = new byte[len];
+        for (int i = 0; i < len; i++) {
+            d[i] = (byte) (i / 16);
+        }
+        return d;
+    }
+
+    @Test
+    public void testInput() {
+        System.out.println("stream input");
+        PacketA pac = new PacketA();
+        pac.write(data(16 * 100 + 5));
+        List<byte[]> l = StreamBox.stream(pac, 16).collect(Collectors.toList());
+        assertEquals(100, l.size());
+        assertEquals((byte) 99, l.get(99)[15]);
+        assertEquals(5, pac.length());
+        assertEquals(0, StreamBox.intStream(pac, 2).count());
+    }
+
+    @Test
+    public void testBlockParallel() {
+        System.out.println("stream block parallel");
+        OverBlock b = OverBlock.wrap(data(16 * 10000 + 3));
+        b.skip(16);
+        long sum = StreamBox.stream(b, 16).parallel().mapToLong(d -> d[0] & 0xff).sum();
+        long exp = 0;
+        for (int i = 1; i < 10000; i++) {
+            exp += i & 0xff;
+        }
+        assertEquals(exp, sum);
+        assertEquals(16 * 10000, b.backLength()); // Input と同じく読んだ分進む
+        b.seek(16);
+        List<long[]> l = StreamBox.longStream(b, 2).parallel().collect(Collectors.toList());
+        assertEquals(9999, l.size());
+        assertEquals(0x0101010101010101L, l.get(0)[0]);
+        b.seek(16);
+        assertEquals(9999, StreamBox.stream(b, 16).spliterator().estimateSize());
+    }
+
+    /**
+     * direct ByteBuffer は分けた先ごとに view を持つ.
+     * view の作れない Block は分けない.
+     */
+    @Test
+    public void testBlockView() {
+        System.out.println("stream block view");
+        byte[] d = data(16 * 10000);
+        ByteBuffer bb = ByteBuffer.allocateDirect(d.length);
+        bb.put(d).flip();
+        ByteBufferBlock b = new ByteBufferBlock(bb);
+        long sum = StreamBox.stream(b, 16).parallel().mapToLong(x -> (x[0] & 0xff) + (x[15] & 0xff)).sum();
+        long exp = 0;
+        for (int i = 0; i < 10000; i++) {
+            exp += (i & 0xff) * 2;
+        }
+        assertEquals(exp, sum);
+        assertEquals(d.length, b.backLength());
+
+        PacketBlock pac = new PacketBlock(d);
+        assertNull(new StreamBox.BlockSpliterator<>(pac, 16, x -> x).trySplit());
+    }
+
+    /**
+     * ChannelBlock は同じ Block のまま範囲で分ける.
+     */
+    @Test
+    public void testChannelSplit() throws Exception {
+        System.out.println("stream channel split");
+        File f = ChannelBlockTest.file(16 * 10000);
+        try (FileChannel fc = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            ChannelBlock b = new ChannelBlock(fc);
+            StreamBox.BlockSpliterator<byte[]> sp = new StreamBox.BlockSpliterator<>(b, 16, x -> x);
+            Spliterator<byte[]> pre = sp.trySplit();
+            assertNotNull(pre);
+            assertEquals(5000, pre.estimateSize());
+            assertEquals(5000, sp.estimateSize());
+            byte[][] first = new byte[1][];
+            sp.tryAdvance(x -> first[0] = x);
+            assertEquals((byte) (16 * 5000 * 7), first[0][0]);
+
+            long sum = StreamBox.stream(b, 16).parallel().mapToLong(x -> x[1] & 0xff).sum();
+            long exp = 0;
+            for (int i = 0; i < 10000; i++) {
+                exp += (i * 16 + 1) * 7 & 0xff;
+            }
+            assertEquals(exp, sum);
+            assertEquals(16 * 10000, b.backLength());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 逐次 BASE64.
+ */
+public class BASE64StreamTest {
+
+    public BASE64StreamTest() {
+    }
+
+    static byte[] data(int len) {
+        byte[] d = new byte[len];
+        new Random(len).nextBytes(d);
+        return d;
+    }
+
+    static BASE64[] codecs() {
+        return new BASE64[] {new BASE64(), new BASE64(76), new BASE64(BASE64.URL, 0), new BASE64(BASE64.PASSWORD, 30),
+            new BASE64.LE(BASE64.PASSWORD, 0), new BASE64.LE(BASE64.BCRYPT, true, 64)};
+    }
+
+    /**
+     * 細切れに渡しても一括と同じになる.
+     */
+    @Test
+    public void testUpdate() {
+        System.out.println("BASE64 update");
+        for (BASE64 b : codecs()) {
+            for (int len : new int[] {0, 1, 2, 5, 100, 20000}) {
+                byte[] src = data(len);
+                String ex = b.encode(src);
+                for (int step : new int[] {1, 2, 7, 4096}) {
+                    BASE64Encoder enc = b.encoder();
+                    PacketA pac = new PacketA();
+                    for (int i = 0; i < len; i += step) {
+                        enc.update(src, i, Math.min(step, len - i), pac);
+                    }
+                    enc.doFinal(pac);
+                    byte[] e = pac.toByteArray();
+                    assertEquals(ex, new String(e, StandardCharsets.ISO_8859_1));
+
+                    BASE64Decoder dec = b.decoder();
+                    for (int i = 0; i < e.length; i += step) {
+                        dec.update(e, i, Math.min(step, e.length - i), pac);
+                    }
+                    dec.doFinal(pac);
+                    assertArrayEquals(src, pac.toByteArray());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFilter() {
+        System.out.println("BASE64 filter");
+        BASE64 b = new BASE64(76);
+        byte[] src = data(100000);
+        PacketA text = new PacketA();
+        BASE64Stream.StreamOutput o = b.encoder().output(text);
+        o.write(src, 0, 33333);
+        o.write(src, 33333, src.length - 33333);
+        o.close();
+        assertEquals(b.encode(src), new String(text.toByteArray(), StandardCharsets.ISO_8859_1));
+
+        text.write(b.encode(src).getBytes(StandardCharsets.ISO_8859_1));
+        Input in = b.decoder().input(text);
+        assertArrayEquals(src, in.toByteArray());
+        assertEquals(-1, in.read(new byte[1], 0, 1));
+    }
+
+    /**
+     * 3 の倍数でない長さも最後のグループとパディングまで出る.
+     */
+    @Test
+    public void testEncodeInput() {
+        System.out.println("BASE64 encoder input");
+        BASE64 b = new BASE64(BASE64.Type.BASE64, 0);
+        assertEquals("AQIDBA==", new String(b.encoder().input(new PacketA(new byte[] {1, 2, 3, 4})).toByteArray(), StandardCharsets.ISO_8859_1));
+        for (int len = 0; len < 8; len++) {
+            byte[] src = data(1000 + len);
+            byte[] e = b.encoder().input(new PacketA(src)).toByteArray();
+            assertEquals(b.encode(src), new String(e, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    /**
+     * 読めるものがないだけなら終わらない.
+     */
+    @Test
+    public void testNonBlocking() {
+        System.out.println("BASE64 non-blocking input");
+        BASE64 b = new BASE64(BASE64.URL, 0); // パディングなし
+        byte[] src = data(1000);
+        byte[] text = b.encode(src).getBytes(StandardCharsets.ISO_8859_1);
+        ConcurrentFIFOPacket pac = new ConcurrentFIFOPacket();
+        Input in = b.decoder().input(pac, true);
+        assertEquals(0, in.read(new byte[10], 0, 10));
+        pac.write(text, 0, 501);
+        byte[] d = new byte[src.length];
+        int p = in.read(d, 0, d.length);
+        assertEquals(375, p);
+        assertEquals(0, in.read(d, p, d.length - p));
+        pac.write(text, 501, text.length - 501);
+        pac.close();
+        while (p < d.length) {
+            int n = in.read(d, p, d.length - p);
+            assertTrue(n > 0);
+            p += n;
+        }
+        assertArrayEquals(src, d);
+        assertEquals(-1, in.read(d, 0, 1));
+    }
+
+    @Test
+    public void testChannel() throws IOException {
+        System.out.println("BASE64 channel");
+        BASE64 b = new BASE64(64);
+        byte[] src = data(50000);
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (WritableByteChannel ch = b.encoder().channel(Channels.newChannel(bout))) {
+            ch.write(ByteBuffer.wrap(src, 0, 10001));
+            ch.write(ByteBuffer.wrap(src, 10001, src.length - 10001));
+        }
+        byte[] text = bout.toByteArray();
+        assertEquals(b.encode(src), new String(text, StandardCharsets.ISO_8859_1));
+
+        ByteArrayOutputStream dout = new ByteArrayOutputStream();
+        try (ReadableByteChannel ch = b.decoder().channel(Channels.newChannel(new ByteArrayInputStream(text)))) {
+            ByteBuffer bb = ByteBuffer.allocate(1000);
+            while (ch.read(bb) >= 0) {
+                bb.flip();
+                dout.write(bb.array(), 0, bb.limit());
+                bb.clear();
+            }
+        }
+        assertArrayEquals(src, dout.toByteArray());
+    }
+}
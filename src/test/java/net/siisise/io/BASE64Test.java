@@ -16,6 +16,8 @@
 package net.siisise.io;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -50,4 +52,52 @@ public class BASE64Test {
         assertArrayEquals(expResult, result);
     }
     
+    /**
+     * 全種類の往復と java.util.Base64 との比較.
+     */
+    @Test
+    public void testRoundTrip() {
+        System.out.println("BASE64 round trip");
+        Random rnd = new Random(7);
+        for (int len : new int[] {0, 1, 2, 3, 5, 6, 7, 11, 12, 47, 48, 57, 100, 1000, 4099}) {
+            byte[] src = new byte[len];
+            rnd.nextBytes(src);
+            for (BASE64.Type type : BASE64.Type.values()) {
+                for (int cols : new int[] {0, 64, 76, 30}) {
+                    BASE64[] bs = {new BASE64(type, cols), new BASE64(type, false, cols), new BASE64.LE(type, cols), new BASE64.LE(type, true, cols)};
+                    for (BASE64 b : bs) {
+                        String e = b.encode(src);
+                        assertArrayEquals(src, b.decode(e), type + " " + cols + " " + len);
+                        assertEquals(e, new String(b.encodeToByte(src, 0, len), StandardCharsets.ISO_8859_1));
+                    }
+                }
+            }
+            assertEquals(Base64.getEncoder().encodeToString(src), new BASE64().encode(src));
+            assertEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(src), new BASE64(BASE64.URL, 0).encode(src));
+            String mime = Base64.getMimeEncoder().encodeToString(src);
+            assertEquals(len == 0 ? "" : mime + "\r\n", new BASE64(76).encode(src));
+            assertArrayEquals(src, new BASE64().decode(mime));
+        }
+    }
+
+    /**
+     * 改行入りでも行末まで 8文字単位の復号で処理する.
+     */
+    @Test
+    public void testDecodeBlocks() {
+        System.out.println("BASE64 decodeBlocks");
+        byte[] src = new byte[570];
+        new Random(3).nextBytes(src);
+        BASE64[] bs = {new BASE64(76), new BASE64.LE(BASE64.Type.PASSWORD, 76)};
+        for (BASE64 b : bs) {
+            String mime = b.encode(src);
+            byte[] out = new byte[src.length];
+            long r = b.decodeBlocks(mime, out);
+            assertEquals(mime.length(), (int) r);
+            assertEquals(src.length, (int) (r >>> 32));
+            assertArrayEquals(src, out);
+            assertArrayEquals(src, b.decode(mime.replace("\r\n", " \n")));
+        }
+    }
+
 }
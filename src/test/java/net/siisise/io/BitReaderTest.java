@@ -0,0 +1,293 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class BitReaderTest {
+
+    public BitReaderTest() {
+    }
+
+    static int[][] values(int count) {
+        Random rnd = new Random(5);
+        int[][] v = new int[count][2];
+        for (int i = 0; i < count; i++) {
+            v[i][1] = rnd.nextInt(33);
+            v[i][0] = (int) (rnd.nextInt() & ((1L << v[i][1]) - 1));
+        }
+        return v;
+    }
+
+    /**
+     * BigBitPacket と同じ並び.
+     */
+    @Test
+    public void testBig() {
+        System.out.println("BitReader big");
+        int[][] vs = values(20000);
+        PacketA pac = new PacketA();
+        BitWriter w = BitWriter.big(pac);
+        BigBitPacket bp = new BigBitPacket();
+        for (int[] v : vs) {
+            w.writeBit(v[0], v[1]);
+            bp.writeBit(v[0], v[1]);
+        }
+        long bits = bp.bitLength();
+        w.close();
+        assertEquals((bits + 7) / 8, pac.length());
+        byte[] exp = new byte[(int) ((bits + 7) / 8)];
+        bp.readBit(exp, 0, bits);
+        byte[] data = pac.toByteArray();
+        assertArrayEquals(exp, data);
+
+        BitReader r = BitReader.big(new PacketA(data));
+        for (int[] v : vs) {
+            assertEquals(v[0] >>> Math.max(0, v[1] - 5), r.peekBits(Math.min(v[1], 5)));
+            assertEquals(v[0], r.readInt(v[1]));
+        }
+        assertTrue(r.bitLength() < 8);
+        r = BitReader.big(data);
+        r.skipBits(vs[0][1]);
+        assertEquals(vs[1][0], r.readInt(vs[1][1]));
+        byte[] b = new byte[4];
+        BitReader r2 = BitReader.big(data);
+        r2.readInt(3);
+        r2.readBit(b, 1, 20);
+        BigBitPacket p2 = new BigBitPacket();
+        p2.write(data);
+        p2.readInt(3);
+        byte[] b2 = new byte[4];
+        p2.readBit(b2, 1, 20);
+        assertArrayEquals(b2, b);
+    }
+
+    @Test
+    public void testLittle() {
+        System.out.println("BitReader little");
+        int[][] vs = values(20000);
+        PacketA pac = new PacketA();
+        BitWriter w = BitWriter.little(pac);
+        long total = 0;
+        for (int[] v : vs) {
+            w.writeBit(v[0], v[1]);
+            total += v[1];
+        }
+        w.writeLong(0x123456789abcdefL, 60);
+        w.close();
+        byte[] data = pac.toByteArray();
+        assertEquals((total + 60 + 7) / 8, data.length);
+        // 1ビットずつ確かめる
+        long bit = 0;
+        for (int[] v : vs) {
+            for (int i = 0; i < v[1]; i++, bit++) {
+                assertEquals((v[0] >>> i) & 1, (data[(int) (bit >>> 3)] >>> (bit & 7)) & 1);
+            }
+        }
+        BitReader r = BitReader.little(data);
+        for (int[] v : vs) {
+            assertEquals(v[0] & 0x1f, r.peekBits(Math.min(v[1], 5)) | (v[0] & ~0x1f & ((1 << Math.min(v[1], 5)) - 1)));
+            assertEquals(v[0], r.readInt(v[1]));
+        }
+        assertEquals(0x123456789abcdefL, r.readLong(60));
+    }
+
+    /**
+     * まとめ読み書きと1個ずつの読み書きが同じ並びになる.
+     */
+    @Test
+    public void testBulk() {
+        System.out.println("readInts writeLongs");
+        Random rnd = new Random(7);
+        for (int w = 0; w <= 64; w++) {
+            long[] src = new long[300];
+            for (int i = 0; i < src.length; i++) {
+                src[i] = w == 0 ? 0 : rnd.nextLong() >>> (64 - w);
+            }
+            int[] isrc = new int[src.length];
+            for (int i = 0; i < src.length; i++) {
+                isrc[i] = (int) src[i];
+            }
+            for (int big = 0; big < 2; big++) {
+                // BitWriter / BitReader
+                PacketA pac = new PacketA();
+                BitWriter bw = big == 0 ? BitWriter.big(pac) : BitWriter.little(pac);
+                bw.writeBit(5, 3);
+                bw.writeLongs(w, src, 0, src.length);
+                if (w <= 32) {
+                    bw.writeInts(w, isrc, 1, src.length - 1);
+                }
+                bw.close();
+                byte[] data = pac.toByteArray();
+                BitReader br = big == 0 ? BitReader.big(data) : BitReader.little(data);
+                assertEquals(5, br.readInt(3));
+                long[] l = new long[src.length];
+                br.readLongs(w, l, 0, l.length);
+                assertArrayEquals(src, l);
+                if (w <= 32) {
+                    int[] n = new int[src.length];
+                    br.readInts(w, n, 1, n.length - 1);
+                    for (int i = 1; i < n.length; i++) {
+                        assertEquals(isrc[i], n[i]);
+                    }
+                }
+
+                // BitPacket 端数あり
+                BaseBitPac bp = big == 0 ? new BigBitPacket() : new LittleBitPacket();
+                bp.writeBit(5, 3);
+                bp.writeLongs(w, src, 0, src.length);
+                bp.writeBit(1, 1);
+                if (w <= 32) {
+                    bp.writeInts(w, isrc, 0, src.length);
+                }
+                BitReader cr = big == 0 ? BitReader.big(data) : BitReader.little(data);
+                assertEquals(5, cr.readInt(3));
+                assertEquals(3 + 1 + (long) w * src.length * (w <= 32 ? 2 : 1), bp.bitLength());
+                assertEquals(5, bp.readInt(3));
+                if (w <= 32) {
+                    for (int i = 0; i < 5; i++) {
+                        assertEquals(isrc[i], bp.readInt(w));
+                    }
+                    long[] r = new long[src.length];
+                    bp.readLongs(w, r, 5, src.length - 5);
+                    for (int i = 5; i < src.length; i++) {
+                        assertEquals(src[i], r[i]);
+                    }
+                    assertEquals(1, bp.readInt(1));
+                    int[] n = new int[src.length];
+                    bp.readInts(w, n, 0, n.length);
+                    assertArrayEquals(isrc, n);
+                } else {
+                    long[] r = new long[src.length];
+                    bp.readLongs(w, r, 0, src.length);
+                    assertArrayEquals(src, r);
+                    assertEquals(1, bp.readInt(1));
+                }
+                assertEquals(0, bp.bitLength());
+                assertThrows(IndexOutOfBoundsException.class, () -> bp.readLongs(1, new long[1], 0, 1));
+            }
+        }
+    }
+
+    /**
+     * 既定の readLongs, writeLongs は上位から. Little は下位から.
+     */
+    @Test
+    public void testDefaultLongs() {
+        System.out.println("default readLongs writeLongs");
+        long[] src = {0x123456789aL, 0xfedcba9876L, 0, 0xffffffffffL};
+        BigBitPacket big = new BigBitPacket();
+        BitOutput out = new BitOutput() {
+            @Override
+            public void writeBit(int data, int bitLength) {
+                big.writeBit(data, bitLength);
+            }
+
+            @Override
+            public void writeBit(byte[] data, long offsetBit, long bitLength) {
+                big.writeBit(data, offsetBit, bitLength);
+            }
+
+            @Override
+            public void writeBit(BitPacket pac, long bitLength) {
+                big.writeBit(pac, bitLength);
+            }
+
+            @Override
+            public void writeBit(BitPacket pac) {
+                big.writeBit(pac);
+            }
+        };
+        out.writeLongs(40, src, 0, src.length);
+        BigBitPacket exp = new BigBitPacket();
+        exp.writeLongs(40, src, 0, src.length);
+        assertArrayEquals(exp.toByteArray(), big.toByteArray());
+
+        big.writeLongs(40, src, 0, src.length);
+        BitInput in = new BitInput() {
+            @Override
+            public int readInt(int bitLength) {
+                return big.readInt(bitLength);
+            }
+
+            @Override
+            public long readBit(byte[] data, long offsetBit, long bitLength) {
+                return big.readBit(data, offsetBit, bitLength);
+            }
+
+            @Override
+            public long bitLength() {
+                return big.bitLength();
+            }
+        };
+        long[] r = new long[src.length];
+        in.readLongs(40, r, 0, r.length);
+        assertArrayEquals(src, r);
+        assertThrows(IndexOutOfBoundsException.class, () -> in.readLongs(40, r, 0, 1));
+
+        LittleBitPacket little = new LittleBitPacket();
+        little.writeLongs(40, src, 0, 1);
+        assertEquals(0x3456789a, little.readInt(32));
+        assertEquals(0x12, little.readInt(8));
+    }
+
+    /**
+     * bitReader / bitWriter のない BaseBitPac は1値ずつ読み書きする.
+     */
+    @Test
+    public void testNoBulk() {
+        System.out.println("BaseBitPac without bitReader");
+        BigBitPacket pac = new BigBitPacket() {
+            @Override
+            protected BitReader bitReader(byte[] data) {
+                return null;
+            }
+
+            @Override
+            protected BitWriter bitWriter(Output out) {
+                return null;
+            }
+        };
+        int[] ints = {5, 0, 7, 3};
+        long[] longs = {0x123456789aL, 0xfedcba9876L};
+        pac.writeBit(1, 1);
+        pac.writeInts(3, ints, 0, ints.length);
+        pac.writeLongs(40, longs, 0, longs.length);
+        IntCode.writeUnary(pac, 70);
+        BigBitPacket exp = new BigBitPacket();
+        exp.writeBit(1, 1);
+        exp.writeInts(3, ints, 0, ints.length);
+        exp.writeLongs(40, longs, 0, longs.length);
+        IntCode.writeUnary(exp, 70);
+        assertEquals(exp.bitLength(), pac.bitLength());
+
+        assertEquals(1, pac.readInt(1));
+        int[] ri = new int[ints.length];
+        pac.readInts(3, ri, 0, ri.length);
+        assertArrayEquals(ints, ri);
+        long[] rl = new long[longs.length];
+        pac.readLongs(40, rl, 0, rl.length);
+        assertArrayEquals(longs, rl);
+        assertEquals(70, IntCode.readUnary(pac));
+        assertEquals(0, pac.bitLength());
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+import net.siisise.block.BlockPacket;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class ChunkPoolTest {
+
+    public ChunkPoolTest() {
+    }
+
+    @Test
+    public void testAlloc() {
+        System.out.println("alloc");
+        ChunkPool pool = new ChunkPool(1, 0x10000);
+        byte[] a = pool.alloc(100);
+        assertEquals(0x1000, a.length);
+        assertEquals(1, pool.misses());
+        pool.release(a);
+        pool.release(new byte[0x1000]); // global
+        pool.release(new byte[123]); // 区分外
+        assertEquals(0x2000, pool.pooledBytes());
+        assertEquals(0x1000, pool.globalBytes());
+        assertSame(a, pool.alloc(0x1000));
+        pool.alloc(1);
+        assertEquals(2, pool.hits());
+        assertEquals(0, pool.pooledBytes());
+        assertEquals(2.0 / 3, pool.hitRate(), 0.0001);
+    }
+
+    @Test
+    public void testPacket() {
+        System.out.println("pool packet");
+        ChunkPool pool = new ChunkPool();
+        byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        Input[] ins = {new PacketA(pool), new FIFOPacket(pool), new BlockPacket(pool)};
+        for (Input in : ins) {
+            Output out = (Output) in;
+            for (int n = 0; n < 3; n++) {
+                out.write(data, 0, 5000);
+                out.write(data, 5000, 5000);
+                assertEquals(10000, in.length());
+                byte[] r = new byte[10000];
+                assertEquals(10000, in.read(r));
+                assertArrayEquals(data, r);
+            }
+        }
+        assertTrue(pool.hits() > 0);
+    }
+
+    /**
+     * dwrite した配列は pool に入らない.
+     */
+    @Test
+    public void testOwned() throws InterruptedException {
+        System.out.println("dwrite owned");
+        ChunkPool pool = new ChunkPool();
+        byte[] mine = new byte[0x1000];
+        PacketA pac = new PacketA(pool);
+        pac.dwrite(mine);
+        pac.read(new byte[0x1000]);
+        FIFOPacket fifo = new FIFOPacket(pool);
+        fifo.dwrite(mine);
+        fifo.read(new byte[0x1000]);
+        ConcurrentFIFOPacket cf = new ConcurrentFIFOPacket(false, 0, pool);
+        cf.dwrite(mine);
+        cf.write(new byte[10]);
+        cf.read(new byte[0x1000 + 10]);
+        assertEquals(0, pool.pooledBytes());
+        assertNotSame(mine, pool.alloc(0x1000));
+
+        // 短い Input
+        FIFOPacket f = new FIFOPacket(pool);
+        assertEquals(3, f.write(new PacketA(new byte[] {1, 2, 3}), 10));
+        assertEquals(3, f.length());
+
+        // 終了したスレッドの分は数えない
+        Thread t = new Thread(() -> pool.release(new byte[0x1000]));
+        t.start();
+        t.join();
+        assertEquals(0, pool.pooledBytes());
+    }
+
+    /**
+     * 別の PacketA に移った配列も借りた pool に返す.
+     */
+    @Test
+    public void testMove() {
+        System.out.println("pool move");
+        ChunkPool pool = new ChunkPool();
+        PacketA p = new PacketA(pool);
+        p.write(new byte[2000]);
+        PacketA q = new PacketA();
+        q.write(p);
+        assertEquals(2000, q.read(new byte[2000]));
+        assertEquals(0x1000, pool.pooledBytes());
+
+        ChunkPool other = new ChunkPool();
+        p.write(new byte[2000]);
+        PacketA o = new PacketA(other);
+        o.backWrite(p);
+        assertEquals(2000, o.read(new byte[2000]));
+        assertEquals(0x1000, pool.pooledBytes());
+        assertEquals(0, other.pooledBytes());
+
+        // del で外した分
+        p.write(new byte[3000]);
+        p.write(new byte[3000]);
+        long before = pool.pooledBytes();
+        p.del(0, p.length());
+        assertEquals(before + 0x2000, pool.pooledBytes());
+        assertEquals(0, p.length());
+    }
+
+    /**
+     * 小さい書き込みは借りた配列の空きに詰める.
+     */
+    @Test
+    public void testSmallWrites() {
+        System.out.println("pool small writes");
+        Output[] outs = {new FIFOPacket(new ChunkPool()), new BlockPacket(new ChunkPool())};
+        for (Output out : outs) {
+            for (int i = 0; i < 10000; i++) {
+                out.write(i);
+            }
+            Input in = (Input) out;
+            assertEquals(10000, in.length());
+            byte[] r = new byte[10000];
+            assertEquals(10000, in.read(r));
+            for (int i = 0; i < r.length; i++) {
+                assertEquals((byte) i, r[i]);
+            }
+        }
+        ChunkPool pool = new ChunkPool();
+        FIFOPacket f = new FIFOPacket(pool);
+        for (int i = 0; i < 10000; i++) {
+            f.write(i);
+        }
+        assertEquals(3, pool.misses()); // 4KiB 3つ
+
+        pool = new ChunkPool();
+        BlockPacket b = new BlockPacket(pool);
+        for (int i = 0; i < 5000; i++) {
+            b.backWrite(new byte[] {(byte) i}, 0, 1);
+        }
+        assertEquals(2, pool.misses());
+        byte[] r = new byte[5000];
+        assertEquals(5000, b.read(r));
+        assertEquals((byte) 4999, r[0]);
+        assertEquals((byte) 0, r[4999]);
+    }
+}
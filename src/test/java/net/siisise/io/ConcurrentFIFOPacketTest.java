@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class ConcurrentFIFOPacketTest {
+
+    public ConcurrentFIFOPacketTest() {
+    }
+
+    @Test
+    public void testSPSC() throws InterruptedException {
+        System.out.println("SPSC");
+        ConcurrentFIFOPacket pac = new ConcurrentFIFOPacket(false, 1000);
+        Thread w = new Thread(() -> {
+            byte[] d = new byte[100];
+            for (int i = 0; i < 1000; i++) {
+                for (int j = 0; j < d.length; j++) {
+                    d[j] = (byte) (i + j);
+                }
+                pac.write(d);
+            }
+            pac.close();
+        });
+        w.start();
+        byte[] r = new byte[100];
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(100, pac.readFully(r, 0, r.length));
+            assertEquals((byte) i, r[0]);
+            assertEquals((byte) (i + 99), r[99]);
+        }
+        assertEquals(-1, pac.take(r, 0, 1));
+        w.join();
+    }
+
+    @Test
+    public void testMPSC() throws InterruptedException {
+        System.out.println("MPSC");
+        ConcurrentFIFOPacket pac = new ConcurrentFIFOPacket(true, 0x10000);
+        Thread[] ws = new Thread[4];
+        for (int n = 0; n < ws.length; n++) {
+            ws[n] = new Thread(() -> {
+                byte[] d = new byte[] {1, 2, 3, 4};
+                for (int i = 0; i < 10000; i++) {
+                    pac.write(d);
+                }
+            });
+            ws[n].start();
+        }
+        long sum = 0;
+        byte[] r = new byte[4];
+        for (int i = 0; i < 10000 * ws.length; i++) {
+            assertEquals(4, pac.readFully(r, 0, 4));
+            assertArrayEquals(new byte[] {1, 2, 3, 4}, r);
+            sum += 4;
+        }
+        assertEquals(160000, sum);
+        for (Thread w : ws) {
+            w.join();
+        }
+        assertEquals(0, pac.length());
+    }
+
+    @Test
+    public void testOffer() throws InterruptedException {
+        System.out.println("offer");
+        ConcurrentFIFOPacket pac = new ConcurrentFIFOPacket(false, 10);
+        assertTrue(pac.offer(new byte[8], 0, 8));
+        assertFalse(pac.offer(new byte[3], 0, 3));
+        assertEquals(0, pac.read(new byte[0]));
+        byte[] r = new byte[8];
+        assertEquals(8, pac.poll(r, 0, 8, 1, TimeUnit.SECONDS));
+        assertEquals(0, pac.poll(r, 0, 8, 10, TimeUnit.MILLISECONDS));
+        assertTrue(pac.offer(new byte[3], 0, 3));
+    }
+}
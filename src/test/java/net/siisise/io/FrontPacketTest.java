@@ -75,4 +75,68 @@ public class FrontPacketTest {
         frontPacket(pac);
     }
 
+    /**
+     * 少しずつ届く Stream で待って読む.
+     */
+    @Test
+    public void testStreamFront() throws Exception {
+        System.out.println("StreamFrontPacket buffered");
+        java.io.PipedOutputStream out = new java.io.PipedOutputStream();
+        java.io.PipedInputStream pin = new java.io.PipedInputStream(out, 0x10000);
+        Thread w = new Thread(() -> {
+            try {
+                for (int i = 0; i < 100; i++) {
+                    out.write(new byte[] {(byte) i, (byte) i, (byte) i});
+                    out.flush();
+                    Thread.sleep(1);
+                }
+                out.write(new byte[5000]);
+                out.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        w.start();
+        StreamFrontPacket sp = new StreamFrontPacket(pin, 1024);
+        byte[] buf = new byte[10];
+        assertEquals(10, sp.peek(buf, 0, 10));
+        assertEquals(3, buf[9]);
+        assertTrue(sp.readable(30));
+        assertEquals(0, sp.read());
+        assertEquals(10, sp.readFully(buf, 0, 10));
+        assertEquals(3, buf[8]);
+        assertEquals(3, buf[9]);
+        sp.backWrite(new byte[] {-1});
+        assertEquals(-1, (byte) sp.read());
+        byte[] all = new byte[10000];
+        assertEquals(300 - 11 + 5000, sp.readFully(all, 0, all.length));
+        assertEquals(99, all[288]);
+        assertFalse(sp.readable(1));
+        assertEquals(-1, sp.read());
+        assertEquals(0, sp.read(buf, 0, 10));
+        w.join();
+    }
+
+    /**
+     * 先読みした残りとStreamにある分をまたいで get する.
+     */
+    @Test
+    public void testStreamFrontGet() {
+        System.out.println("StreamFrontPacket get");
+        byte[] src = new byte[100];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (byte) (i + 1);
+        }
+        StreamFrontPacket sp = new StreamFrontPacket(new java.io.ByteArrayInputStream(src), 16);
+        assertEquals(1, sp.read());
+        assertEquals(99, sp.size());
+        byte[] d = new byte[50];
+        assertEquals(50, sp.get(d, 0, 50));
+        for (int i = 0; i < 50; i++) {
+            assertEquals(src[i + 1], d[i]);
+        }
+        assertThrows(java.nio.BufferOverflowException.class, () -> sp.get(new byte[60], 0, 60));
+        assertEquals(49, sp.length());
+        assertEquals(49, sp.read(new byte[60], 0, 60));
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class IntCodeTest {
+
+    public IntCodeTest() {
+    }
+
+    static byte[] big(IntCode code, long v) {
+        PacketA pac = new PacketA();
+        BitWriter w = BitWriter.big(pac);
+        code.encode(w, v);
+        assertEquals(code.bitLength(v), w.bitLength());
+        w.close();
+        return pac.toByteArray();
+    }
+
+    @Test
+    public void testCode() {
+        System.out.println("gamma delta rice");
+        assertArrayEquals(new byte[] {(byte) 0x80}, big(IntCode.GAMMA, 0)); // 1
+        assertArrayEquals(new byte[] {0x40}, big(IntCode.GAMMA, 1)); // 010
+        assertArrayEquals(new byte[] {0x28}, big(IntCode.GAMMA, 4)); // 00101
+        assertArrayEquals(new byte[] {0x40}, big(IntCode.DELTA, 1)); // 0100
+        assertArrayEquals(new byte[] {0x28, (byte) 0x80}, big(IntCode.DELTA, 16)); // 001010001
+        assertArrayEquals(new byte[] {0x28}, big(IntCode.rice(2), 9)); // 001 01
+        assertArrayEquals(new byte[] {(byte) 0xc0}, big(IntCode.expGolomb(1), 1)); // 1 1
+        assertEquals(9, IntCode.DELTA.bitLength(16));
+        assertThrows(IllegalArgumentException.class, () -> big(IntCode.GAMMA, -1));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        System.out.println("int code round trip");
+        Random rnd = new Random(11);
+        long[] src = new long[3000];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = rnd.nextLong() >>> (2 + rnd.nextInt(62));
+        }
+        src[0] = 0;
+        src[1] = (1L << 62) - 1;
+        src[2] = 1L << 40;
+        IntCode[] codes = {IntCode.GAMMA, IntCode.DELTA, IntCode.expGolomb(3), IntCode.rice(60)};
+        for (IntCode code : codes) {
+            for (int big = 0; big < 2; big++) {
+                PacketA pac = new PacketA();
+                BitWriter w = big == 0 ? BitWriter.big(pac) : BitWriter.little(pac);
+                w.writeBit(1, 1);
+                code.encode(w, src, 0, src.length);
+                w.close();
+                byte[] data = pac.toByteArray();
+
+                BitReader r = big == 0 ? BitReader.big(data) : BitReader.little(data);
+                assertEquals(1, r.readInt(1));
+                long[] d = new long[src.length];
+                code.decode(r, d, 0, d.length);
+                assertArrayEquals(src, d);
+
+                BaseBitPac bp = big == 0 ? new BigBitPacket() : new LittleBitPacket();
+                bp.write(data);
+                assertEquals(1, bp.readInt(1));
+                for (int i = 0; i < 50; i++) {
+                    assertEquals(src[i], code.decode(bp));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSorted() {
+        System.out.println("posting list");
+        Random rnd = new Random(13);
+        int[] ids = new int[10000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = rnd.nextInt(1000000);
+        }
+        Arrays.sort(ids);
+        for (IntCode code : new IntCode[] {IntCode.GAMMA, IntCode.DELTA, IntCode.rice(6), IntCode.expGolomb(5)}) {
+            BigBitPacket bp = new BigBitPacket();
+            code.encodeSorted(bp, ids, 0, ids.length);
+            long bits = bp.bitLength();
+            assertTrue(bits < ids.length * 16L); // LEB128 なら 16ビット以上
+            bp.writeBit(0, (int) (-bits & 7));
+            int[] d = new int[ids.length];
+            code.decodeSorted(BitReader.big(bp.toByteArray()), d, 0, d.length);
+            assertArrayEquals(ids, d);
+        }
+    }
+
+    @Test
+    public void testUnsignedSorted() {
+        System.out.println("unsigned sorted");
+        int[] ids = {0, 5, 0x7fffffff, 0x80000000, 0xfffffff0, -1};
+        BigBitPacket bp = new BigBitPacket();
+        IntCode.DELTA.encodeSorted(bp, ids, 0, ids.length);
+        int[] d = new int[ids.length];
+        IntCode.DELTA.decodeSorted(bp, d, 0, d.length);
+        assertArrayEquals(ids, d);
+        assertEquals(0, bp.bitLength());
+    }
+
+    @Test
+    public void testUnaryPac() {
+        System.out.println("unary on bit packet");
+        long[] runs = {0, 1, 7, 55, 56, 57, 200, 3};
+        for (int big = 0; big < 2; big++) {
+            BaseBitPac bp = big == 0 ? new BigBitPacket() : new LittleBitPacket();
+            bp.writeBit(5, 3);
+            for (long q : runs) {
+                IntCode.writeUnary(bp, q);
+            }
+            bp.writeBit(2, 2);
+            assertEquals(5, bp.readInt(3));
+            for (long q : runs) {
+                assertEquals(q, IntCode.readUnary(bp));
+            }
+            assertEquals(2, bp.bitLength());
+            assertEquals(2, bp.readInt(2));
+            assertEquals(0, bp.bitLength());
+            assertThrows(IndexOutOfBoundsException.class, () -> IntCode.readUnary(bp));
+        }
+    }
+}
@@ -95,4 +95,81 @@ public class PacketATest {
         assertArrayEquals(expResult, pac2.toByteArray());
     }
     
+    @Test
+    public void testLength() {
+        System.out.println("length");
+        PacketA pac = new PacketA();
+        for (int i = 0; i < 100; i++) {
+            pac.dwrite(new byte[] {(byte)i, (byte)i});
+        }
+        assertEquals(200, pac.length());
+        byte[] d = new byte[3];
+        pac.read(d);
+        pac.backRead(d);
+        assertEquals(194, pac.length());
+        assertTrue(pac.readable(194));
+        assertFalse(pac.readable(195));
+        PacketA half = pac.readPacket(97);
+        assertEquals(97, half.length());
+        assertEquals(97, pac.length());
+        pac.write(half);
+        assertEquals(0, half.length());
+        assertEquals(194, pac.length());
+    }
+
+    @Test
+    public void testIndexEdit() {
+        System.out.println("index edit");
+        PacketA pac = new PacketA();
+        byte[] exp = new byte[300];
+        for (int i = 0; i < 100; i++) {
+            byte[] d = new byte[] {(byte)(i * 3), (byte)(i * 3 + 1), (byte)(i * 3 + 2)};
+            pac.dwrite(d);
+            System.arraycopy(d, 0, exp, i * 3, 3);
+        }
+        byte[] d = new byte[7];
+        pac.get(100, d);
+        assertArrayEquals(java.util.Arrays.copyOfRange(exp, 100, 107), d);
+
+        pac.put(50, new byte[] {-1, -2, -3, -4});
+        exp[50] = -1; exp[51] = -2; exp[52] = -3; exp[53] = -4;
+        pac.get(49, d);
+        assertArrayEquals(java.util.Arrays.copyOfRange(exp, 49, 56), d);
+
+        pac.add(151, new byte[] {9, 9});
+        pac.del(10, 5);
+        assertEquals(297, pac.length());
+        byte[] r = pac.toByteArray();
+        assertEquals(exp[9], r[9]);
+        assertEquals(exp[15], r[10]);
+        assertEquals(exp[150], r[145]);
+        assertEquals(9, r[146]);
+        assertEquals(9, r[147]);
+        assertEquals(exp[151], r[148]);
+        assertEquals(exp[299], r[296]);
+    }
+
+    /**
+     * dwrite した配列は put などで書き換えない.
+     */
+    @Test
+    public void testShared() {
+        System.out.println("dwrite shared");
+        PacketA r = new PacketA();
+        byte[] mine = {1, 2, 3, 4};
+        r.dwrite(mine);
+        r.put(1, new byte[] {9}, 0, 1);
+        assertArrayEquals(new byte[] {1, 2, 3, 4}, mine);
+        assertArrayEquals(new byte[] {1, 9, 3, 4}, r.toByteArray());
+
+        byte[] back = {5, 6, 7, 8};
+        PacketA b = new PacketA();
+        b.dbackWrite(back);
+        b.read(new byte[2]);
+        b.backWrite(new byte[] {0, 0}); // 読んだ後の空き
+        b.write(new byte[] {1}); // 末尾の空きなし
+        assertArrayEquals(new byte[] {5, 6, 7, 8}, back);
+        assertArrayEquals(new byte[] {0, 0, 7, 8, 1}, b.toByteArray());
+    }
+
 }
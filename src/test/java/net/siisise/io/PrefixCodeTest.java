@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.io;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ */
+public class PrefixCodeTest {
+
+    public PrefixCodeTest() {
+    }
+
+    /**
+     * DEFLATE の固定ハフマン符号.
+     */
+    static int[] fixed() {
+        int[] l = new int[288];
+        Arrays.fill(l, 0, 144, 8);
+        Arrays.fill(l, 144, 256, 9);
+        Arrays.fill(l, 256, 280, 7);
+        Arrays.fill(l, 280, 288, 8);
+        return l;
+    }
+
+    /**
+     * 長い符号を含む偏った符号長.
+     */
+    static int[] skew() {
+        int[] l = new int[24];
+        for (int i = 0; i < 23; i++) {
+            l[i] = i + 1;
+        }
+        l[23] = 23;
+        return l;
+    }
+
+    /**
+     * HPACK (RFC 7541 Appendix B) の符号長. 30ビットまである.
+     */
+    static int[] hpack() {
+        return new int[] {
+            13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+            6, 10, 10, 12, 13, 6, 8, 11, 10, 10, 8, 11, 8, 6, 6, 6, 5, 5, 5, 6, 6, 6, 6, 6, 6, 6, 7, 8, 15, 6, 12, 10,
+            13, 6, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 8, 7, 8, 13, 19, 13, 14, 6,
+            15, 5, 6, 5, 6, 5, 6, 6, 6, 5, 7, 7, 6, 6, 6, 5, 6, 7, 6, 5, 5, 6, 7, 7, 7, 7, 7, 15, 11, 14, 13, 28,
+            20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23, 24, 24, 22, 23, 24, 23, 23, 23, 23, 21, 22, 23, 22, 23, 23, 24,
+            22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23, 21, 21, 22, 21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23,
+            26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26, 24, 25, 19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27,
+            20, 24, 20, 21, 22, 21, 21, 23, 22, 22, 25, 25, 24, 24, 26, 23, 26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26,
+            30
+        };
+    }
+
+    @Test
+    public void testCanonical() {
+        System.out.println("canonical");
+        PrefixCode pc = PrefixCode.big(fixed());
+        assertEquals(0x30, pc.code(0));
+        assertEquals(0x190, pc.code(144));
+        assertEquals(9, pc.length(144));
+        assertEquals(0, pc.code(256));
+        assertEquals(0xc0, pc.code(280));
+
+        // DEFLATE は符号の上位ビットを下位から詰める
+        PacketA pac = new PacketA();
+        BitWriter w = BitWriter.little(pac);
+        PrefixCode.little(fixed()).encode(w, 0);
+        w.close();
+        assertArrayEquals(new byte[] {0x0c}, pac.toByteArray());
+
+        assertThrows(IllegalArgumentException.class, () -> PrefixCode.big(1, 1, 1));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        System.out.println("prefix code");
+        Random rnd = new Random(3);
+        for (int[] lengths : new int[][] {fixed(), skew(), {0, 1, 0}}) {
+            int[] syms = new int[5000];
+            for (int i = 0; i < syms.length; i++) {
+                do {
+                    syms[i] = rnd.nextInt(lengths.length);
+                } while (lengths[syms[i]] == 0);
+            }
+            for (int big = 0; big < 2; big++) {
+                PrefixCode pc = new PrefixCode(lengths, big == 0);
+                PacketA pac = new PacketA();
+                BitWriter w = big == 0 ? BitWriter.big(pac) : BitWriter.little(pac);
+                w.writeBit(3, 2);
+                pc.encode(w, syms, 0, syms.length);
+                w.close();
+                byte[] data = pac.toByteArray();
+
+                BitReader r = big == 0 ? BitReader.big(data) : BitReader.little(data);
+                assertEquals(3, r.readInt(2));
+                int[] d = new int[syms.length];
+                pc.decode(r, d, 0, d.length);
+                assertArrayEquals(syms, d);
+                assertTrue(r.bitLength() < 8);
+
+                BaseBitPac bp = big == 0 ? new BigBitPacket() : new LittleBitPacket();
+                bp.write(data);
+                assertEquals(3, bp.readInt(2));
+                for (int s : syms) {
+                    assertEquals(s, pc.decode(bp));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInvalid() {
+        System.out.println("invalid code");
+        // 1 だけの不完全な符号
+        PrefixCode pc = PrefixCode.big(0, 1);
+        assertEquals(1, pc.decode(BitReader.big(new byte[] {0x00})));
+        assertThrows(IllegalStateException.class, () -> pc.decode(BitReader.big(new byte[] {(byte) 0x80})));
+    }
+
+    /**
+     * 長い符号でも表は符号の数程度.
+     */
+    @Test
+    public void testHpack() {
+        System.out.println("hpack");
+        PrefixCode pc = PrefixCode.big(hpack());
+        assertEquals(0x1ff8, pc.code(0));
+        assertEquals(0x0, pc.code('0'));
+        assertEquals(0x7fff0, pc.code('\\'));
+        assertEquals(0x3fffffff, pc.code(256));
+        assertTrue(pc.table.length < 4096, "table " + pc.table.length);
+        // RFC 7541 C.4.1
+        byte[] src = {(byte) 0xf1, (byte) 0xe3, (byte) 0xc2, (byte) 0xe5, (byte) 0xf2, 0x3a, 0x6b, (byte) 0xa0, (byte) 0xab, (byte) 0x90, (byte) 0xf4, (byte) 0xff};
+        BitReader r = BitReader.big(src);
+        StringBuilder sb = new StringBuilder();
+        while (r.bitLength() >= 8) {
+            sb.append((char) pc.decode(r));
+        }
+        assertEquals("www.example.com", sb.toString());
+
+        Random rnd = new Random(5);
+        int[] syms = new int[3000];
+        for (int i = 0; i < syms.length; i++) {
+            syms[i] = rnd.nextInt(257);
+        }
+        for (int big = 0; big < 2; big++) {
+            PrefixCode p = new PrefixCode(hpack(), big == 0);
+            PacketA pac = new PacketA();
+            BitWriter w = big == 0 ? BitWriter.big(pac) : BitWriter.little(pac);
+            p.encode(w, syms, 0, syms.length);
+            w.close();
+            byte[] data = pac.toByteArray();
+            int[] d = new int[syms.length];
+            p.decode(big == 0 ? BitReader.big(data) : BitReader.little(data), d, 0, d.length);
+            assertArrayEquals(syms, d);
+            BaseBitPac bp = big == 0 ? new BigBitPacket() : new LittleBitPacket();
+            bp.write(data);
+            for (int i = 0; i < 300; i++) {
+                assertEquals(syms[i], p.decode(bp));
+            }
+        }
+    }
+}
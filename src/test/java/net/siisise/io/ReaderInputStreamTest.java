@@ -15,7 +15,13 @@
  */
 package net.siisise.io;
 
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -56,4 +62,43 @@ public class ReaderInputStreamTest {
         int result = instance.available();
         assertEquals(expResult, result);
     }
+
+    /**
+     * 少しずつ返す Reader.
+     */
+    static class SlowReader extends FilterReader {
+
+        SlowReader(Reader r) {
+            super(r);
+        }
+
+        @Override
+        public int read(char[] c, int off, int len) throws IOException {
+            return super.read(c, off, Math.min(len, 7));
+        }
+    }
+
+    @Test
+    public void testBulk() throws Exception {
+        System.out.println("bulk");
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            sb.append("a\u00e9\u3042").appendCodePoint(0x1f600 + (i % 40));
+        }
+        sb.append('\ud800'); // 対にならない
+        String str = sb.toString();
+        byte[] exp = str.substring(0, str.length() - 1).getBytes(StandardCharsets.UTF_8);
+        for (Reader r : new Reader[] {new StringReader(str), new SlowReader(new StringReader(str))}) {
+            ReaderInputStream in = new ReaderInputStream(r);
+            byte[] res = FileIO.binRead(in);
+            assertEquals(exp.length + 3, res.length);
+            assertArrayEquals(exp, Arrays.copyOf(res, exp.length));
+            assertEquals((byte) 0xed, res[exp.length]);
+            assertTrue(in.pool.hits() > 0); // 変換先を使い回す
+        }
+        Charset utf16 = Charset.forName("UTF-16BE");
+        ReaderInputStream in = new ReaderInputStream(new SlowReader(new StringReader(str)), 100, utf16);
+        byte[] res = FileIO.binRead(in);
+        assertArrayEquals(exp, new String(res, utf16).substring(0, str.length() - 1).getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -16,6 +16,9 @@
 package net.siisise.lang;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
 import net.siisise.io.BASE64;
 import net.siisise.io.FileIO;
 import org.junit.jupiter.api.Test;
@@ -392,4 +395,63 @@ public class BinTest {
         long[] result = Bin.shr(a);
         assertArrayEquals(expResult, result);
     }
+
+    /**
+     * btoi, btoli, btol, btoll と逆変換.
+     * ByteBuffer の読み書きと同じになる.
+     */
+    @Test
+    public void testConvert() {
+        System.out.println("btoi btol");
+        byte[] src = new byte[100];
+        new Random(1).nextBytes(src);
+        ByteBuffer be = ByteBuffer.wrap(src);
+        ByteBuffer le = ByteBuffer.wrap(src).order(ByteOrder.LITTLE_ENDIAN);
+
+        int[] i = Bin.btoi(src);
+        int[] li = Bin.btoli(src, 4, 20);
+        long[] l = Bin.btol(src, 4, 12);
+        long[] ll = new long[14];
+        Bin.btoll(src, 3, ll, 2, 12);
+        assertEquals(25, i.length);
+        for (int n = 0; n < 20; n++) {
+            assertEquals(be.getInt(n * 4), i[n]);
+            assertEquals(le.getInt(4 + n * 4), li[n]);
+        }
+        for (int n = 0; n < 12; n++) {
+            assertEquals(be.getLong(4 + n * 8), l[n]);
+            assertEquals(le.getLong(3 + n * 8), ll[2 + n]);
+        }
+
+        assertArrayEquals(src, Bin.itob(i));
+        byte[] d = new byte[100];
+        Bin.litob(li, 0, 20, d, 4);
+        Bin.ltob(l, 1, 2, d, 0);
+        assertEquals(be.getLong(12), ByteBuffer.wrap(d).getLong(0));
+        assertEquals(le.getInt(80), ByteBuffer.wrap(d).order(ByteOrder.LITTLE_ENDIAN).getInt(80));
+        d = Bin.lltob(ll);
+        assertEquals(le.getLong(3), ByteBuffer.wrap(d).order(ByteOrder.LITTLE_ENDIAN).getLong(16));
+
+        // direct, byte order は無視
+        ByteBuffer direct = ByteBuffer.allocateDirect(100).order(ByteOrder.LITTLE_ENDIAN);
+        direct.put(src).flip();
+        int[] bi = new int[25];
+        Bin.btoi(direct, bi, 0, 25);
+        assertArrayEquals(i, bi);
+        assertEquals(100, direct.position());
+        direct.clear();
+        Bin.ltob(l, 0, 12, direct);
+        Bin.litob(li, 0, 1, direct);
+        assertEquals(100, direct.flip().limit());
+        long[] dl = new long[12];
+        Bin.btol(direct, dl, 0, 12);
+        assertArrayEquals(l, dl);
+        int[] dli = new int[1];
+        Bin.btoli(direct, dli, 0, 1);
+        assertEquals(li[0], dli[0]);
+
+        byte[] out = new byte[10];
+        Bin.toByte(0x0102030405060708L, out, 2);
+        assertArrayEquals(new byte[] {0, 0, 1, 2, 3, 4, 5, 6, 7, 8}, out);
+    }
 }
@@ -173,4 +173,26 @@ public class GFLTest {
         System.out.println(" r2     " + Bin.toUpperHex(r2));
         
     }
+
+    @Test
+    public void testMulTo() {
+        System.out.println("GFL.mulTo");
+        long[] a = Bin.btol(Bin.toByteArray("0388dace60b6a392f328c2b971b2fe78"));
+        long[] b = Bin.btol(Bin.toByteArray("66E94BD4EF8A2C3B884CFA59CA342B2E"));
+        long[] ex = Bin.btol(Bin.toByteArray("519FA38AC731568E9C1EB21731167F1C"));
+        GFL gf = new GFL(GFL.GF128);
+        assertArrayEquals(ex, gf.mulTo(a, b, new long[2]));
+        long[] d = a.clone();
+        gf.mulTo(d, b, d);
+        assertArrayEquals(ex, d);
+        d = a.clone();
+        assertArrayEquals(gf.mul(a, a), gf.squareInPlace(d));
+        d = a.clone();
+        assertArrayEquals(gf.x(a), gf.xTo(d));
+        long[] x = a;
+        for (int i = 1; i < 20; i++) {
+            assertArrayEquals(x, gf.pow(a, new long[] {0, i}));
+            x = gf.mul(x, a);
+        }
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 okome.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.siisise.math;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * GCM 反転版 GF.
+ * GCM の Test Case 2 の X1 を使う.
+ */
+public class GFRevTest {
+
+    static final long[] H = {0x66e94bd4ef8a2c3bl, 0x884cfa59ca342b2el};
+    static final long[] C = {0x0388dace60b6a392l, 0xf328c2b971b2fe78l};
+    static final long[] X1 = {0x5e2ec74691706288l, 0x2c85b0685353deb7l};
+
+    public GFRevTest() {
+    }
+
+    @Test
+    public void testMul() {
+        System.out.println("GFRev mul");
+        for (int bits : new int[] {1, 4, 8}) {
+            GFRev gf = new GFRev(H, bits);
+            assertArrayEquals(X1, gf.mul(C));
+            long[] v = C.clone();
+            assertSame(v, gf.mulTo(v));
+            assertArrayEquals(X1, v);
+            assertArrayEquals(X1, gf.mul(H, C));
+            assertArrayEquals(X1, gf.mul(C, H));
+        }
+    }
+
+    @Test
+    public void testTable() {
+        System.out.println("GFRev table");
+        Random rnd = new Random(3);
+        long[] h = {rnd.nextLong(), rnd.nextLong()};
+        GFRev g1 = new GFRev(h, 1);
+        GFRev g4 = new GFRev(h, 4);
+        GFRev g8 = new GFRev(h, 8);
+        for (int i = 0; i < 100; i++) {
+            long[] b = {rnd.nextLong(), rnd.nextLong()};
+            long[] e = g1.mul(b);
+            assertArrayEquals(e, g4.mul(b));
+            assertArrayEquals(e, g8.mul(b));
+            assertArrayEquals(e, g1.mul(h, b));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new GFRev(h, 5));
+    }
+
+    @Test
+    public void testInv() {
+        System.out.println("GFRev inv");
+        GFRev gf = new GFRev(H);
+        long[] i = gf.inv();
+        assertArrayEquals(new long[] {RGF128_ONE, 0}, gf.mul(i));
+    }
+
+    static final long RGF128_ONE = 0x8000000000000000l;
+}
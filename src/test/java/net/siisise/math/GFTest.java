@@ -216,4 +216,32 @@ public class GFTest {
         System.out.println(Bin.toHex(Bin.ltob(xx)));
     }
     
+
+    @Test
+    public void testMulTo() {
+        System.out.println("GF.mulTo");
+        GF gf = new GF(128, GF.FF128);
+        GF gf64 = new GF(64, GF.FF64);
+        long[] a = {0x0388dace60b6a392l, 0xf328c2b971b2fe78l};
+        long[] b = {0x66e94bd4ef8a2c3bl, 0x884cfa59ca342b2el};
+        long[] ex = {0x519fa38ac731568el, 0x9c1eb21731167f1cl};
+        assertArrayEquals(ex, gf.mul(a, b));
+        long[] d = b.clone();
+        assertSame(d, gf.mulTo(a, d, d));
+        assertArrayEquals(ex, d);
+        long[] ia = gf.inv(a);
+        assertArrayEquals(new long[] {0, 1}, gf.mul(a, ia));
+        assertArrayEquals(ia, gf.inv1(a));
+        long[] c = {a[0]};
+        assertArrayEquals(new long[] {1}, gf64.mul(c, gf64.inv(c)));
+        d = a.clone();
+        assertArrayEquals(gf.x(a), gf.xTo(d));
+        // 3 long は配列版
+        GF gf192 = new GF(192, (byte) 0x87);
+        long[] e = {a[0], a[1], b[0]};
+        long[] ie = gf192.inv(e);
+        assertArrayEquals(new long[] {0, 0, 1}, gf192.mul(ie, e));
+        gf192.mulTo(e, ie, e);
+        assertArrayEquals(new long[] {0, 0, 1}, e);
+    }
 }